@@ -0,0 +1,134 @@
+package study.querydsl.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetProperties;
+import study.querydsl.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 영속성 컨텍스트에 member가 n개 올라와 있을 때 flush 한 번에 걸리는 시간.
+ * 향상 안 된 엔티티는 flush마다 n개 전부를 로딩 시점 스냅샷과 비교하고,
+ * 향상(inline dirty tracking)된 엔티티는 바뀐 속성을 기록해 두니 비교할 게 없다.
+ * ./gradlew flushBenchmark -Dflush.sizes=10000,100000,1000000
+ * ./gradlew flushBenchmark -PenhanceEntities=false  (향상 없이)
+ * 결과는 build/reports/flush/*.json
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("loadtest")
+class FlushBenchmark {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    DatasetProperties datasetProperties;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void flushCost() throws Exception {
+        long[] sizes = Arrays.stream(System.getProperty("flush.sizes", "10000,100000,1000000").split(","))
+                .mapToLong(size -> Long.parseLong(size.trim()))
+                .toArray();
+        int changes = Integer.getInteger("flush.changes", 100);
+        int rounds = Integer.getInteger("flush.rounds", 10);
+
+        datasetProperties.setMembers(Arrays.stream(sizes).max().orElse(0));
+        datasetGenerator.generate(datasetProperties);
+
+        boolean enhanced = SelfDirtinessTracker.class.isAssignableFrom(Member.class);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (long size : sizes) {
+            results.put(String.valueOf(size), transaction.execute(status -> {
+                // 바꾼 나이는 남기지 않는다.
+                status.setRollbackOnly();
+                return measure((int) size, changes, rounds);
+            }));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("enhanced", enhanced);
+        report.put("changesPerFlush", changes);
+        report.put("rounds", rounds);
+        report.put("managedEntities", results);
+
+        Path directory = Paths.get(System.getProperty("flush.reportDir", "build/reports/flush"));
+        Files.createDirectories(directory);
+        Path file = directory.resolve("flush-" + (enhanced ? "enhanced-" : "plain-") + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("flush benchmark report = " + file.toAbsolutePath());
+        results.forEach((size, summary) -> System.out.println("enhanced=" + enhanced + " managed=" + size + " " + summary));
+
+        assertThat(results).hasSize(sizes.length);
+    }
+
+    private Map<String, Object> measure(int size, int changes, int rounds) {
+        em.clear();
+        List<Member> members = em.createQuery("select m from Member m order by m.id", Member.class)
+                .setMaxResults(size)
+                .getResultList();
+
+        // 바뀐 게 없는 flush: 순수하게 dirty check 비용
+        long[] clean = new long[rounds];
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            em.flush();
+            clean[round] = System.nanoTime() - start;
+        }
+
+        // changes개만 바꾼 flush: dirty check + update 문
+        SplittableRandom random = new SplittableRandom(7);
+        long[] dirty = new long[rounds];
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < changes; i++) {
+                Member member = members.get(random.nextInt(members.size()));
+                member.setAge(member.getAge() + 1);
+            }
+            long start = System.nanoTime();
+            em.flush();
+            dirty[round] = System.nanoTime() - start;
+        }
+        em.clear();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("loaded", members.size());
+        summary.put("cleanFlushMedianMs", medianMillis(clean));
+        summary.put("dirtyFlushMedianMs", medianMillis(dirty));
+        return summary;
+    }
+
+    private static double medianMillis(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,59 @@
+package study.querydsl.load;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.util.UriComponentsBuilder;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+// 부하 믹스의 한 종류. 가중치 비율로 뽑혀서 endpoint + MemberSearchCondition + Pageable 조합으로 요청을 만든다.
+public class LoadScenario {
+
+    private final String name;
+    private final int weight;
+    private final String path;
+    private final Function<SplittableRandom, MemberSearchCondition> condition;
+    private final Function<SplittableRandom, Pageable> pageable;
+
+    public LoadScenario(String name, int weight, String path,
+                        Function<SplittableRandom, MemberSearchCondition> condition,
+                        Function<SplittableRandom, Pageable> pageable) {
+        this.name = name;
+        this.weight = weight;
+        this.path = path;
+        this.condition = condition;
+        this.pageable = pageable;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public String uri(String baseUrl, SplittableRandom random) {
+        MemberSearchCondition cond = condition.apply(random);
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl).path(path);
+        if (cond.getUsername() != null) {
+            builder.queryParam("username", cond.getUsername());
+        }
+        if (cond.getTeamName() != null) {
+            builder.queryParam("teamName", cond.getTeamName());
+        }
+        if (cond.getAgeGoe() != null) {
+            builder.queryParam("ageGoe", cond.getAgeGoe());
+        }
+        if (cond.getAgeLoe() != null) {
+            builder.queryParam("ageLoe", cond.getAgeLoe());
+        }
+        Pageable page = pageable.apply(random);
+        if (page.isPaged()) {
+            builder.queryParam("page", page.getPageNumber())
+                    .queryParam("size", page.getPageSize());
+        }
+        return builder.toUriString();
+    }
+}
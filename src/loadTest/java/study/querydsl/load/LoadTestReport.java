@@ -0,0 +1,84 @@
+package study.querydsl.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 실행 결과를 run 끼리 비교할 수 있도록 JSON으로 남긴다.
+public class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+
+    public LoadTestReport(double ratePerSecond, long durationSeconds, Map<String, Object> settings) {
+        report.put("startedAt", Instant.now().toString());
+        report.put("ratePerSecond", ratePerSecond);
+        report.put("durationSeconds", durationSeconds);
+        report.put("settings", settings);
+    }
+
+    public LoadTestReport latencies(Map<String, Histogram> histograms, Map<String, AtomicLong> errors) {
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        Histogram total = null;
+        long totalErrors = 0;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            long scenarioErrors = errors.get(entry.getKey()).get();
+            scenarios.put(entry.getKey(), summarize(entry.getValue(), scenarioErrors));
+            if (total == null) {
+                total = new Histogram(entry.getValue().getHighestTrackableValue(), 3);
+            }
+            total.add(entry.getValue());
+            totalErrors += scenarioErrors;
+        }
+        report.put("scenarios", scenarios);
+        if (total != null) {
+            report.put("overall", summarize(total, totalErrors));
+        }
+        return this;
+    }
+
+    public LoadTestReport pool(Map<String, Object> poolSummary) {
+        report.put("connectionPool", poolSummary);
+        return this;
+    }
+
+    public Map<String, Object> asMap() {
+        return report;
+    }
+
+    public Path write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve("member-search-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+
+    private static Map<String, Object> summarize(Histogram histogram, long errors) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("meanMs", histogram.getMean() / TimeUnit.MILLISECONDS.toNanos(1));
+        for (double percentile : PERCENTILES) {
+            String label = percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+            summary.put("p" + label + "Ms", toMillis(histogram.getValueAtPercentile(percentile)));
+        }
+        summary.put("maxMs", toMillis(histogram.getMaxValue()));
+        return summary;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,112 @@
+package study.querydsl.load;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetProperties;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * /v1, /v2, /v3 members 에 운영과 비슷한 검색 믹스를 고정 도착률로 보낸다.
+ * ./gradlew loadTest -Dloadtest.rate=300 -Dloadtest.duration=60
+ * 결과는 build/reports/loadtest/*.json
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class MemberSearchLoadTest {
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    DatasetProperties datasetProperties;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Test
+    public void memberSearchMix() throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "50"));
+        long durationSeconds = Long.getLong("loadtest.duration", 30);
+        long warmupSeconds = Long.getLong("loadtest.warmup", 10);
+        long seed = Long.getLong("loadtest.seed", 7);
+
+        datasetGenerator.generate(datasetProperties);
+
+        OpenModelLoadGenerator generator = new OpenModelLoadGenerator("http://localhost:" + port,
+                memberSearchMix(datasetProperties.getTeams()));
+        generator.run(rate, Duration.ofSeconds(warmupSeconds), false, seed);
+
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        Map<String, Object> poolSummary;
+        try (PoolSaturationSampler sampler = new PoolSaturationSampler(hikari.getHikariPoolMXBean(),
+                hikari.getMaximumPoolSize()).start(50)) {
+            generator.run(rate, Duration.ofSeconds(durationSeconds), true, seed + 1);
+            poolSummary = sampler.summary();
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("teams", datasetProperties.getTeams());
+        settings.put("members", datasetProperties.getMembers());
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("seed", seed);
+
+        LoadTestReport report = new LoadTestReport(rate, durationSeconds, settings)
+                .latencies(generator.getHistograms(), generator.getErrors())
+                .pool(poolSummary);
+        Path file = report.write(Paths.get(System.getProperty("loadtest.reportDir", "build/reports/loadtest")));
+        System.out.println("load test report = " + file.toAbsolutePath());
+
+        assertThat(report.asMap()).containsKey("overall");
+    }
+
+    // 가중치는 운영 트래픽 비율을 흉내낸 것. 무거운 /v1 (페이징 없음)은 적게, 가벼운 /v3 첫 페이지는 많이.
+    static List<LoadScenario> memberSearchMix(int teams) {
+        return Arrays.asList(
+                new LoadScenario("v1-team-age-range", 5, "/v1/members",
+                        random -> condition(null, "team" + random.nextInt(teams), 20, 40),
+                        random -> Pageable.unpaged()),
+                new LoadScenario("v1-username", 10, "/v1/members",
+                        random -> condition("member" + random.nextInt(100_000), null, null, null),
+                        random -> Pageable.unpaged()),
+                new LoadScenario("v2-all-pages", 25, "/v2/members",
+                        random -> condition(null, null, null, null),
+                        random -> PageRequest.of(random.nextInt(10), 20)),
+                new LoadScenario("v3-team-first-page", 45, "/v3/members",
+                        random -> condition(null, "team" + random.nextInt(Math.min(teams, 10)), null, null),
+                        random -> PageRequest.of(0, 20)),
+                new LoadScenario("v3-age-deep-offset", 15, "/v3/members",
+                        random -> condition(null, null, 30, 39),
+                        random -> PageRequest.of(100 + random.nextInt(400), 20))
+        );
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
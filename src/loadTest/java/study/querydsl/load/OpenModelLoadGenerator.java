@@ -0,0 +1,114 @@
+package study.querydsl.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 열린 모델(open model) 부하 생성기.
+ * 응답을 기다리지 않고 고정된 도착률로 요청을 보낸다. 서버가 느려져도 보내는 속도는 줄지 않는다.
+ * 지연 시간은 실제로 보낸 시각이 아니라 "원래 보냈어야 할 시각"부터 재서 coordinated omission을 보정한다.
+ */
+public class OpenModelLoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final String baseUrl;
+    private final List<LoadScenario> scenarios;
+    private final int[] cumulativeWeights;
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+
+    public OpenModelLoadGenerator(String baseUrl, List<LoadScenario> scenarios) {
+        this.baseUrl = baseUrl;
+        this.scenarios = scenarios;
+        this.cumulativeWeights = new int[scenarios.size()];
+        int sum = 0;
+        for (int i = 0; i < scenarios.size(); i++) {
+            sum += scenarios.get(i).getWeight();
+            cumulativeWeights[i] = sum;
+            histograms.put(scenarios.get(i).getName(), new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3));
+            errors.put(scenarios.get(i).getName(), new AtomicLong());
+        }
+    }
+
+    /**
+     * ratePerSecond로 duration 동안 요청을 보낸다. record가 false면 워밍업이라 기록하지 않는다.
+     */
+    public void run(double ratePerSecond, Duration duration, boolean record, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            LoadScenario scenario = pick(random);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(scenario.uri(baseUrl, random)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+
+            inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, ex) -> {
+                        if (!record) {
+                            return null;
+                        }
+                        // 보냈어야 할 시각부터 잰다.
+                        long latency = Math.min(System.nanoTime() - intended, HIGHEST_TRACKABLE_NANOS);
+                        histograms.get(scenario.getName()).recordValue(latency);
+                        if (ex != null || response.statusCode() >= 400) {
+                            errors.get(scenario.getName()).incrementAndGet();
+                        }
+                        return null;
+                    }));
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+    }
+
+    private LoadScenario pick(SplittableRandom random) {
+        int target = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (target < cumulativeWeights[i]) {
+                return scenarios.get(i);
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return histograms;
+    }
+
+    public Map<String, AtomicLong> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,62 @@
+package study.querydsl.load;
+
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 부하 중 커넥션 풀이 얼마나 포화됐는지 주기적으로 본다.
+// 커넥션을 기다리는 스레드가 있으면 그 순간은 포화된 것으로 센다.
+public class PoolSaturationSampler implements AutoCloseable {
+
+    private final HikariPoolMXBean pool;
+    private final int maximumPoolSize;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private long samples;
+    private long saturatedSamples;
+    private long activeSum;
+    private int maxActive;
+    private int maxAwaiting;
+
+    public PoolSaturationSampler(HikariPoolMXBean pool, int maximumPoolSize) {
+        this.pool = pool;
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public PoolSaturationSampler start(long periodMillis) {
+        scheduler.scheduleAtFixedRate(this::sample, 0, periodMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    private synchronized void sample() {
+        int active = pool.getActiveConnections();
+        int awaiting = pool.getThreadsAwaitingConnection();
+        samples++;
+        activeSum += active;
+        maxActive = Math.max(maxActive, active);
+        maxAwaiting = Math.max(maxAwaiting, awaiting);
+        if (awaiting > 0) {
+            saturatedSamples++;
+        }
+    }
+
+    public synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("maximumPoolSize", maximumPoolSize);
+        summary.put("samples", samples);
+        summary.put("avgActive", samples == 0 ? 0 : (double) activeSum / samples);
+        summary.put("maxActive", maxActive);
+        summary.put("maxThreadsAwaiting", maxAwaiting);
+        summary.put("saturatedRatio", samples == 0 ? 0 : (double) saturatedSamples / samples);
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
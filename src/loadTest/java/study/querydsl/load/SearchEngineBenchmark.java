@@ -0,0 +1,218 @@
+package study.querydsl.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.querydsl.core.types.FactoryExpression;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamBatch;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.sql.MemberSqlRepository;
+import study.querydsl.repository.support.DeduplicatingProjection;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 같은 검색을 JPA(MemberRepository)와 querydsl-sql(MemberSqlRepository)로 돌려 지연 시간을 비교하고,
+ * querydsl-sql 결과를 List<MemberTeamDto>와 MemberTeamBatch로 받을 때 할당량/남는 힙을 비교한다.
+ * DeduplicatingProjection으로 팀 이름을 나눠 쓸 때 남는 힙도 잰다.
+ * ./gradlew searchBenchmark -Dsearch.members=200000 -Dsearch.iterations=200
+ * 결과는 build/reports/search/*.json
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("loadtest")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SearchEngineBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    DatasetProperties datasetProperties;
+
+    int iterations;
+    MemberSearchCondition condition;
+
+    @BeforeAll
+    public void generate() {
+        datasetProperties.setMembers(Long.getLong("search.members", 200_000));
+        datasetGenerator.generate(datasetProperties);
+        iterations = Integer.getInteger("search.iterations", 200);
+
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team1");
+        condition.setAgeGoe(10);
+    }
+
+    @Test
+    public void jpaVersusSql() throws Exception {
+        // 결과가 같아야 비교가 의미 있다.
+        List<MemberTeamDto> expected = memberRepository.search(condition);
+        assertThat(memberSqlRepository.search(condition)).isEqualTo(expected);
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("jpa", measure(iterations, () -> memberRepository.search(condition)));
+        results.put("sql", measure(iterations, () -> memberSqlRepository.search(condition)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("members", datasetProperties.getMembers());
+        report.put("rows", expected.size());
+        report.put("iterations", iterations);
+        report.put("engines", results);
+
+        writeReport("search", report);
+        results.forEach((engine, summary) -> System.out.println(engine + " " + summary));
+
+        assertThat(results).hasSize(2);
+    }
+
+    // 같은 결과를 row마다 DTO로 받을 때와 컬럼 배열(MemberTeamBatch)로 받을 때
+    // 호출 중 할당도, 들고 있는 동안 남는 힙도 batch 쪽이 작아야 한다.
+    @Test
+    public void dtoListVersusBatch() throws Exception {
+        assertThat(memberSqlRepository.searchBatch(condition).toList()).isEqualTo(memberSqlRepository.search(condition));
+
+        long dtoAllocated = allocatedPerCall(() -> memberSqlRepository.search(condition));
+        long batchAllocated = allocatedPerCall(() -> memberSqlRepository.searchBatch(condition));
+        long dtoRetained = retainedBytes(() -> memberSqlRepository.search(condition));
+        long batchRetained = retainedBytes(() -> memberSqlRepository.searchBatch(condition));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("members", datasetProperties.getMembers());
+        report.put("rows", memberSqlRepository.searchBatch(condition).size());
+        report.put("iterations", iterations);
+        report.put("dtoListAllocatedBytesPerCall", dtoAllocated);
+        report.put("batchAllocatedBytesPerCall", batchAllocated);
+        report.put("dtoListRetainedBytes", dtoRetained);
+        report.put("batchRetainedBytes", batchRetained);
+        writeReport("batch", report);
+        System.out.println("dto list vs batch " + report);
+
+        assertThat(batchRetained).isLessThan(dtoRetained);
+        assertThat(batchAllocated).isLessThanOrEqualTo(dtoAllocated);
+    }
+
+    // 원격 DB 드라이버처럼 row마다 새 teamName String이 올 때 DeduplicatingProjection이 줄이는 남는 힙.
+    // (임베디드 H2는 같은 값이면 같은 인스턴스를 돌려줘서 DB로는 차이가 안 보인다)
+    @Test
+    public void deduplicatedTeamNames() throws Exception {
+        int rows = Integer.getInteger("search.dedupRows", 200_000);
+        int teams = 10;
+        QMemberTeamDto projection = new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+        DeduplicatingProjection<MemberTeamDto> deduplicating = DeduplicatingProjection.of(projection, team.name);
+
+        long plainRetained = retainedBytes(() -> materialize(projection, rows, teams));
+        long dedupRetained = retainedBytes(() -> materialize(deduplicating, rows, teams));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("rows", rows);
+        report.put("teams", teams);
+        report.put("plainRetainedBytes", plainRetained);
+        report.put("deduplicatedRetainedBytes", dedupRetained);
+        writeReport("dedup", report);
+        System.out.println("teamName retained heap " + report);
+
+        assertThat(dedupRetained).isLessThan(plainRetained);
+    }
+
+    private static List<MemberTeamDto> materialize(FactoryExpression<MemberTeamDto> projection, int rows, int teams) {
+        List<MemberTeamDto> result = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            result.add(projection.newInstance((long) i, "member", 20, (long) (i % teams), "team-name-" + i % teams));
+        }
+        return result;
+    }
+
+    // 호출 스레드가 한 번 호출에 할당한 바이트 평균
+    private long allocatedPerCall(Supplier<?> search) {
+        for (int i = 0; i < iterations; i++) { // warm up
+            search.get();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            search.get();
+        }
+        return (THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+
+    // 결과를 들고 있는 동안 GC 뒤에도 남는 힙
+    private static long retainedBytes(Supplier<?> search) {
+        long before = usedHeap();
+        Object result = search.get();
+        long after = usedHeap();
+        assertThat(result).isNotNull();
+        return after - before;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void writeReport(String name, Map<String, Object> report) throws Exception {
+        Path directory = Paths.get(System.getProperty("search.reportDir", "build/reports/search"));
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name + "-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("search benchmark report = " + file.toAbsolutePath());
+    }
+
+    private static Map<String, Object> measure(int iterations, Supplier<List<MemberTeamDto>> search) {
+        for (int i = 0; i < iterations; i++) { // warm up
+            search.get();
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            search.get();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("p50Ms", nanos[iterations / 2] / 1_000_000.0);
+        summary.put("p99Ms", nanos[Math.min(iterations - 1, iterations * 99 / 100)] / 1_000_000.0);
+        return summary;
+    }
+}
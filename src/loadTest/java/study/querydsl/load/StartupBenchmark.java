@@ -0,0 +1,160 @@
+package study.querydsl.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 애플리케이션을 별도 JVM으로 띄워서 프로세스 시작부터 첫 member 검색 응답(200)까지 걸린 시간을 잰다.
+ * 기본 / fast-start 프로파일 / AppCDS 아카이브 / 둘 다, 네 가지를 번갈아 가며 같은 횟수만큼 돌린다.
+ * ./gradlew startupBenchmark -Dstartup.runs=10
+ * 결과는 build/reports/startup/*.json
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    private static final String FIRST_REQUEST = "/v3/members?page=0&size=1";
+
+    @Test
+    public void timeToFirstRequest() throws Exception {
+        String classpath = System.getProperty("startup.classpath");
+        assertThat(classpath).as("startup.classpath (./gradlew startupBenchmark 로 실행)").isNotBlank();
+        String archive = System.getProperty("startup.archive", "");
+        int runs = Integer.getInteger("startup.runs", 5);
+        long timeoutMs = Long.getLong("startup.timeoutMs", 120_000);
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("baseline", Collections.emptyList());
+        variants.put("fast-start", Collections.emptyList());
+        if (new File(archive).isFile()) {
+            variants.put("appcds", List.of("-XX:SharedArchiveFile=" + archive));
+            variants.put("appcds+fast-start", List.of("-XX:SharedArchiveFile=" + archive));
+        }
+
+        Map<String, List<Long>> samples = new LinkedHashMap<>();
+        variants.keySet().forEach(name -> samples.put(name, new ArrayList<>()));
+        // 디스크 캐시 영향이 한쪽으로 몰리지 않게 한 바퀴씩 번갈아 돌린다. 첫 바퀴는 버린다.
+        for (int run = 0; run <= runs; run++) {
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                boolean fastStart = variant.getKey().endsWith("fast-start");
+                long millis = timeToFirstRequest(classpath, variant.getValue(), fastStart, timeoutMs);
+                if (run > 0) {
+                    samples.get(variant.getKey()).add(millis);
+                }
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().toString());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("runs", runs);
+        report.put("firstRequest", FIRST_REQUEST);
+        Map<String, Object> results = new LinkedHashMap<>();
+        samples.forEach((name, values) -> results.put(name, summarize(values)));
+        report.put("timeToFirstRequest", results);
+
+        Path directory = Paths.get(System.getProperty("startup.reportDir", "build/reports/startup"));
+        Files.createDirectories(directory);
+        Path file = directory.resolve("startup-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("startup benchmark report = " + file.toAbsolutePath());
+        results.forEach((name, summary) -> System.out.println(name + " " + summary));
+
+        assertThat(results).containsKeys("baseline", "fast-start");
+    }
+
+    private long timeToFirstRequest(String classpath, List<String> jvmArgs, boolean fastStart, long timeoutMs)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xshare:auto");
+        command.addAll(jvmArgs);
+        command.addAll(Arrays.asList("-cp", classpath, "study.querydsl.QuerydslApplication",
+                "--server.port=" + port,
+                "--internal-endpoints.port=0",
+                "--spring.profiles.active=local" + (fastStart ? ",fast-start" : ""),
+                "--spring.datasource.url=jdbc:h2:mem:startup",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.p6spy.enable-logging=false"));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            URL url = new URL("http://localhost:" + port + FIRST_REQUEST);
+            long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("application exited with " + process.exitValue());
+                }
+                if (respondsOk(url)) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("no response from " + url + " within " + timeoutMs + "ms");
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static boolean respondsOk(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(100);
+            connection.setReadTimeout(10_000);
+            try (InputStream body = connection.getInputStream()) {
+                body.readAllBytes();
+            }
+            return connection.getResponseCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, Object> summarize(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", sorted.size());
+        summary.put("minMs", sorted.get(0));
+        summary.put("medianMs", sorted.get(sorted.size() / 2));
+        summary.put("p90Ms", sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(sorted.size() * 0.9) - 1)));
+        summary.put("maxMs", sorted.get(sorted.size() - 1));
+        return summary;
+    }
+}
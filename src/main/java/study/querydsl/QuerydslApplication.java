@@ -3,11 +3,15 @@ package study.querydsl;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.bulk.BulkWriteListeners;
+import study.querydsl.deadline.DeadlineJPAQueryFactory;
 
 import javax.persistence.EntityManager;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class QuerydslApplication {
 
 	public static void main(String[] args) {
@@ -17,8 +21,10 @@ public class QuerydslApplication {
 	// 그냥 스프링 빈으로 등록해버리기.
 	// 싱글톤이다. 동시성 문제가 없을까? 없다. EntityManager도 마찬가지.
 	// Entity Manager에 의존하게 되는데, 스프링은 트랜잭션에 의존하게 된다.
+	// 요청 마감 시간을 쿼리 타임아웃으로 걸어 주는 팩토리 (study.querydsl.deadline)
+	// update/delete는 실행 전에 BulkWriteListener(팀 집계 등)에 알린다. (study.querydsl.bulk)
 	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
+	JPAQueryFactory jpaQueryFactory(EntityManager em, BulkWriteListeners bulkWriteListeners) {
+		return new DeadlineJPAQueryFactory(em, bulkWriteListeners);
 	}
 }
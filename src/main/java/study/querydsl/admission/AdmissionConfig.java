@@ -0,0 +1,22 @@
+package study.querydsl.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionProperties properties;
+    private final AdmissionInterceptor admissionInterceptor;
+
+    // 설정된 엔드포인트에만 건다.
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled() && admissionInterceptor.hasLimits()) {
+            registry.addInterceptor(admissionInterceptor).addPathPatterns(admissionInterceptor.patterns());
+        }
+    }
+}
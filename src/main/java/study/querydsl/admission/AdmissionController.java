@@ -0,0 +1,21 @@
+package study.querydsl.admission;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// 내부용. 관리용 포트(internal-endpoints.port)로만 받는다.
+@RestController
+@RequiredArgsConstructor
+public class AdmissionController {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    // http://localhost:8081/internal/admission
+    @GetMapping("/internal/admission")
+    public List<AdmissionSnapshot> admission() {
+        return admissionInterceptor.snapshots();
+    }
+}
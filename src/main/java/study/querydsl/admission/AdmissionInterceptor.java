@@ -0,0 +1,91 @@
+package study.querydsl.admission;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔드포인트별로 동시에 실행되는 요청 수를 제한한다.
+ * 비싼 /v1/members가 몰려도 servlet 스레드와 커넥션을 다 가져가지 못하고, 넘친 요청은 바로 429/503을 받는다.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT = AdmissionInterceptor.class.getName() + ".PERMIT";
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    private final Map<String, AimdLimiter> limiters = new LinkedHashMap<>();
+
+    public AdmissionInterceptor(AdmissionProperties properties) {
+        properties.getEndpoints().forEach((pattern, limit) -> limiters.put(pattern, new AimdLimiter(pattern, limit)));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        AimdLimiter limiter = limiterFor(request.getRequestURI().substring(request.getContextPath().length()));
+        if (limiter == null) {
+            return true;
+        }
+
+        AimdLimiter.Permit permit = limiter.acquire();
+        switch (permit.getOutcome()) {
+            case ACCEPTED:
+                request.setAttribute(PERMIT, permit);
+                return true;
+            case QUEUE_FULL:
+                // 대기열까지 찼다. 잠깐 뒤에 다시
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                response.setHeader("Retry-After", "1");
+                return false;
+            default:
+                // 기다려도 자리가 나지 않았다. 서버가 밀리는 중
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader("Retry-After", "1");
+                return false;
+        }
+    }
+
+    // 예외나 5xx(쿼리 마감 초과 포함)는 과부하 신호로 보고 제한을 줄인다.
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object permit = request.getAttribute(PERMIT);
+        if (permit != null) {
+            request.removeAttribute(PERMIT);
+            ((AimdLimiter.Permit) permit).release(ex != null || response.getStatus() >= 500);
+        }
+    }
+
+    public boolean hasLimits() {
+        return !limiters.isEmpty();
+    }
+
+    public List<String> patterns() {
+        return new ArrayList<>(limiters.keySet());
+    }
+
+    public List<AdmissionSnapshot> snapshots() {
+        List<AdmissionSnapshot> snapshots = new ArrayList<>(limiters.size());
+        for (AimdLimiter limiter : limiters.values()) {
+            snapshots.add(limiter.snapshot());
+        }
+        return snapshots;
+    }
+
+    private AimdLimiter limiterFor(String path) {
+        for (Map.Entry<String, AimdLimiter> entry : limiters.entrySet()) {
+            if (pathMatcher.match(entry.getKey(), path)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package study.querydsl.admission;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties("admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+
+    // 경로 패턴(ant) -> 동시 실행 제한. 여기 없는 경로는 제한하지 않는다.
+    private Map<String, Limit> endpoints = new LinkedHashMap<>();
+
+    @Getter @Setter
+    public static class Limit {
+
+        // 동시에 실행할 수 있는 요청 수. 지연 시간을 보고 min ~ max 사이에서 움직인다.
+        private int initialLimit = 8;
+        private int minLimit = 1;
+        private int maxLimit = 64;
+
+        // 제한에 걸린 요청이 기다릴 수 있는 자리. 다 차면 바로 429
+        private int queueSize = 16;
+
+        // 자리에서 이만큼 기다려도 못 들어가면 503
+        private long maxQueueWaitMs = 100;
+
+        // 이보다 오래 걸리거나 5xx면 제한을 backoffRatio 배로 줄이고, 아니면 조금씩 늘린다. (AIMD)
+        private long latencyTargetMs = 500;
+        private double backoffRatio = 0.9;
+    }
+}
@@ -0,0 +1,21 @@
+package study.querydsl.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// /internal/admission 응답. 엔드포인트별 현재 제한과 대기열, 누적 거절 수
+@Getter
+@AllArgsConstructor
+public class AdmissionSnapshot {
+
+    private final String endpoint;
+    private final int limit;
+    private final int inFlight;
+    private final int queued;
+    private final int queueSize;
+    private final long accepted;
+    private final long rejectedQueueFull;
+    private final long rejectedTimeout;
+    private final long dropped;
+    private final long averageLatencyMs;
+}
@@ -0,0 +1,158 @@
+package study.querydsl.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 엔드포인트 하나의 동시 실행 제한 (bulkhead).
+ * 제한은 AIMD로 움직인다. 목표 지연 시간 안에 끝나면 요청마다 1/limit씩 (한 바퀴에 약 +1),
+ * 목표를 넘기거나 실패하면 backoffRatio 배로 줄인다.
+ * 제한이 차면 정해진 수만큼만 잠깐 기다리게 하고, 나머지는 바로 거절한다.
+ * 기다리는 요청은 온 순서대로 들어간다. 줄이 있으면 새 요청도 자리가 나 있더라도 줄 뒤에 선다.
+ */
+public class AimdLimiter {
+
+    public enum Outcome {
+        ACCEPTED, QUEUE_FULL, QUEUE_TIMEOUT
+    }
+
+    private static final Permit QUEUE_FULL = new Permit(null, Outcome.QUEUE_FULL, 0L);
+    private static final Permit QUEUE_TIMEOUT = new Permit(null, Outcome.QUEUE_TIMEOUT, 0L);
+
+    private final String name;
+    private final AdmissionProperties.Limit config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    // 기다리는 요청 순서. 맨 앞만 들어갈 수 있다.
+    private final Deque<Object> waiters = new ArrayDeque<>();
+    // 최근 지연 시간 (지수 이동 평균)
+    private double averageLatencyMs;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public AimdLimiter(String name, AdmissionProperties.Limit config) {
+        this.name = name;
+        this.config = config;
+        this.limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), config.getInitialLimit()));
+    }
+
+    public Permit acquire() {
+        lock.lock();
+        try {
+            if (waiters.isEmpty() && inFlight < (int) limit) {
+                return admit();
+            }
+            if (waiters.size() >= config.getQueueSize()) {
+                rejectedQueueFull.increment();
+                return QUEUE_FULL;
+            }
+
+            Object ticket = new Object();
+            waiters.addLast(ticket);
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxQueueWaitMs());
+                while (waiters.peekFirst() != ticket || inFlight >= (int) limit) {
+                    if (nanos <= 0L) {
+                        rejectedTimeout.increment();
+                        return QUEUE_TIMEOUT;
+                    }
+                    nanos = released.awaitNanos(nanos);
+                }
+                return admit();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejectedTimeout.increment();
+                return QUEUE_TIMEOUT;
+            } finally {
+                waiters.remove(ticket);
+                // 다음 차례가 바로 들어갈 수 있는지 다시 보게 한다.
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit admit() {
+        inFlight++;
+        accepted.increment();
+        return new Permit(this, Outcome.ACCEPTED, System.nanoTime());
+    }
+
+    void release(long startNanos, boolean failed) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        lock.lock();
+        try {
+            inFlight--;
+            averageLatencyMs = averageLatencyMs == 0 ? latencyMs : averageLatencyMs * 0.9 + latencyMs * 0.1;
+            if (failed || latencyMs > config.getLatencyTargetMs()) {
+                dropped.increment();
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+            } else {
+                limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+            }
+            // 제한이 늘었으면 여러 명이 들어갈 수 있다.
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public AdmissionSnapshot snapshot() {
+        lock.lock();
+        try {
+            return new AdmissionSnapshot(name, (int) limit, inFlight, waiters.size(), config.getQueueSize(),
+                    accepted.sum(), rejectedQueueFull.sum(), rejectedTimeout.sum(), dropped.sum(),
+                    Math.round(averageLatencyMs));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 들어간 요청은 끝날 때 꼭 release 해야 한다.
+    public static final class Permit {
+
+        private final AimdLimiter limiter;
+        private final Outcome outcome;
+        private final long startNanos;
+
+        private Permit(AimdLimiter limiter, Outcome outcome, long startNanos) {
+            this.limiter = limiter;
+            this.outcome = outcome;
+            this.startNanos = startNanos;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isAccepted() {
+            return outcome == Outcome.ACCEPTED;
+        }
+
+        public void release(boolean failed) {
+            if (limiter != null) {
+                limiter.release(startNanos, failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.bulk;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 메모리 사본을 다시 맞추는 작업을 커밋 뒤로 미룬다. 트랜잭션 밖이면 바로 실행한다.
+ * 같은 트랜잭션에서 같은 key로 여러 번 불러도 커밋 뒤에 한 번만 실행한다. (JdbcTemplate 문장마다 전체 재계산하지 않도록)
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void runOnce(Object key, Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            task.run();
+            return;
+        }
+        // 지금 트랜잭션에 걸린 것만 본다. (REQUIRES_NEW로 멈춰 둔 바깥 트랜잭션 것은 안 보인다)
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Task && ((Task) synchronization).key.equals(key)) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new Task(key, task));
+    }
+
+    private static final class Task implements TransactionSynchronization {
+        private final Object key;
+        private final Runnable task;
+
+        private Task(Object key, Runnable task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        @Override
+        public void afterCommit() {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package study.querydsl.bulk;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+// 실행하려는 Querydsl update/delete 한 건
+@Getter
+public class BulkClause {
+
+    private final EntityPath<?> entity;
+    private final boolean delete;
+    private final List<Predicate> where;
+    // update가 바꾸는 속성. delete면 비어 있다.
+    private final Set<Path<?>> updated;
+
+    BulkClause(EntityPath<?> entity, boolean delete, List<Predicate> where, Set<Path<?>> updated) {
+        this.entity = entity;
+        this.delete = delete;
+        this.where = Collections.unmodifiableList(where);
+        this.updated = Collections.unmodifiableSet(updated);
+    }
+
+    public boolean targets(Class<?> type) {
+        return type.equals(entity.getType());
+    }
+
+    public boolean updates(String property) {
+        return updated.stream().anyMatch(path -> path.getMetadata().getName().equals(property));
+    }
+
+    public Predicate[] whereArray() {
+        return where.toArray(new Predicate[0]);
+    }
+}
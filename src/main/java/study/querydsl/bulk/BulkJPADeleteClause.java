@@ -0,0 +1,40 @@
+package study.querydsl.bulk;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPADeleteClause;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// where를 기억해 두었다가 execute() 직전에 BulkWriteListener에 알린다.
+public class BulkJPADeleteClause extends JPADeleteClause {
+
+    private final EntityPath<?> entity;
+    private final BulkWriteListeners listeners;
+    private final List<Predicate> where = new ArrayList<>();
+
+    public BulkJPADeleteClause(EntityManager entityManager, EntityPath<?> entity, BulkWriteListeners listeners) {
+        super(entityManager, entity);
+        this.entity = entity;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public JPADeleteClause where(Predicate... predicates) {
+        for (Predicate predicate : predicates) {
+            if (predicate != null) {
+                where.add(predicate);
+            }
+        }
+        return super.where(predicates);
+    }
+
+    @Override
+    public long execute() {
+        listeners.beforeBulkClause(new BulkClause(entity, true, where, Collections.emptySet()));
+        return super.execute();
+    }
+}
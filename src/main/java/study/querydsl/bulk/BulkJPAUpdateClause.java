@@ -0,0 +1,68 @@
+package study.querydsl.bulk;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// set/where를 기억해 두었다가 execute() 직전에 BulkWriteListener에 알린다.
+public class BulkJPAUpdateClause extends JPAUpdateClause {
+
+    private final EntityPath<?> entity;
+    private final BulkWriteListeners listeners;
+    private final List<Predicate> where = new ArrayList<>();
+    private final Set<Path<?>> updated = new LinkedHashSet<>();
+
+    public BulkJPAUpdateClause(EntityManager entityManager, EntityPath<?> entity, BulkWriteListeners listeners) {
+        super(entityManager, entity);
+        this.entity = entity;
+        this.listeners = listeners;
+    }
+
+    @Override
+    public <T> JPAUpdateClause set(Path<T> path, T value) {
+        updated.add(path);
+        return super.set(path, value);
+    }
+
+    @Override
+    public <T> JPAUpdateClause set(Path<T> path, Expression<? extends T> expression) {
+        updated.add(path);
+        return super.set(path, expression);
+    }
+
+    @Override
+    public <T> JPAUpdateClause setNull(Path<T> path) {
+        updated.add(path);
+        return super.setNull(path);
+    }
+
+    @Override
+    public JPAUpdateClause set(List<? extends Path<?>> paths, List<?> values) {
+        updated.addAll(paths);
+        return super.set(paths, values);
+    }
+
+    @Override
+    public JPAUpdateClause where(Predicate... predicates) {
+        for (Predicate predicate : predicates) {
+            if (predicate != null) {
+                where.add(predicate);
+            }
+        }
+        return super.where(predicates);
+    }
+
+    @Override
+    public long execute() {
+        listeners.beforeBulkClause(new BulkClause(entity, false, where, updated));
+        return super.execute();
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.bulk;
+
+/**
+ * 엔티티 이벤트가 나오지 않는 쓰기를 알려 받는다. 메모리에 들고 있는 사본(팀 집계, near cache 등)을 맞출 때 쓴다.
+ * 쓰기와 같은 스레드, 같은 트랜잭션에서 불린다.
+ */
+public interface BulkWriteListener {
+
+    // DeadlineJPAQueryFactory가 만든 update/delete clause의 execute() 직전. where로 바뀔 row를 미리 읽을 수 있다.
+    default void beforeBulkClause(BulkClause clause) {
+    }
+
+    // 기본 JdbcTemplate(DeadlineJdbcTemplate)으로 insert/update/delete/merge 한 뒤. table은 소문자 테이블 이름
+    default void afterJdbcWrite(String table) {
+    }
+}
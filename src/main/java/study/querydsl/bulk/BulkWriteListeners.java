@@ -0,0 +1,23 @@
+package study.querydsl.bulk;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+// 등록된 BulkWriteListener 빈 전부. 리스너가 쿼리 팩토리를 쓰더라도 순환 참조가 없도록 부를 때 찾는다.
+@Component
+public class BulkWriteListeners {
+
+    private final ObjectProvider<BulkWriteListener> listeners;
+
+    public BulkWriteListeners(ObjectProvider<BulkWriteListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    public void beforeBulkClause(BulkClause clause) {
+        listeners.orderedStream().forEach(listener -> listener.beforeBulkClause(clause));
+    }
+
+    public void afterJdbcWrite(String table) {
+        listeners.orderedStream().forEach(listener -> listener.afterJdbcWrite(table));
+    }
+}
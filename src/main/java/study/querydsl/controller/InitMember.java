@@ -1,6 +1,7 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,6 +14,7 @@ import javax.persistence.PersistenceContext;
 
 @Profile("local") // local일 때만 돈다. test에서는 안 돈다. application.yml에 정의되어있다.
 @Component
+@Lazy(false) // fast-start(lazy-initialization)에서도 데이터는 넣어야 한다.
 @RequiredArgsConstructor
 public class InitMember {
 
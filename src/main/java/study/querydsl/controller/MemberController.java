@@ -3,12 +3,13 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.CoalescingMemberRepository;
 import study.querydsl.repository.MemberJpaRepository;
-import study.querydsl.repository.MemberRepository;
 
 import java.util.List;
 
@@ -17,7 +18,8 @@ import java.util.List;
 public class MemberController {
 
     private final MemberJpaRepository memberJpaRepository;
-    private final MemberRepository memberRepository;
+    // 같은 조건으로 동시에 들어온 검색은 한 번만 실행한다.
+    private final CoalescingMemberRepository memberRepository;
 
     // http://localhost:8080/v1/members?teamName=teamB&ageGoe=31&ageLoe=35
     // 이런 검색 가능.
@@ -36,4 +38,10 @@ public class MemberController {
         return memberRepository.searchPageComplex(condition, pageable);
     }
 
+    // 무한 스크롤용. count 쿼리 없이 hasNext만 내려준다.
+    @GetMapping("/v4/members")
+    public Slice<MemberTeamDto> searchMemberV4(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
 }
@@ -0,0 +1,38 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.stats.TeamStatsService;
+
+import java.util.List;
+
+// 팀별 집계. GROUP BY 대신 미리 계산해 둔 값을 돌려준다.
+@RestController
+@RequiredArgsConstructor
+public class TeamStatsController {
+
+    private final TeamStatsService teamStatsService;
+
+    // http://localhost:8080/v1/teams/stats
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsService.all();
+    }
+
+    @GetMapping("/v1/teams/{teamId}/stats")
+    public ResponseEntity<TeamStatsDto> teamStats(@PathVariable Long teamId) {
+        TeamStatsDto stats = teamStatsService.get(teamId);
+        return stats != null ? ResponseEntity.ok(stats) : ResponseEntity.notFound().build();
+    }
+
+    // 직접 연 커넥션, 문자열 JPQL/native update, 다른 인스턴스의 쓰기로 어긋났을 때 다시 계산. 내부용 (관리용 포트로만 받는다)
+    @PostMapping("/internal/team-stats/refresh")
+    public void refresh() {
+        teamStatsService.refresh();
+    }
+}
@@ -0,0 +1,196 @@
+package study.querydsl.dataset;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.bulk.BulkWriteListeners;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * JPA를 거치지 않고 JDBC batch insert로 team / member를 대량 생성한다.
+ * member는 writer 스레드마다 구간을 나눠서 각자 커넥션으로 병렬 적재한다.
+ * id는 hibernate_sequence에서 한 번에 구간을 잡고, 적재가 끝나면 시퀀스를 그 뒤로 옮겨서 이후 persist와 겹치지 않게 한다.
+ * 엔티티 이벤트가 없으니 적재가 끝나면 BulkWriteListener들에 member를 썼다고 알린다. (team은 JdbcTemplate이 알린다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatasetGenerator {
+
+    private static final String INSERT_TEAM = "insert into team (id, name) values (?, ?)";
+    private static final String INSERT_MEMBER = "insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    // member는 writer 스레드의 커넥션으로 쓰니 JdbcTemplate이 알리지 못한다. 다 넣은 뒤 한 번 알린다.
+    private final BulkWriteListeners bulkWriteListeners;
+
+    public GeneratedDataset generate(DatasetProperties properties) {
+        long start = System.currentTimeMillis();
+
+        long firstId = reserveIds(properties.getTeams() + properties.getMembers());
+        long firstTeamId = firstId;
+        long firstMemberId = firstId + properties.getTeams();
+
+        insertTeams(firstTeamId, properties.getTeams());
+        insertMembers(firstTeamId, firstMemberId, properties);
+        bulkWriteListeners.afterJdbcWrite("member");
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("dataset loaded: teams={}, members={}, {} ms ({} rows/s)",
+                properties.getTeams(), properties.getMembers(), elapsed,
+                elapsed == 0 ? properties.getMembers() : properties.getMembers() * 1000 / elapsed);
+        return new GeneratedDataset(firstTeamId, properties.getTeams(), firstMemberId, properties.getMembers());
+    }
+
+    // count개를 next value 한 번으로 잡는다. 그 사이에 persist가 next value를 받아도 count만큼 떨어진 값이라 겹치지 않는다.
+    // (next value 후 restart 하면 그 사이 persist가 잡아 둔 구간 안의 id를 받을 수 있다)
+    // increment를 바꾸고 되돌리는 사이에 다른 reserveIds가 끼면 구간 크기가 어긋나니 한 번에 하나만.
+    private synchronized long reserveIds(long count) {
+        jdbcTemplate.execute("alter sequence hibernate_sequence increment by " + Math.max(1, count));
+        try {
+            return jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        } finally {
+            jdbcTemplate.execute("alter sequence hibernate_sequence increment by 1");
+        }
+    }
+
+    private void insertTeams(long firstTeamId, int teams) {
+        List<Object[]> rows = new ArrayList<>(teams);
+        for (int i = 0; i < teams; i++) {
+            rows.add(new Object[]{firstTeamId + i, "team" + i});
+        }
+        jdbcTemplate.batchUpdate(INSERT_TEAM, rows);
+    }
+
+    private void insertMembers(long firstTeamId, long firstMemberId, DatasetProperties properties) {
+        int threads = Math.max(1, properties.getWriterThreads());
+        long members = properties.getMembers();
+        long chunk = (members + threads - 1) / threads;
+
+        WeightedSampler teamSampler = WeightedSampler.zipf(properties.getTeams(), properties.getTeamSizeSkew());
+        WeightedSampler ageSampler = new WeightedSampler(properties.getAgeHistogram().values());
+        WeightedSampler prefixSampler = new WeightedSampler(properties.getUsernamePrefixes().values());
+        Integer[] decades = properties.getAgeHistogram().keySet().toArray(new Integer[0]);
+        String[] prefixes = properties.getUsernamePrefixes().keySet().toArray(new String[0]);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long from = t * chunk;
+                long to = Math.min(members, from + chunk);
+                if (from >= to) {
+                    break;
+                }
+                // 스레드마다 시드를 달리해서 같은 설정이면 항상 같은 데이터가 나오게 한다.
+                SplittableRandom random = new SplittableRandom(properties.getSeed() + t);
+                futures.add(executor.submit(() -> {
+                    writeMembers(from, to, properties.getBatchSize(), (statement, i) -> {
+                        statement.setLong(1, firstMemberId + i);
+                        statement.setInt(2, decades[ageSampler.sample(random)] + random.nextInt(10));
+                        statement.setString(3, prefixes[prefixSampler.sample(random)] + i);
+                        statement.setLong(4, firstTeamId + teamSampler.sample(random));
+                    });
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("dataset generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("dataset generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeMembers(long from, long to, int batchSize, RowBinder binder) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_MEMBER)) {
+                for (long i = from; i < to; i++) {
+                    binder.bind(statement, i);
+                    statement.addBatch();
+                    if ((i - from + 1) % batchSize == 0) {
+                        statement.executeBatch();
+                        connection.commit();
+                    }
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement statement, long index) throws SQLException;
+    }
+
+    // 누적 가중치 배열 + 이진 탐색으로 가중치 비율대로 인덱스를 뽑는다.
+    static class WeightedSampler {
+
+        private final double[] cumulative;
+
+        WeightedSampler(Iterable<? extends Number> weights) {
+            List<Double> values = new ArrayList<>();
+            weights.forEach(w -> values.add(w.doubleValue()));
+            this.cumulative = cumulate(values.stream().mapToDouble(Double::doubleValue).toArray());
+        }
+
+        private WeightedSampler(double[] weights) {
+            this.cumulative = cumulate(weights);
+        }
+
+        static WeightedSampler zipf(int size, double skew) {
+            double[] weights = new double[size];
+            for (int k = 0; k < size; k++) {
+                weights[k] = 1.0 / Math.pow(k + 1, skew);
+            }
+            return new WeightedSampler(weights);
+        }
+
+        private static double[] cumulate(double[] weights) {
+            if (weights.length == 0) {
+                throw new IllegalArgumentException("weights must not be empty");
+            }
+            double[] result = new double[weights.length];
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i];
+                result[i] = sum;
+            }
+            return result;
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            index = index >= 0 ? index + 1 : -index - 1;
+            return Math.min(index, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.dataset;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// 벤치마크용 대량 데이터 설정. application-dataset.yml 참고
+@Getter @Setter
+@ConfigurationProperties("dataset")
+public class DatasetProperties {
+
+    private int teams = 1_000;
+    private long members = 1_000_000;
+
+    // 팀 크기 분포. 순위 k 팀의 가중치 = 1 / k^skew (0이면 균등, 1 근처면 소수 팀에 몰림)
+    private double teamSizeSkew = 1.0;
+
+    // 나이대(10 -> 10~19세) 별 가중치
+    private Map<Integer, Integer> ageHistogram = defaultAgeHistogram();
+
+    // username 접두사별 가중치. username = 접두사 + 일련번호
+    private Map<String, Integer> usernamePrefixes = defaultUsernamePrefixes();
+
+    private int writerThreads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 5_000;
+    private long seed = 42L;
+
+    private static Map<Integer, Integer> defaultAgeHistogram() {
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        histogram.put(10, 10);
+        histogram.put(20, 30);
+        histogram.put(30, 25);
+        histogram.put(40, 18);
+        histogram.put(50, 10);
+        histogram.put(60, 7);
+        return histogram;
+    }
+
+    private static Map<String, Integer> defaultUsernamePrefixes() {
+        Map<String, Integer> prefixes = new LinkedHashMap<>();
+        prefixes.put("member", 80);
+        prefixes.put("user", 15);
+        prefixes.put("guest", 5);
+        return prefixes;
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.dataset;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// DatasetGenerator가 넣은 id 구간. team, member 순으로 이어져 있다.
+@Getter
+@AllArgsConstructor
+public class GeneratedDataset {
+
+    private final long firstTeamId;
+    private final long teams;
+    private final long firstMemberId;
+    private final long members;
+
+    public long getLastTeamId() {
+        return firstTeamId + teams - 1;
+    }
+
+    public long getLastMemberId() {
+        return firstMemberId + members - 1;
+    }
+}
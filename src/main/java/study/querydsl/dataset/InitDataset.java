@@ -0,0 +1,25 @@
+package study.querydsl.dataset;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+
+// InitMember 대신 벤치마크/부하 테스트용 대량 데이터를 넣는다.
+// --spring.profiles.active=dataset --dataset.members=10000000
+@Profile("dataset")
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class InitDataset {
+
+    private final DatasetGenerator datasetGenerator;
+    private final DatasetProperties datasetProperties;
+
+    @PostConstruct
+    public void init() {
+        datasetGenerator.generate(datasetProperties);
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.deadline;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+// 쿼리를 만들 때마다 남은 마감 시간을 javax.persistence.query.timeout 힌트로 건다. (fetch, fetchCount 모두)
+public class DeadlineJPAQuery<T> extends JPAQuery<T> {
+
+    // 하이버네이트는 이 값을 1000으로 나눠서 버린다. 1초 단위로 올려서 넘긴다.
+    static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    public DeadlineJPAQuery(EntityManager em) {
+        super(em);
+    }
+
+    public DeadlineJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata) {
+        super(em, templates, metadata);
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        return withDeadline(super.createQuery(modifiers, forCount));
+    }
+
+    // querydsl 밖에서 만든 쿼리(named query 등)에도 같은 힌트를 건다.
+    public static Query withDeadline(Query query) {
+        if (QueryDeadline.isSet()) {
+            query.setHint(TIMEOUT_HINT, QueryDeadline.remainingSeconds() * 1000);
+        }
+        return query;
+    }
+
+    @Override
+    public DeadlineJPAQuery<T> clone(EntityManager entityManager, JPQLTemplates templates) {
+        DeadlineJPAQuery<T> q = new DeadlineJPAQuery<>(entityManager, templates, getMetadata().clone());
+        q.clone(this);
+        return q;
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.deadline;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import study.querydsl.bulk.BulkJPADeleteClause;
+import study.querydsl.bulk.BulkJPAUpdateClause;
+import study.querydsl.bulk.BulkWriteListeners;
+
+import javax.persistence.EntityManager;
+
+// select, selectFrom, from 모두 query()를 거치므로 여기서 DeadlineJPAQuery를 만들어 주면 된다.
+// update/delete는 엔티티 이벤트가 없으니 실행 직전에 BulkWriteListener에 알리는 clause를 준다.
+public class DeadlineJPAQueryFactory extends JPAQueryFactory {
+
+    private final EntityManager entityManager;
+    private final BulkWriteListeners bulkWriteListeners;
+
+    public DeadlineJPAQueryFactory(EntityManager entityManager, BulkWriteListeners bulkWriteListeners) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.bulkWriteListeners = bulkWriteListeners;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new DeadlineJPAQuery<Void>(entityManager);
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new BulkJPAUpdateClause(entityManager, path, bulkWriteListeners);
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new BulkJPADeleteClause(entityManager, path, bulkWriteListeners);
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.deadline;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.support.KeyHolder;
+import study.querydsl.bulk.BulkWriteListeners;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// 설정된 queryTimeout / 트랜잭션 타임아웃보다 요청 마감이 빠르면 그걸로 줄인다.
+// bulkWriteListeners가 있으면 update/batchUpdate 뒤에 어느 테이블을 바꿨는지 알린다. (엔티티 이벤트가 없는 쓰기)
+public class DeadlineJdbcTemplate extends JdbcTemplate {
+
+    // insert into member ..., update member ..., delete from member ..., merge into member ...
+    private static final Pattern WRITTEN_TABLE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+(?:\\w+\\.)?(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final BulkWriteListeners bulkWriteListeners;
+
+    public DeadlineJdbcTemplate(DataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    public DeadlineJdbcTemplate(DataSource dataSource, BulkWriteListeners bulkWriteListeners) {
+        super(dataSource);
+        this.bulkWriteListeners = bulkWriteListeners;
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        if (QueryDeadline.isSet()) {
+            int seconds = QueryDeadline.remainingSeconds();
+            int current = stmt.getQueryTimeout();
+            if (current == 0 || seconds < current) {
+                stmt.setQueryTimeout(seconds);
+            }
+        }
+    }
+
+    @Override
+    public int update(String sql) throws DataAccessException {
+        int rows = super.update(sql);
+        written(sql);
+        return rows;
+    }
+
+    // update(String, Object...) 등 PreparedStatement update는 모두 여기로 온다.
+    @Override
+    protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss) throws DataAccessException {
+        int rows = super.update(psc, pss);
+        written(psc);
+        return rows;
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) throws DataAccessException {
+        int rows = super.update(psc, generatedKeyHolder);
+        written(psc);
+        return rows;
+    }
+
+    @Override
+    public int[] batchUpdate(String... sql) throws DataAccessException {
+        int[] rows = super.batchUpdate(sql);
+        for (String statement : sql) {
+            written(statement);
+        }
+        return rows;
+    }
+
+    // batchUpdate(String, List<Object[]>) 도 여기로 온다.
+    @Override
+    public int[] batchUpdate(String sql, BatchPreparedStatementSetter pss) throws DataAccessException {
+        int[] rows = super.batchUpdate(sql, pss);
+        written(sql);
+        return rows;
+    }
+
+    @Override
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                   ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+        int[][] rows = super.batchUpdate(sql, batchArgs, batchSize, pss);
+        written(sql);
+        return rows;
+    }
+
+    private void written(PreparedStatementCreator psc) {
+        if (psc instanceof SqlProvider) {
+            written(((SqlProvider) psc).getSql());
+        }
+    }
+
+    private void written(String sql) {
+        if (bulkWriteListeners == null || sql == null) {
+            return;
+        }
+        Matcher matcher = WRITTEN_TABLE.matcher(sql);
+        if (matcher.find()) {
+            bulkWriteListeners.afterJdbcWrite(matcher.group(1).toLowerCase(Locale.ROOT));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.deadline;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 요청 스레드에 걸린 쿼리 마감 시각. (QueryDeadlineFilter가 요청마다 건다)
+ * JPA 쿼리는 javax.persistence.query.timeout 힌트로, JdbcTemplate은 Statement.setQueryTimeout으로 남은 시간을 넘긴다.
+ * 다른 스레드에서 쿼리를 돌릴 때는 propagate()로 감싸서 넘겨야 한다.
+ */
+public final class QueryDeadline {
+
+    // System.nanoTime 기준 마감 시각
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    public static void start(long timeoutMs) {
+        DEADLINE.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs));
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    public static boolean isSet() {
+        return DEADLINE.get() != null;
+    }
+
+    // 이미 지났으면 DB에 가기 전에 바로 실패시킨다.
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remaining <= 0) {
+            throw new QueryTimeoutException("query deadline exceeded");
+        }
+        return remaining;
+    }
+
+    // JDBC 타임아웃은 초 단위라 올림한다. 0은 '무제한'이라 최소 1초
+    public static int remainingSeconds() {
+        long millis = remainingMillis();
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (millis + 999) / 1000));
+    }
+
+    // 지금 스레드의 마감 시각을 작업 스레드로 넘긴다.
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(deadline);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    DEADLINE.set(previous);
+                } else {
+                    DEADLINE.remove();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.deadline;
+
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.bulk.BulkWriteListeners;
+
+import javax.sql.DataSource;
+
+// 부트 기본 JdbcTemplate 대신 마감 시간을 거는 JdbcTemplate을 쓴다. (spring.jdbc.template.* 설정은 그대로)
+// 이 JdbcTemplate으로 쓴 테이블은 BulkWriteListener에 알린다.
+@Configuration
+public class QueryDeadlineConfig {
+
+    @Bean
+    JdbcTemplate jdbcTemplate(DataSource dataSource, JdbcProperties properties, BulkWriteListeners bulkWriteListeners) {
+        JdbcTemplate jdbcTemplate = new DeadlineJdbcTemplate(dataSource, bulkWriteListeners);
+        JdbcProperties.Template template = properties.getTemplate();
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+        }
+        return jdbcTemplate;
+    }
+}
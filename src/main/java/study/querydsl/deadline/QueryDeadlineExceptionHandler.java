@@ -0,0 +1,17 @@
+package study.querydsl.deadline;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+// 마감을 넘긴 쿼리는 취소되고 커넥션은 요청이 끝나면서 풀로 돌아간다. 클라이언트에는 503
+@RestControllerAdvice
+public class QueryDeadlineExceptionHandler {
+
+    @ExceptionHandler({QueryTimeoutException.class, javax.persistence.QueryTimeoutException.class})
+    public ResponseEntity<String> queryTimeout(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("query deadline exceeded");
+    }
+}
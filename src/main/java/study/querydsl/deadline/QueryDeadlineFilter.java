@@ -0,0 +1,82 @@
+package study.querydsl.deadline;
+
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.springframework.util.StringUtils.hasText;
+
+// 요청마다 쿼리 마감 시각을 건다. 헤더 > 엔드포인트 설정 > 기본값 순서
+@Component
+public class QueryDeadlineFilter extends OncePerRequestFilter {
+
+    private final QueryDeadlineProperties properties;
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    public QueryDeadlineFilter(QueryDeadlineProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long timeoutMs = timeoutOf(request);
+        if (timeoutMs <= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        QueryDeadline.start(timeoutMs);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryDeadline.clear();
+        }
+    }
+
+    long timeoutOf(HttpServletRequest request) {
+        Long timeoutMs = fromHeader(request.getHeader(properties.getHeader()));
+        if (timeoutMs == null) {
+            timeoutMs = fromEndpoints(request.getRequestURI().substring(request.getContextPath().length()));
+        }
+        if (timeoutMs == null) {
+            timeoutMs = properties.getDefaultTimeoutMs();
+        }
+        return Math.min(timeoutMs, properties.getMaxTimeoutMs());
+    }
+
+    // 숫자가 아니거나 0 이하면 없는 것으로 본다.
+    private Long fromHeader(String value) {
+        if (!hasText(value)) {
+            return null;
+        }
+        try {
+            long timeoutMs = Long.parseLong(value.trim());
+            return timeoutMs > 0 ? timeoutMs : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Long fromEndpoints(String path) {
+        for (Map.Entry<String, Long> endpoint : properties.getEndpoints().entrySet()) {
+            if (pathMatcher.match(endpoint.getKey(), path)) {
+                return endpoint.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package study.querydsl.deadline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter @Setter
+@ConfigurationProperties("query-deadline")
+public class QueryDeadlineProperties {
+
+    private boolean enabled = true;
+
+    // 클라이언트가 직접 마감 시간(ms)을 줄 때 쓰는 헤더
+    private String header = "X-Query-Timeout-Ms";
+
+    // 헤더도, 엔드포인트 설정도 없을 때. 0이면 마감 없음
+    private long defaultTimeoutMs = 0;
+
+    // 헤더로 이보다 길게 달라고 해도 여기까지만
+    private long maxTimeoutMs = 30_000;
+
+    // 경로 패턴(ant) -> 마감 시간(ms). 먼저 맞는 것
+    private Map<String, Long> endpoints = new LinkedHashMap<>();
+}
@@ -0,0 +1,26 @@
+package study.querydsl.deadline;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+/**
+ * Hikari는 SQLTimeoutException이 나면 커넥션이 깨졌다고 보고 버린다.
+ * 마감 시간으로 취소된 statement는 커넥션 자체는 멀쩡하니 버리지 않고 풀로 돌려보낸다.
+ * (spring.datasource.hikari.exception-override-class-name)
+ */
+public class QueryTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    // 57014: query canceled
+    private static final String QUERY_CANCELED = "57014";
+
+    // 중첩 타입 Override와 이름이 겹쳐서 애너테이션은 전체 이름으로
+    @java.lang.Override
+    public SQLExceptionOverride.Override adjudicate(SQLException sqlException) {
+        if (sqlException instanceof SQLTimeoutException || QUERY_CANCELED.equals(sqlException.getSQLState())) {
+            return SQLExceptionOverride.Override.DO_NOT_EVICT;
+        }
+        return SQLExceptionOverride.Override.CONTINUE_EVICT;
+    }
+}
@@ -0,0 +1,330 @@
+package study.querydsl.dto;
+
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * MemberTeamDto 목록을 컬럼별 배열로 들고 있는 결과 묶음 (struct of arrays).
+ * row마다 DTO, 박싱된 Long, String을 만들지 않는다.
+ * - member id: long[], 나이: int[]
+ * - 팀: row마다 팀 코드(int) 하나, 팀 id/이름은 팀 수만큼만
+ * - username: UTF-8 바이트를 블록마다 한 배열에 이어 붙이고 끝 위치만 기록
+ * 대량 export용. 값은 cursor()로 훑어서 꺼낸다.
+ *
+ * 배열은 BLOCK_SIZE row씩 블록으로 나눠 담는다. 몇 row가 올지 모르니 한 배열을 두 배씩 키우면
+ * 키울 때마다 복사하고 끝에 한 번 더 잘라 내야 해서 DTO 목록보다 많이 할당한다.
+ * 블록은 다 차면 그대로 두고 다음 블록을 만드니 복사가 없고, build()도 블록을 그대로 넘긴다.
+ * 첫 블록만 작게 시작해서 BLOCK_SIZE까지 키운다. (몇 row 안 되는 결과에 큰 블록을 잡지 않도록)
+ */
+public final class MemberTeamBatch {
+
+    private static final int NO_TEAM = -1;
+
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    // row당 username 바이트 예상치. 첫 블록의 username 배열 처음 크기 (다음 블록부터는 앞 블록에서 쓴 만큼)
+    private static final int USERNAME_BYTES_PER_ROW = 8;
+
+    // member_id, username, age, team_id, team_name 순서의 ResultSet을 바로 채운다. (MemberSqlQueries content 쿼리)
+    // fetch size가 잡혀 있으면 그만큼은 한 번에 받으니 첫 블록을 그 크기로 시작한다.
+    // username은 getString 그대로 받는다. 내장 H2는 저장된 String을 그대로 주고, ASCII면 인코딩 없이 바이트로 옮긴다.
+    public static final ResultSetExtractor<MemberTeamBatch> EXTRACTOR = rs -> {
+        Builder builder = new Builder(rs.getFetchSize());
+        while (rs.next()) {
+            // team_id를 Long으로 박싱하지 않도록 wasNull로 본다.
+            long teamId = rs.getLong(4);
+            boolean hasTeam = !rs.wasNull();
+            builder.add(rs.getLong(1), rs.getString(2), rs.getInt(3), hasTeam, teamId, rs.getString(5));
+        }
+        return builder.build();
+    };
+
+    private final int size;
+    private final Block[] blocks;
+    private final long[] teamIds;
+    private final String[] teamNames;
+    private final BitSet nullUsernames;
+
+    private MemberTeamBatch(Builder builder) {
+        this.size = builder.size;
+        this.blocks = builder.blocks.toArray(new Block[0]);
+        this.teamIds = Arrays.copyOf(builder.teamIds, builder.teamNames.size());
+        this.teamNames = builder.teamNames.toArray(new String[0]);
+        this.nullUsernames = builder.nullUsernames;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // 배열이 차지하는 대략적인 바이트 수 (배열 헤더 제외)
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (Block block : blocks) {
+            bytes += (long) block.memberIds.length * (Long.BYTES + Integer.BYTES * 3);
+            bytes += block.usernameBytes.length;
+        }
+        bytes += (long) teamIds.length * Long.BYTES;
+        for (String teamName : teamNames) {
+            bytes += teamName != null ? teamName.length() : 0;
+        }
+        return bytes;
+    }
+
+    public List<MemberTeamDto> toList() {
+        List<MemberTeamDto> list = new ArrayList<>(size);
+        Cursor cursor = cursor();
+        while (cursor.next()) {
+            list.add(cursor.toDto());
+        }
+        return list;
+    }
+
+    /**
+     * 한 row를 가리키는 재사용 뷰. next()로 옮겨 가며 읽는다.
+     * teamName()은 사전에 있는 문자열을 그대로 돌려주고, username()만 새 String을 만든다.
+     */
+    public final class Cursor {
+
+        private int row = -1;
+        private Block block;
+        private int index;
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            if (row + 1 >= size) {
+                row = size;
+                return false;
+            }
+            point(row + 1);
+            return true;
+        }
+
+        public Cursor moveTo(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+            }
+            point(row);
+            return this;
+        }
+
+        private void point(int row) {
+            this.row = row;
+            this.block = blocks[row >>> BLOCK_SHIFT];
+            this.index = row & BLOCK_MASK;
+        }
+
+        public int row() {
+            return row;
+        }
+
+        public long memberId() {
+            return block.memberIds[index];
+        }
+
+        public int age() {
+            return block.ages[index];
+        }
+
+        public boolean hasTeam() {
+            return block.teamCodes[index] != NO_TEAM;
+        }
+
+        // 팀이 없으면 0. hasTeam()으로 먼저 확인한다.
+        public long teamId() {
+            int code = block.teamCodes[index];
+            return code != NO_TEAM ? teamIds[code] : 0L;
+        }
+
+        public String teamName() {
+            int code = block.teamCodes[index];
+            return code != NO_TEAM ? teamNames[code] : null;
+        }
+
+        public String username() {
+            if (nullUsernames.get(row)) {
+                return null;
+            }
+            int start = index == 0 ? 0 : block.usernameEnds[index - 1];
+            return new String(block.usernameBytes, start, block.usernameEnds[index] - start, StandardCharsets.UTF_8);
+        }
+
+        public MemberTeamDto toDto() {
+            return new MemberTeamDto(memberId(), username(), age(), hasTeam() ? teamId() : null, teamName());
+        }
+    }
+
+    // BLOCK_SIZE row 묶음. username 끝 위치는 블록 안에서의 위치
+    private static final class Block {
+        private long[] memberIds;
+        private int[] ages;
+        private int[] teamCodes;
+        private int[] usernameEnds;
+        private byte[] usernameBytes;
+        private int size;
+        private int usernameLength;
+
+        private Block(int capacity, int usernameCapacity) {
+            memberIds = new long[capacity];
+            ages = new int[capacity];
+            teamCodes = new int[capacity];
+            usernameEnds = new int[capacity];
+            usernameBytes = new byte[usernameCapacity];
+        }
+
+        private void grow(int capacity) {
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            teamCodes = Arrays.copyOf(teamCodes, capacity);
+            usernameEnds = Arrays.copyOf(usernameEnds, capacity);
+        }
+    }
+
+    public static final class Builder {
+
+        private int size;
+        private final List<Block> blocks = new ArrayList<>();
+        private Block block;
+        private final BitSet nullUsernames = new BitSet();
+
+        // 팀 id -> 팀 코드. 박싱 없이 찾도록 열린 주소 해시
+        private long[] dictionaryKeys = new long[16];
+        private int[] dictionaryCodes = new int[16];
+        private long[] teamIds = new long[16];
+        private final List<String> teamNames = new ArrayList<>();
+
+        // 0 이하면 기본 크기로 시작한다. BLOCK_SIZE보다 크게 잡지는 않는다.
+        public Builder(int initialCapacity) {
+            int capacity = Math.min(BLOCK_SIZE, Math.max(16, initialCapacity));
+            block = new Block(capacity, capacity * USERNAME_BYTES_PER_ROW);
+            blocks.add(block);
+            Arrays.fill(dictionaryCodes, NO_TEAM);
+        }
+
+        public Builder add(long memberId, String username, int age, Long teamId, String teamName) {
+            return add(memberId, username, age, teamId != null, teamId != null ? teamId : 0L, teamName);
+        }
+
+        public Builder add(long memberId, String username, int age, boolean hasTeam, long teamId, String teamName) {
+            if (block.size == block.memberIds.length) {
+                if (block.size < BLOCK_SIZE) {
+                    block.grow(Math.min(BLOCK_SIZE, block.size * 2));
+                } else {
+                    int used = block.usernameLength;
+                    block = new Block(BLOCK_SIZE, used + used / 8);
+                    blocks.add(block);
+                }
+            }
+            int index = block.size;
+            block.memberIds[index] = memberId;
+            block.ages[index] = age;
+            block.teamCodes[index] = hasTeam ? teamCode(teamId, teamName) : NO_TEAM;
+            if (username == null) {
+                nullUsernames.set(size);
+            } else {
+                appendUsername(username);
+            }
+            block.usernameEnds[index] = block.usernameLength;
+            block.size++;
+            size++;
+            return this;
+        }
+
+        public MemberTeamBatch build() {
+            return new MemberTeamBatch(this);
+        }
+
+        private int teamCode(long teamId, String teamName) {
+            int mask = dictionaryKeys.length - 1;
+            int slot = hash(teamId) & mask;
+            while (dictionaryCodes[slot] != NO_TEAM) {
+                if (dictionaryKeys[slot] == teamId) {
+                    return dictionaryCodes[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            int code = teamNames.size();
+            if (code == teamIds.length) {
+                teamIds = Arrays.copyOf(teamIds, code * 2);
+            }
+            teamIds[code] = teamId;
+            teamNames.add(teamName);
+            dictionaryKeys[slot] = teamId;
+            dictionaryCodes[slot] = code;
+            // 절반 넘게 차면 두 배로 다시 담는다.
+            if ((code + 1) * 2 > dictionaryKeys.length) {
+                rehash(dictionaryKeys.length * 2);
+            }
+            return code;
+        }
+
+        private void rehash(int capacity) {
+            long[] keys = new long[capacity];
+            int[] codes = new int[capacity];
+            Arrays.fill(codes, NO_TEAM);
+            int mask = capacity - 1;
+            for (int code = 0; code < teamNames.size(); code++) {
+                int slot = hash(teamIds[code]) & mask;
+                while (codes[slot] != NO_TEAM) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = teamIds[code];
+                codes[slot] = code;
+            }
+            dictionaryKeys = keys;
+            dictionaryCodes = codes;
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        // 대부분 ASCII라 바로 바이트로 옮기고, 아닌 것만 인코딩한다.
+        private void appendUsername(String username) {
+            int length = username.length();
+            ensureUsernameCapacity(length);
+            byte[] bytes = block.usernameBytes;
+            int offset = block.usernameLength;
+            for (int i = 0; i < length; i++) {
+                char c = username.charAt(i);
+                if (c >= 0x80) {
+                    appendEncoded(username);
+                    return;
+                }
+                bytes[offset + i] = (byte) c;
+            }
+            block.usernameLength += length;
+        }
+
+        private void appendEncoded(String username) {
+            byte[] bytes = username.getBytes(StandardCharsets.UTF_8);
+            ensureUsernameCapacity(bytes.length);
+            System.arraycopy(bytes, 0, block.usernameBytes, block.usernameLength, bytes.length);
+            block.usernameLength += bytes.length;
+        }
+
+        private void ensureUsernameCapacity(int additional) {
+            int required = block.usernameLength + additional;
+            if (required > block.usernameBytes.length) {
+                block.usernameBytes = Arrays.copyOf(block.usernameBytes, Math.max(block.usernameBytes.length * 2, required));
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.dto;
+
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+
+    private Long teamId;
+    private String teamName;
+    private long count;
+    private long sum;
+    private Double avg;
+    private Integer max;
+    private Integer min;
+
+    public TeamStatsDto(Long teamId, String teamName, long count, long sum, Integer max, Integer min) {
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.count = count;
+        this.sum = sum;
+        this.avg = count > 0 ? (double) sum / count : null;
+        this.max = max;
+        this.min = min;
+    }
+}
@@ -1,6 +1,7 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
 
 import javax.persistence.*;
 
@@ -38,6 +39,11 @@ public class Member {
 
     public void changeTeam(Team team) {
         this.team = team;
-        team.getMembers().add(this);
+        // 바이트코드 향상(association management) 빌드에서는 위 대입이 team.members 쪽도 맞춰 준다.
+        // members가 아직 로딩 안 된 지연 속성이면 건드리지 않으므로 Team.members가 초기화되지 않는다.
+        // 향상 안 된 클래스(IDE에서 바로 실행 등)일 때만 직접 넣는다.
+        if (!(this instanceof PersistentAttributeInterceptable)) {
+            team.getMembers().add(this);
+        }
     }
 }
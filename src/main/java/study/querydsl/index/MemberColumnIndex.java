@@ -0,0 +1,238 @@
+package study.querydsl.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import study.querydsl.bulk.AfterCommit;
+import study.querydsl.bulk.BulkClause;
+import study.querydsl.bulk.BulkWriteListener;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.sql.MemberSqlQueries;
+import study.querydsl.repository.support.Slices;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * member 검색을 DB 대신 메모리 컬럼(MemberColumnStore)에서 답한다.
+ * 기동 시 테이블 전체를 읽어 오고, 이후에는 Hibernate 커밋 이벤트로 따라간다.
+ * 엔티티 이벤트가 없는 쓰기(DeadlineJPAQueryFactory의 Member/Team clause, 기본 JdbcTemplate으로 member/team에 쓴 것)는
+ * 커밋 뒤에 rebuild()로 다시 읽는다. 트랜잭션 하나에서 여러 번 써도 rebuild는 한 번이다.
+ * 문자열 JPQL/native executeUpdate로 바꾼 데이터는 알 수 없으니 rebuild()를 직접 불러야 한다.
+ */
+@Slf4j
+@Repository
+@Lazy(false) // lazy-initialization 이어도 기동 때 Hibernate 리스너를 걸어야 한다.
+@ConditionalOnProperty(prefix = "member-index", name = "enabled", havingValue = "true")
+public class MemberColumnIndex implements MemberRepositoryCustom, BulkWriteListener {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberIndexProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private MemberColumnStore store;
+
+    public MemberColumnIndex(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                             MemberIndexProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+        this.store = new MemberColumnStore(properties.getInitialCapacity());
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        MemberIndexEventListener listener = new MemberIndexEventListener(this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        // 읽는 동안 들어오는 커밋 이벤트가 빠지지 않도록 쓰기 잠금을 잡고 읽는다.
+        lock.writeLock().lock();
+        try {
+            MemberColumnStore loaded = new MemberColumnStore(properties.getInitialCapacity());
+            jdbcTemplate.query("select id, name from team", rs -> {
+                loaded.putTeam(rs.getLong(1), rs.getString(2));
+            });
+            jdbcTemplate.query("select member_id, username, age, team_id from member order by member_id", rs -> {
+                loaded.putMember(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getObject(4, Long.class));
+            });
+            store = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("member index rebuilt: {} members in {} ms", store.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // rebuild가 쓰기 잠금을 잡고 읽으니 그동안 검색은 기다렸다가 새 컬럼을 본다.
+    @Override
+    public void beforeBulkClause(BulkClause clause) {
+        if (clause.targets(Member.class) || clause.targets(Team.class)) {
+            rebuildAfterCommit();
+        }
+    }
+
+    @Override
+    public void afterJdbcWrite(String table) {
+        if ("member".equals(table) || "team".equals(table)) {
+            rebuildAfterCommit();
+        }
+    }
+
+    private void rebuildAfterCommit() {
+        AfterCommit.runOnce(this, this::rebuild);
+    }
+
+    void putTeam(long teamId, String name) {
+        lock.writeLock().lock();
+        try {
+            store.putTeam(teamId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean containsTeam(Long teamId) {
+        lock.readLock().lock();
+        try {
+            return store.containsTeam(teamId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void putMember(long memberId, String username, int age, Long teamId) {
+        lock.writeLock().lock();
+        try {
+            store.putMember(memberId, username, age, teamId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeMember(long memberId) {
+        lock.writeLock().lock();
+        try {
+            store.removeMember(memberId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 커밋 이벤트에서 팀 이름을 모를 때 (지연 로딩 프록시) 한 번 읽어 온다.
+    String loadTeamName(long teamId) {
+        List<String> names = jdbcTemplate.queryForList("select name from team where id = ?", String.class, teamId);
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return scan(condition, 0, Integer.MAX_VALUE, true).content;
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return page(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return page(condition, pageable);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            // 정렬이 있으면 어차피 다 꺼내서 정렬해야 하니 페이지 결과를 그대로 쓴다.
+            Page<MemberTeamDto> page = page(condition, pageable);
+            return new SliceImpl<>(page.getContent(), pageable, page.hasNext());
+        }
+        // 다음 row 하나만 찾으면 스캔을 멈춘다.
+        return Slices.of(scan(condition, pageable.getOffset(), Slices.fetchSize(pageable), false).content, pageable);
+    }
+
+    // 스캔 한 번에 전체 개수도 나오니 count 쿼리가 따로 없다.
+    private Page<MemberTeamDto> page(MemberSearchCondition condition, Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            Result result = scan(condition, pageable.getOffset(), pageable.getPageSize(), true);
+            return new PageImpl<>(result.content, pageable, result.total);
+        }
+
+        // 정렬이 있으면 맞는 row를 다 꺼내서 정렬한다.
+        List<MemberTeamDto> all = search(condition);
+        all.sort(MemberSqlQueries.comparator(pageable.getSort()));
+        int from = (int) Math.min(all.size(), pageable.getOffset());
+        int to = Math.min(all.size(), from + pageable.getPageSize());
+        return new PageImpl<>(new ArrayList<>(all.subList(from, to)), pageable, all.size());
+    }
+
+    private Result scan(MemberSearchCondition condition, long skip, int limit, boolean countAll) {
+        lock.readLock().lock();
+        try {
+            MemberColumnStore.Filter filter = store.filter(
+                    hasText(condition.getUsername()) ? condition.getUsername() : null,
+                    hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+                    condition.getAgeGoe(),
+                    condition.getAgeLoe());
+            MemberColumnStore.Rows rows = new MemberColumnStore.Rows();
+            int total = store.scan(filter, skip, limit, rows, countAll);
+
+            List<MemberTeamDto> content = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                content.add(store.toDto(rows.get(i)));
+            }
+            return new Result(content, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class Result {
+        private final List<MemberTeamDto> content;
+        private final long total;
+
+        private Result(List<MemberTeamDto> content, long total) {
+            this.content = content;
+            this.total = total;
+        }
+    }
+}
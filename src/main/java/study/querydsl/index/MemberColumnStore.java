@@ -0,0 +1,243 @@
+package study.querydsl.index;
+
+import study.querydsl.dto.MemberTeamDto;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * member를 컬럼별 off-heap 배열로 들고 있는 저장소.
+ * id는 long, 나이는 short, username/팀은 사전(dictionary) 코드(int)로 저장하고,
+ * 필터는 이 배열들을 앞에서부터 훑는 단순 루프라 row마다 객체를 만들지 않는다.
+ * 스레드 안전하지 않다. 잠금은 MemberColumnIndex가 한다.
+ */
+public class MemberColumnStore {
+
+    static final int NO_CODE = -1;
+
+    private LongBuffer ids;
+    private ShortBuffer ages;
+    private IntBuffer usernameCodes;
+    private IntBuffer teamCodes;
+    private int capacity;
+    // 지금까지 쓴 row 수. 삭제된 row도 자리는 남는다. (rebuild 때 정리)
+    private int rows;
+    private final BitSet live = new BitSet();
+    private final Map<Long, Integer> rowOf = new HashMap<>();
+
+    private final Map<String, Integer> usernameDictionary = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+
+    private final Map<Long, Integer> teamDictionary = new HashMap<>();
+    private final List<Long> teamIds = new ArrayList<>();
+    private final List<String> teamNames = new ArrayList<>();
+
+    public MemberColumnStore(int initialCapacity) {
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    public int size() {
+        return live.cardinality();
+    }
+
+    public boolean containsTeam(Long teamId) {
+        return teamDictionary.containsKey(teamId);
+    }
+
+    public void putTeam(long teamId, String name) {
+        Integer code = teamDictionary.get(teamId);
+        if (code != null) {
+            teamNames.set(code, name);
+            return;
+        }
+        teamDictionary.put(teamId, teamIds.size());
+        teamIds.add(teamId);
+        teamNames.add(name);
+    }
+
+    // 팀은 putTeam으로 먼저 들어와 있어야 한다. 없으면 팀 이름 없이 넣는다.
+    public void putMember(long memberId, String username, int age, Long teamId) {
+        if (age < Short.MIN_VALUE || age > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("age out of range: " + age);
+        }
+        if (teamId != null && !teamDictionary.containsKey(teamId)) {
+            putTeam(teamId, null);
+        }
+
+        Integer row = rowOf.get(memberId);
+        if (row == null) {
+            if (rows == capacity) {
+                allocate(capacity * 2);
+            }
+            row = rows++;
+            rowOf.put(memberId, row);
+            live.set(row);
+        }
+        ids.put(row, memberId);
+        ages.put(row, (short) age);
+        usernameCodes.put(row, usernameCode(username));
+        teamCodes.put(row, teamId != null ? teamDictionary.get(teamId) : NO_CODE);
+    }
+
+    public void removeMember(long memberId) {
+        Integer row = rowOf.remove(memberId);
+        if (row != null) {
+            live.clear(row);
+        }
+    }
+
+    /**
+     * 조건에 맞는 row를 순서대로 세고, skip 이후 limit 개의 row 번호만 out에 담는다.
+     * 반환값은 조건에 맞는 전체 row 수 (count 쿼리 대신). countAll이 false면 out이 차는 대로 멈춘다.
+     */
+    public int scan(Filter filter, long skip, int limit, Rows out) {
+        return scan(filter, skip, limit, out, true);
+    }
+
+    public int scan(Filter filter, long skip, int limit, Rows out, boolean countAll) {
+        if (filter.isEmpty()) {
+            return 0;
+        }
+        int usernameCode = filter.usernameCode;
+        BitSet teams = filter.teamCodes;
+        int ageGoe = filter.ageGoe;
+        int ageLoe = filter.ageLoe;
+
+        int matched = 0;
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            int age = ages.get(row);
+            if (age < ageGoe || age > ageLoe) {
+                continue;
+            }
+            if (usernameCode != NO_CODE && usernameCodes.get(row) != usernameCode) {
+                continue;
+            }
+            if (teams != null) {
+                int teamCode = teamCodes.get(row);
+                if (teamCode == NO_CODE || !teams.get(teamCode)) {
+                    continue;
+                }
+            }
+            if (matched >= skip && out.size() < limit) {
+                out.add(row);
+            } else if (!countAll && out.size() >= limit) {
+                break;
+            }
+            matched++;
+        }
+        return matched;
+    }
+
+    // 조건 값을 사전 코드로 미리 바꿔 둔다. 사전에 없는 값이면 결과가 없다.
+    public Filter filter(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        Filter filter = new Filter();
+        filter.ageGoe = ageGoe != null ? ageGoe : Integer.MIN_VALUE;
+        filter.ageLoe = ageLoe != null ? ageLoe : Integer.MAX_VALUE;
+        if (username != null) {
+            Integer code = usernameDictionary.get(username);
+            if (code == null) {
+                filter.empty = true;
+            } else {
+                filter.usernameCode = code;
+            }
+        }
+        if (teamName != null) {
+            filter.teamCodes = new BitSet(teamNames.size());
+            for (int code = 0; code < teamNames.size(); code++) {
+                if (teamName.equals(teamNames.get(code))) {
+                    filter.teamCodes.set(code);
+                }
+            }
+            filter.empty |= filter.teamCodes.isEmpty();
+        }
+        return filter;
+    }
+
+    public MemberTeamDto toDto(int row) {
+        int teamCode = teamCodes.get(row);
+        return new MemberTeamDto(
+                ids.get(row),
+                usernameOf(usernameCodes.get(row)),
+                ages.get(row),
+                teamCode != NO_CODE ? teamIds.get(teamCode) : null,
+                teamCode != NO_CODE ? teamNames.get(teamCode) : null);
+    }
+
+    private String usernameOf(int code) {
+        return code != NO_CODE ? usernames.get(code) : null;
+    }
+
+    private int usernameCode(String username) {
+        if (username == null) {
+            return NO_CODE;
+        }
+        Integer code = usernameDictionary.get(username);
+        if (code == null) {
+            code = usernames.size();
+            usernameDictionary.put(username, code);
+            usernames.add(username);
+        }
+        return code;
+    }
+
+    private void allocate(int newCapacity) {
+        LongBuffer newIds = ByteBuffer.allocateDirect(newCapacity * Long.BYTES).asLongBuffer();
+        ShortBuffer newAges = ByteBuffer.allocateDirect(newCapacity * Short.BYTES).asShortBuffer();
+        IntBuffer newUsernameCodes = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES).asIntBuffer();
+        IntBuffer newTeamCodes = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES).asIntBuffer();
+        if (ids != null) {
+            for (int row = 0; row < rows; row++) {
+                newIds.put(row, ids.get(row));
+                newAges.put(row, ages.get(row));
+                newUsernameCodes.put(row, usernameCodes.get(row));
+                newTeamCodes.put(row, teamCodes.get(row));
+            }
+        }
+        ids = newIds;
+        ages = newAges;
+        usernameCodes = newUsernameCodes;
+        teamCodes = newTeamCodes;
+        capacity = newCapacity;
+    }
+
+    public static class Filter {
+        private boolean empty;
+        private int usernameCode = NO_CODE;
+        private BitSet teamCodes;
+        private int ageGoe;
+        private int ageLoe;
+
+        public boolean isEmpty() {
+            return empty;
+        }
+    }
+
+    // 매칭된 row 번호를 모으는 int 배열. row마다 박싱하지 않도록
+    public static class Rows {
+        private int[] rows = new int[64];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int get(int index) {
+            return rows[index];
+        }
+    }
+}
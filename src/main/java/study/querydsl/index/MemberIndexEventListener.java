@@ -0,0 +1,99 @@
+package study.querydsl.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 커밋된 Member/Team 변경을 MemberColumnIndex에 반영한다.
+ * 롤백된 변경은 오지 않는다. 인덱스 반영에 실패해도 이미 커밋된 트랜잭션은 그대로 두고 로그만 남긴다.
+ */
+@Slf4j
+class MemberIndexEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final MemberColumnIndex index;
+
+    MemberIndexEventListener(MemberColumnIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        apply(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        apply(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            index.removeMember((Long) event.getId());
+        }
+    }
+
+    private void apply(Object entity) {
+        try {
+            if (entity instanceof Team) {
+                Team team = (Team) entity;
+                index.putTeam(team.getId(), team.getName());
+            } else if (entity instanceof Member) {
+                Member member = (Member) entity;
+                Long teamId = teamIdOf(member.getTeam());
+                if (teamId != null && !index.containsTeam(teamId)) {
+                    index.putTeam(teamId, teamNameOf(member.getTeam(), teamId));
+                }
+                index.putMember(member.getId(), member.getUsername(), member.getAge(), teamId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("member index update failed, call rebuild(): {}", entity, e);
+        }
+    }
+
+    // 프록시를 초기화하지 않고 id만 꺼낸다.
+    private static Long teamIdOf(Team team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    private String teamNameOf(Team team, Long teamId) {
+        if (team instanceof HibernateProxy && ((HibernateProxy) team).getHibernateLazyInitializer().isUninitialized()) {
+            return index.loadTeamName(teamId);
+        }
+        return team.getName();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+}
@@ -0,0 +1,16 @@
+package study.querydsl.index;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("member-index")
+public class MemberIndexProperties {
+
+    // 켜면 기동 시 member/team 전체를 메모리 컬럼에 올리고 커밋 이벤트로 따라간다.
+    private boolean enabled = false;
+
+    // 처음 잡아 둘 row 수. 넘치면 두 배씩 늘린다.
+    private int initialCapacity = 1024;
+}
@@ -0,0 +1,25 @@
+package study.querydsl.internal;
+
+import org.apache.catalina.connector.Connector;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// 내장 톰캣에 관리용 포트 커넥터를 하나 더 붙인다.
+@Configuration
+public class InternalConnectorConfig {
+
+    @Bean
+    WebServerFactoryCustomizer<TomcatServletWebServerFactory> internalConnector(InternalEndpointProperties properties) {
+        return factory -> {
+            if (properties.getPort() <= 0) {
+                return;
+            }
+            Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
+            connector.setPort(properties.getPort());
+            connector.setProperty("address", properties.getAddress());
+            factory.addAdditionalTomcatConnectors(connector);
+        };
+    }
+}
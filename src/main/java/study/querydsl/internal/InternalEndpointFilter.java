@@ -0,0 +1,41 @@
+package study.querydsl.internal;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * /internal/** 는 관리용 포트로 들어온 요청만 받는다. 느린 쿼리의 바인딩 값(개인정보)과 재계산 트리거가 있어서
+ * 서비스 포트로 들어오면 없는 경로처럼 404. 관리용 포트로는 /internal/** 만 받는다.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class InternalEndpointFilter extends OncePerRequestFilter {
+
+    static final String PREFIX = "/internal/";
+
+    private final InternalEndpointProperties properties;
+
+    public InternalEndpointFilter(InternalEndpointProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean internalPath = request.getRequestURI().substring(request.getContextPath().length()).startsWith(PREFIX);
+        boolean internalPort = properties.getPort() > 0 && request.getLocalPort() == properties.getPort();
+        if (internalPath != internalPort) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.internal;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// /internal/** (느린 쿼리, 동시 실행 제한, username 필터, 팀 집계 재계산)을 받는 관리용 포트
+@Getter @Setter
+@ConfigurationProperties("internal-endpoints")
+public class InternalEndpointProperties {
+
+    // 0 이하면 관리용 포트를 열지 않고 /internal/** 는 어디서도 응답하지 않는다. 기본은 닫아 두고 application.yml에서 연다.
+    // (RANDOM_PORT 테스트, AppCDS 학습 실행처럼 같은 장비에서 여러 개 띄우면 고정 포트가 겹친다)
+    private int port = 0;
+
+    // 관리용 포트를 묶을 주소. 기본은 로컬에서만
+    private String address = "127.0.0.1";
+}
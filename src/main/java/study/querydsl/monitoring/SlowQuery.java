@@ -0,0 +1,39 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+// 느린 쿼리 한 건. row 수와 실행 계획은 나중에 채워진다.
+@Getter
+public class SlowQuery {
+
+    private final Instant executedAt;
+    private final long elapsedMs;
+    // 쿼리를 실행시킨 study.querydsl 코드 (보통 리포지토리 메서드)
+    private final String origin;
+    // use_sql_comments 로 SQL 앞에 붙은 JPQL (querydsl이 만든 것)
+    private final String jpql;
+    private final String sql;
+    // 바인딩 값이 들어간 SQL
+    private final String sqlWithValues;
+    private volatile long rows = -1;
+    private volatile String plan;
+
+    public SlowQuery(Instant executedAt, long elapsedMs, String origin, String jpql, String sql, String sqlWithValues) {
+        this.executedAt = executedAt;
+        this.elapsedMs = elapsedMs;
+        this.origin = origin;
+        this.jpql = jpql;
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+    }
+
+    void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// 내부용. 관리용 포트(internal-endpoints.port)로만 받는다.
+@RestController
+@RequiredArgsConstructor
+public class SlowQueryController {
+
+    private final SlowQueryRecorder slowQueryRecorder;
+
+    // http://localhost:8081/internal/slow-queries?limit=20
+    @GetMapping("/internal/slow-queries")
+    public List<SlowQuery> slowQueries(@RequestParam(defaultValue = "50") int limit) {
+        return slowQueryRecorder.getSlowQueryLog().recent(limit);
+    }
+
+    @DeleteMapping("/internal/slow-queries")
+    public void clear() {
+        slowQueryRecorder.getSlowQueryLog().clear();
+    }
+}
@@ -0,0 +1,46 @@
+package study.querydsl.monitoring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// 고정 크기 링 버퍼. 쓰기는 lock 없이 슬롯만 덮어쓴다.
+public class SlowQueryLog {
+
+    private final AtomicReferenceArray<SlowQuery> slots;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowQueryLog(int capacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    public void add(SlowQuery slowQuery) {
+        long index = sequence.getAndIncrement();
+        slots.set((int) (index % slots.length()), slowQuery);
+    }
+
+    // 최신 순
+    public List<SlowQuery> recent(int limit) {
+        long last = sequence.get();
+        int count = (int) Math.min(Math.min(limit, slots.length()), last);
+        List<SlowQuery> result = new ArrayList<>(count);
+        for (long i = last - 1; i >= last - count; i--) {
+            SlowQuery slowQuery = slots.get((int) (i % slots.length()));
+            if (slowQuery != null) {
+                result.add(slowQuery);
+            }
+        }
+        return result;
+    }
+
+    public long getTotalRecorded() {
+        return sequence.get();
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+}
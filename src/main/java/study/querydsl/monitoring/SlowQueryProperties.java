@@ -0,0 +1,22 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("slow-query")
+public class SlowQueryProperties {
+
+    private boolean enabled = true;
+
+    // 이 시간 이상 걸린 statement만 기록한다.
+    private long thresholdMs = 200;
+
+    // 링 버퍼 크기. 넘치면 오래된 것부터 덮어쓴다.
+    private int capacity = 200;
+
+    // 켜면 느린 select마다 H2 EXPLAIN(실행하지 않고 계획만)을 따로 돌려서 실행 계획을 남긴다.
+    // EXPLAIN ANALYZE는 느린 쿼리를 한 번 더 실행하니 쓰지 않는다.
+    private boolean explain = false;
+}
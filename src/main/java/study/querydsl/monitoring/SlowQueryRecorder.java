@@ -0,0 +1,218 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p6spy 리스너. threshold 이상 걸린 statement를 SlowQueryLog에 남긴다.
+ * p6spy 로그에는 펼쳐진 SQL만 남으니, 어느 리포지토리 메서드에서 나왔는지, 원래 JPQL, 읽은 row 수, 실행 계획을 같이 남긴다.
+ */
+@Slf4j
+@Component
+public class SlowQueryRecorder extends SimpleJdbcEventListener {
+
+    private static final String ORIGIN_PACKAGE = "study.querydsl.";
+    private static final String MONITORING_PACKAGE = "study.querydsl.monitoring.";
+
+    private final SlowQueryProperties properties;
+    // DataSource 데코레이터가 이 리스너를 필요로 하니 JdbcTemplate은 나중에 꺼내 쓴다. (순환 참조 방지)
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final SlowQueryLog slowQueryLog;
+
+    // 실행 계획은 요청 스레드를 붙잡지 않도록 따로 돌린다. 밀리면 버린다.
+    private final ExecutorService explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(16), new ThreadPoolExecutor.DiscardPolicy());
+
+    // EXPLAIN 자체가 다시 기록되지 않도록
+    private final ThreadLocal<Boolean> explaining = ThreadLocal.withInitial(() -> false);
+    // row 수를 세는 중인 느린 쿼리
+    private final ThreadLocal<RowCounting> counting = new ThreadLocal<>();
+    // 지금 스레드에서 준비 중인 PreparedStatement의 바인딩 값
+    private final ThreadLocal<Bindings> bindings = new ThreadLocal<>();
+
+    public SlowQueryRecorder(SlowQueryProperties properties, ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.slowQueryLog = new SlowQueryLog(properties.getCapacity());
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex, Object value, SQLException e) {
+        if (!properties.isEnabled() || explaining.get()) {
+            return;
+        }
+        Bindings current = bindings.get();
+        if (current == null || current.statement != statementInformation) {
+            current = new Bindings(statementInformation);
+            bindings.set(current);
+        }
+        current.values.put(parameterIndex, value);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        counting.remove();
+        Bindings current = bindings.get();
+        bindings.remove();
+        if (!properties.isEnabled() || explaining.get()) {
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos);
+        if (elapsedMs < properties.getThresholdMs()) {
+            return;
+        }
+
+        // p6spy의 getSqlWithValues는 JPQL 주석 안의 ?1 까지 자리로 세서 값이 밀리니, 주석을 뗀 SQL에 직접 채운다.
+        String sql = stripLeadingComment(statementInformation.getSql());
+        Map<Integer, Object> values = current != null && current.statement == statementInformation
+                ? current.values : new TreeMap<>();
+        SlowQuery slowQuery = new SlowQuery(Instant.now(), elapsedMs, origin(), leadingComment(statementInformation.getSql()),
+                sql, withValues(sql, values));
+        slowQueryLog.add(slowQuery);
+
+        if (isSelect(slowQuery.getSql())) {
+            counting.set(new RowCounting(slowQuery));
+            if (properties.isExplain()) {
+                explainExecutor.execute(() -> explain(slowQuery));
+            }
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        RowCounting rowCounting = counting.get();
+        if (rowCounting != null && hasNext) {
+            rowCounting.rows++;
+        }
+    }
+
+    @Override
+    public void onAfterResultSetClose(ResultSetInformation resultSetInformation, SQLException e) {
+        RowCounting rowCounting = counting.get();
+        if (rowCounting != null) {
+            rowCounting.slowQuery.setRows(rowCounting.rows);
+            counting.remove();
+        }
+    }
+
+    private void explain(SlowQuery slowQuery) {
+        explaining.set(true);
+        try {
+            String plan = jdbcTemplate.getObject().queryForObject("explain " + slowQuery.getSqlWithValues(), String.class);
+            slowQuery.setPlan(plan);
+        } catch (RuntimeException ex) {
+            log.debug("explain failed: {}", slowQuery.getSql(), ex);
+            slowQuery.setPlan("explain failed: " + ex.getMessage());
+        } finally {
+            explaining.set(false);
+        }
+    }
+
+    // 스택에서 처음 나오는 우리 코드 (monitoring 제외)
+    private static String origin() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(ORIGIN_PACKAGE)
+                        && !frame.getClassName().startsWith(MONITORING_PACKAGE))
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+                .findFirst()
+                .orElse(null));
+    }
+
+    // 문자열 리터럴 밖의 ? 를 순서대로 바인딩 값으로 바꾼다.
+    static String withValues(String sql, Map<Integer, Object> values) {
+        if (sql == null) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(sql.length() + values.size() * 8);
+        boolean inLiteral = false;
+        int index = 1;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                inLiteral = !inLiteral;
+            }
+            if (c == '?' && !inLiteral) {
+                result.append(values.containsKey(index) ? literal(values.get(index)) : "?");
+                index++;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+
+    private static String leadingComment(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String trimmed = sql.trim();
+        int end = trimmed.indexOf("*/");
+        return trimmed.startsWith("/*") && end > 0 ? trimmed.substring(2, end).trim() : null;
+    }
+
+    private static String stripLeadingComment(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        String trimmed = sql.trim();
+        int end = trimmed.indexOf("*/");
+        return trimmed.startsWith("/*") && end > 0 ? trimmed.substring(end + 2).trim() : trimmed;
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql != null && sql.regionMatches(true, 0, "select", 0, 6);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    private static class Bindings {
+        private final PreparedStatementInformation statement;
+        private final Map<Integer, Object> values = new TreeMap<>();
+
+        private Bindings(PreparedStatementInformation statement) {
+            this.statement = statement;
+        }
+    }
+
+    private static class RowCounting {
+        private final SlowQuery slowQuery;
+        private long rows;
+
+        private RowCounting(SlowQuery slowQuery) {
+            this.slowQuery = slowQuery;
+        }
+    }
+}
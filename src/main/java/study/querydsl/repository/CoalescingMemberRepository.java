@@ -0,0 +1,74 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.deadline.QueryDeadline;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.SingleFlight;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * MemberRepositoryCustom 앞에서 같은 조건(+ Pageable)으로 동시에 들어온 검색을 한 번만 실행한다.
+ * 피크 때 같은 /v3/members?teamName=teamA&page=0 이 한꺼번에 들어오면 content, count 쿼리가 한 번씩만 나간다.
+ * 쓰기 트랜잭션 안에서는 커밋 안 된 데이터가 섞이지 않도록 묶지 않는다.
+ */
+@Repository
+public class CoalescingMemberRepository implements MemberRepositoryCustom {
+
+    private final MemberRepository memberRepository;
+    private final MemberSearchProperties.Coalescing properties;
+    private final SingleFlight<List<Object>, Object> singleFlight = new SingleFlight<>();
+
+    public CoalescingMemberRepository(MemberRepository memberRepository, MemberSearchProperties searchProperties) {
+        this.memberRepository = memberRepository;
+        this.properties = searchProperties.getCoalescing();
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return coalesce("search", condition, null, () -> memberRepository.search(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce("searchPageSimple", condition, pageable, () -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce("searchPageComplex", condition, pageable, () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce("searchSlice", condition, pageable, () -> memberRepository.searchSlice(condition, pageable));
+    }
+
+    SingleFlight<List<Object>, Object> getSingleFlight() {
+        return singleFlight;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(String method, MemberSearchCondition condition, Pageable pageable, Supplier<T> search) {
+        if (!properties.isEnabled()
+                || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return search.get();
+        }
+        // condition은 바뀔 수 있는 객체라 값만 꺼내서 key로 쓴다.
+        List<Object> key = Arrays.asList(method, condition.getUsername(), condition.getTeamName(),
+                condition.getAgeGoe(), condition.getAgeLoe(), pageable);
+        // 요청 마감이 더 빠르면 그때까지만 기다린다. leader가 바뀌어 다시 기다려도 이 시각을 넘기지 않는다.
+        long maxWaitMs = Math.min(properties.getMaxWaitMs(), QueryDeadline.remainingMillis());
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        return (T) singleFlight.executeUntil(key, deadlineNanos, (Supplier<Object>) search);
+    }
+}
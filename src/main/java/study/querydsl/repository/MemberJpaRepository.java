@@ -5,6 +5,7 @@ import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 import study.querydsl.dto.MemberSearchCondition;
@@ -13,8 +14,13 @@ import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.filter.UsernameFilter;
+import study.querydsl.repository.loader.MemberBatchLoader;
+import study.querydsl.repository.support.BatchLookup;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +34,9 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final BatchLookup batchLookup;
+    private final MemberBatchLoader memberLoader;
+    private final UsernameFilter usernameFilter;
 
 //    public MemberJpaRepository(EntityManager em) {
 //        this.em = em;
@@ -51,6 +60,36 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    // 엔티티가 필요 없는 조회용. 트랜잭션 밖에서 동시에 들어온 호출은 모아서 id in (...) 한 번으로 읽는다. (MemberBatchLoader)
+    // 호출자마다 새 DTO를 준다.
+    public Optional<MemberTeamDto> loadBatched(Long id) {
+        return memberLoader.load(id);
+    }
+
+    // id 목록으로 한 번에 조회. IN 절은 크기 제한이 있는 조각으로 나뉘고, 결과는 요청한 id 순서대로 온다. (BatchLookup)
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return findAllByIds(ids, false);
+    }
+
+    // parallel이면 조각마다 다른 커넥션에서 동시에 읽는다. 쓰기 트랜잭션 안에서는 순서대로 읽는다.
+    public List<Member> findAllByIds(Collection<Long> ids, boolean parallel) {
+        return batchLookup.findAll(ids, chunk -> queryFactory
+                .selectFrom(member)
+                .where(member.id.in(chunk))
+                .fetch(), Member::getId, parallel);
+    }
+
+    public List<Team> findAllTeamsByIds(Collection<Long> ids) {
+        return findAllTeamsByIds(ids, false);
+    }
+
+    public List<Team> findAllTeamsByIds(Collection<Long> ids, boolean parallel) {
+        return batchLookup.findAll(ids, chunk -> queryFactory
+                .selectFrom(team)
+                .where(team.id.in(chunk))
+                .fetch(), Team::getId, parallel);
+    }
+
     public List<Member> findAll() {
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
@@ -68,11 +107,12 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    // 없는 username이면 Bloom filter에서 걸러져 DB에 가지 않는다. (UsernameFilter)
     public List<Member> findByUsername_Querydsl(String username) {
-        return queryFactory
+        return usernameFilter.lookup(username, () -> queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
-                .fetch();
+                .fetch());
     }
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
@@ -143,6 +183,21 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    // 조회 전용. read-only 힌트로 스냅샷을 만들지 않아 대량 조회 시 메모리와 flush 비용을 줄인다.
+    public List<Member> searchMemberReadOnly(MemberSearchCondition condition) {
+        return queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(QueryHints.READ_ONLY, true)
+                .fetch();
+    }
+
     private BooleanExpression ageBetween(int ageLoe, int ageGoe) {
         return ageLoe(ageLoe).and(ageGoe(ageGoe));
     }
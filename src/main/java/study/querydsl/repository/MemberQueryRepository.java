@@ -1,19 +1,12 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.catalog.MemberNamedQueries;
 
-import javax.persistence.EntityManager;
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
-import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
-
 // 복잡하고 특화된 기능이라면 이렇게 따로 만들어서 injection하면 된다.
 // 특정 api에 종속되어있다면 이렇게 별도로 조회용 리포지토리를 만드는 것도 좋다.
 // 기본은 커스텀을 쓰는게 맞다.
@@ -21,45 +14,15 @@ import static study.querydsl.entity.QTeam.team;
 @Repository
 public class MemberQueryRepository {
 
-    private final JPAQueryFactory queryFactory;
+    // MemberRepositoryImpl.search 와 같은 쿼리. querydsl로 만든 JPQL을 빌드 때 카탈로그로 뽑아 named query로 쓴다.
+    private final MemberNamedQueries namedQueries;
 
-    public MemberQueryRepository(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    public MemberQueryRepository(MemberNamedQueries namedQueries) {
+        this.namedQueries = namedQueries;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+        return namedQueries.content(condition);
     }
 
 }
@@ -5,11 +5,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import study.querydsl.entity.Member;
 
-import java.util.List;
-
 // custom repository 상속
-public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, QuerydslPredicateExecutor<Member> {
-    // select m from Member m where m.username = ?
-    List<Member> findByUsername(String username);
+// findByUsername은 메서드 이름 쿼리 대신 MemberUsernameRepositoryImpl이 실행한다. (Bloom filter로 없는 username 걸러내기)
+public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom, MemberUsernameRepository,
+        QuerydslPredicateExecutor<Member> {
 
 }
@@ -1,36 +1,45 @@
 package study.querydsl.repository;
 
-import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
-import com.querydsl.jpa.JPQLQuery;
-import com.querydsl.jpa.impl.JPAQuery;
-import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
-import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.index.MemberColumnIndex;
+import study.querydsl.repository.catalog.MemberNamedQueries;
+import study.querydsl.repository.sql.MemberSqlRepository;
+import study.querydsl.repository.support.Slices;
+import study.querydsl.repository.sql.ParallelMemberSqlRepository;
+import study.querydsl.shard.ShardedMemberRepository;
 
-import javax.persistence.EntityManager;
 import java.util.List;
-
-import static org.springframework.util.StringUtils.hasText;
-import static study.querydsl.entity.QMember.member;
-import static study.querydsl.entity.QTeam.team;
+import java.util.Optional;
 
 // 꼭 원하는 인터페이스 ~~ Impl이라는 이름으로 작성해야한다.
 //public class MemberRepositoryImpl extends QuerydslRepositorySupport implements MemberRepositoryCustom {
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
-    // QuerydslRepositorySupport를 쓰면 이걸 안 쓰고 super를 씀
-    private final JPAQueryFactory queryFactory;
-
-    public MemberRepositoryImpl(EntityManager em) {
-        this.queryFactory = new JPAQueryFactory(em);
+    // 검색 JPQL은 빌드 때 만든 카탈로그에서 named query로 등록해 둔 것을 쓴다. (MemberJpqlQueries)
+    private final MemberNamedQueries namedQueries;
+    private final MemberSearchProperties searchProperties;
+    private final MemberSqlRepository sqlRepository;
+    private final ParallelMemberSqlRepository parallelRepository;
+    // 샤딩, 메모리 인덱스는 설정으로 켰을 때만 빈이 있다.
+    private final ObjectProvider<ShardedMemberRepository> shardedRepository;
+    private final ObjectProvider<MemberColumnIndex> columnIndex;
+
+    public MemberRepositoryImpl(MemberNamedQueries namedQueries, MemberSearchProperties searchProperties, MemberSqlRepository sqlRepository,
+                                ParallelMemberSqlRepository parallelRepository, ObjectProvider<ShardedMemberRepository> shardedRepository,
+                                ObjectProvider<MemberColumnIndex> columnIndex) {
+        this.namedQueries = namedQueries;
+        this.searchProperties = searchProperties;
+        this.sqlRepository = sqlRepository;
+        this.parallelRepository = parallelRepository;
+        this.shardedRepository = shardedRepository;
+        this.columnIndex = columnIndex;
     }
 
     // 부모가 제공하는 기능이 몇 개 있다.
@@ -101,50 +110,52 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        Optional<MemberRepositoryCustom> delegate = delegateFor("search");
+        if (delegate.isPresent()) {
+            return delegate.get().search(condition);
+        }
+
+        // 조건 조합(shape)별로 미리 등록한 named query. 파라미터만 바인딩해서 실행한다.
+        // 결과가 클 수 있으니 팀 이름은 종류별로 한 인스턴스만 남긴다.
+        return namedQueries.content(condition);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                // pageable에서 받아서 offset과 limit 설정
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();// 컨텐츠용쿼리, 카운터용 쿼리 두 개 날린다.
-
-        List<MemberTeamDto> content = results.getResults();
-        long total = results.getTotal(); // count
+        Optional<MemberRepositoryCustom> delegate = delegateFor("searchPageSimple");
+        if (delegate.isPresent()) {
+            return delegate.get().searchPageSimple(condition, pageable);
+        }
+
+        // querydsl로 직접 짜면 이렇게 된다. 지금은 같은 JPQL을 named query로 등록해서 쓴다. (MemberNamedQueries)
+//        QueryResults<MemberTeamDto> results = queryFactory
+//                .select(new QMemberTeamDto(
+//                        member.id.as("memberId"),
+//                        member.username,
+//                        member.age,
+//                        team.id.as("teamId"),
+//                        team.name.as("teamName")
+//                ))
+//                .from(member)
+//                .leftJoin(member.team, team)
+//                .where(
+//                        usernameEq(condition.getUsername()),
+//                        teamNameEq(condition.getTeamName()),
+//                        ageGoe(condition.getAgeGoe()),
+//                        ageLoe(condition.getAgeLoe())
+//                )
+//                // pageable에서 받아서 offset과 limit 설정
+//                .offset(pageable.getOffset())
+//                .limit(pageable.getPageSize())
+//                .fetchResults();// 컨텐츠용쿼리, 카운터용 쿼리 두 개 날린다.
+//
+//        List<MemberTeamDto> content = results.getResults();
+//        long total = results.getTotal(); // count
+
+        // pageable에서 받아서 offset과 limit 설정
+        List<MemberTeamDto> content = namedQueries.content(condition, pageable.getOffset(), pageable.getPageSize());
+        // count는 항상 따로 한 번 더 날린다. fetchResults처럼 컨텐츠 쿼리를 감싼 count가 아니라 필요 없는 join을 뺀 count
+        long total = namedQueries.count(condition);
 
         // pageImpl 은 페이지의 구현체이다.
         return new PageImpl<>(content, pageable, total);
@@ -152,26 +163,13 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                // pageable에서 받아서 offset과 limit 설정
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch(); // 이러면 count용 쿼리는 날라가지 않는다.
+        Optional<MemberRepositoryCustom> delegate = delegateFor("searchPageComplex");
+        if (delegate.isPresent()) {
+            return delegate.get().searchPageComplex(condition, pageable);
+        }
+
+        // pageable에서 받아서 offset과 limit 설정. fetch()라 count용 쿼리는 날라가지 않는다.
+        List<MemberTeamDto> content = namedQueries.content(condition, pageable.getOffset(), pageable.getPageSize());
 
         // count용 쿼리를 따로 만든다.
         // join이 필요 없을 때 좋다.
@@ -192,43 +190,51 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
 //        return new PageImpl<>(content, pageable, total);
 
-
         // count 쿼리는 생략 가능한 경우가 있다.
         // 1. 페이지 시작이면서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때
         // 2. 마지막 페이지 일 때
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
-
-
-        // .fetchCount를 해야 카운트 쿼리가 날라간다.
+        // count 쿼리는 컨텐츠 쿼리에서 만든 것(CountQueries). order by, offset/limit은 빠지고
+        // teamName 조건이 없으면 쓰이지 않는 team left join도 빠진다.
+        // querydsl로 직접 짜면 JPAQuery<Long> countQuery = CountQueries.countOf(queryFactory, contentQuery);
+        // .fetchOne을 해야 카운트 쿼리가 날라간다.
         // 1, 2 번의 경우에는 count 쿼리를 따로 실행하지 않는다. 그래서 최적화가 된다.
 //        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
-
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
+//        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+        return PageableExecutionUtils.getPage(content, pageable, () -> namedQueries.count(condition));
     }
 
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        Optional<MemberRepositoryCustom> delegate = delegateFor("searchSlice");
+        if (delegate.isPresent()) {
+            return delegate.get().searchSlice(condition, pageable);
+        }
+
+        // 한 개 더 가져와서 다음 페이지가 있는지 본다. count 쿼리는 없다.
+        List<MemberTeamDto> content = namedQueries.content(condition, pageable.getOffset(), Slices.fetchSize(pageable));
+        return Slices.of(content, pageable);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    // 설정(member.search.engine.<메서드명>)에 따라 JPA 대신 실행할 구현. 비어 있으면 아래 JPA 쿼리를 그대로 쓴다.
+    private Optional<MemberRepositoryCustom> delegateFor(String method) {
+        switch (searchProperties.engineFor(method)) {
+            case SQL:
+                return Optional.of(sqlRepository);
+            case PARALLEL:
+                return Optional.of(parallelRepository);
+            case SHARDED:
+                ShardedMemberRepository sharded = shardedRepository.getIfAvailable(() -> {
+                    throw new IllegalStateException("member.search.engine." + method + "=SHARDED requires sharding.enabled=true");
+                });
+                // 샤드를 다시 채우는 동안은 기본 DB에서 읽는다.
+                return sharded.isBackfilling() ? Optional.empty() : Optional.of(sharded);
+            case INDEX:
+                return Optional.of(columnIndex.getIfAvailable(() -> {
+                    throw new IllegalStateException("member.search.engine." + method + "=INDEX requires member-index.enabled=true");
+                }));
+            default:
+                return Optional.empty();
+        }
     }
 
 }
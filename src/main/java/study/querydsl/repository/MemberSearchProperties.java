@@ -0,0 +1,35 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// 메서드별로 검색 엔진을 고른다.
+// member.search.engine.search: sql
+// member.search.engine.searchPageComplex: sql
+@Getter @Setter
+@ConfigurationProperties("member.search")
+public class MemberSearchProperties {
+
+    // key: MemberRepositoryCustom 메서드 이름
+    private Map<String, SearchEngine> engine = new HashMap<>();
+
+    // 같은 검색을 동시에 한 번만 실행 (CoalescingMemberRepository)
+    private Coalescing coalescing = new Coalescing();
+
+    public SearchEngine engineFor(String method) {
+        return engine.getOrDefault(method, SearchEngine.JPA);
+    }
+
+    @Getter @Setter
+    public static class Coalescing {
+
+        private boolean enabled = true;
+
+        // 먼저 실행 중인 검색을 이 시간까지만 기다리고, 넘으면 직접 실행한다.
+        private long maxWaitMs = 2000;
+    }
+}
@@ -4,6 +4,7 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydsl.dto.MemberSearchCondition;
@@ -12,6 +13,7 @@ import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
+import java.util.Collection;
 import java.util.List;
 
 import static org.springframework.util.StringUtils.hasText;
@@ -65,23 +67,61 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
         );
     }
 
-    // 컨텐츠 쿼리와 카운트 쿼리를 이렇게 한 방에 날릴 수 있도록 커스텀
-    public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
-        // 만든 것.
-        return applyPagination(pageable,
+    // count 없이 다음 페이지 유무만
+    public Slice<Member> applySlicing(MemberSearchCondition condition, Pageable pageable) {
+        return applySlicing(pageable, query -> query
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+        );
+    }
 
-                contentQuery -> contentQuery
+    // 조회 전용. 스냅샷 없이 read-only 엔티티로 가져온다.
+    public Page<Member> applyPaginationReadOnly(MemberSearchCondition condition, Pageable pageable) {
+        return applyPaginationReadOnly(pageable, query -> query
                 .selectFrom(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())),
+                        ageLoe(condition.getAgeLoe())
+                )
+        );
+    }
 
-                countQuery -> countQuery
-                .select(member.id)
+    // 영속성 컨텍스트를 아예 거치지 않는 대량 조회. team은 fetch join으로 같이 가져온다.
+    public List<Member> searchStateless(MemberSearchCondition condition) {
+        return fetchStateless(query -> query
+                .select(member)
                 .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+        );
+    }
+
+    public List<Member> findAllByIds(Collection<Long> ids, boolean parallel) {
+        return findAllByIds(member, member.id, ids, parallel);
+    }
+
+    // 컨텐츠 쿼리와 카운트 쿼리를 이렇게 한 방에 날릴 수 있도록 커스텀
+    // 카운트 쿼리는 이제 손으로 따로 쓰지 않고 컨텐츠 쿼리에서 만든다. teamName 조건이 없으면 team join도 빠진다.
+    public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
+        // 만든 것.
+        return applyPagination(pageable,
+
+                contentQuery -> contentQuery
+                .selectFrom(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()),
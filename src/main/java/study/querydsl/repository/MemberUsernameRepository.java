@@ -0,0 +1,11 @@
+package study.querydsl.repository;
+
+import study.querydsl.entity.Member;
+
+import java.util.List;
+
+public interface MemberUsernameRepository {
+
+    // select m from Member m where m.username = ?
+    List<Member> findByUsername(String username);
+}
@@ -0,0 +1,30 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.filter.UsernameFilter;
+
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+
+// MemberRepository.findByUsername. 메서드 이름 쿼리와 같은 조회를 UsernameFilter 뒤에서 실행한다.
+public class MemberUsernameRepositoryImpl implements MemberUsernameRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final UsernameFilter usernameFilter;
+
+    public MemberUsernameRepositoryImpl(JPAQueryFactory queryFactory, UsernameFilter usernameFilter) {
+        this.queryFactory = queryFactory;
+        this.usernameFilter = usernameFilter;
+    }
+
+    @Override
+    public List<Member> findByUsername(String username) {
+        return usernameFilter.lookup(username, () -> queryFactory
+                .selectFrom(member)
+                // 메서드 이름 쿼리처럼 null이면 is null
+                .where(username != null ? member.username.eq(username) : member.username.isNull())
+                .fetch());
+    }
+}
@@ -0,0 +1,15 @@
+package study.querydsl.repository;
+
+// MemberRepositoryCustom 메서드를 어떤 구현으로 실행할지
+public enum SearchEngine {
+    // JPQL -> HQL -> SQL (기본)
+    JPA,
+    // querydsl-sql + JdbcTemplate 로 SQL 직접 실행
+    SQL,
+    // SQL과 같지만 큰 search는 member_id 구간으로 나눠 병렬로 읽는다.
+    PARALLEL,
+    // team_id 해시로 나눈 샤드에 scatter-gather (sharding.enabled=true 필요)
+    SHARDED,
+    // 메모리 컬럼 인덱스에서 바로 답한다 (member-index.enabled=true 필요)
+    INDEX
+}
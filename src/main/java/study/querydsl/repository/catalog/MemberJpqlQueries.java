@@ -0,0 +1,67 @@
+package study.querydsl.repository.catalog;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import study.querydsl.repository.support.CountQueries;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.sql.MemberSqlQueries.AGE_GOE;
+import static study.querydsl.repository.sql.MemberSqlQueries.AGE_LOE;
+import static study.querydsl.repository.sql.MemberSqlQueries.TEAM_NAME;
+import static study.querydsl.repository.sql.MemberSqlQueries.USERNAME;
+
+/**
+ * MemberRepositoryImpl / MemberQueryRepository 검색의 JPQL을 shape별로 만든다. (MemberSqlQueries의 JPQL 판)
+ * 파라미터는 ?1 부터 username, teamName, ageGoe, ageLoe 중 있는 것만 순서대로. MemberSqlQueries.bindings 와 같다.
+ * select는 member id, username, age, team id, team name 순.
+ */
+public class MemberJpqlQueries {
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    // 직렬화만 하므로 EntityManager는 없다.
+    private final JPAQueryFactory queryFactory = new JPAQueryFactory(HQLTemplates.DEFAULT, () -> null);
+    private final QueryCatalog catalog;
+
+    public MemberJpqlQueries(QueryCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public String content(int shape) {
+        return catalog.get(QueryCatalog.key("jpql", "content", shape), () -> contentQuery(shape).toString());
+    }
+
+    // 컨텐츠 쿼리에서 만든 count. teamName 조건이 없으면 team join이 빠진다.
+    public String count(int shape) {
+        return catalog.get(QueryCatalog.key("jpql", "count", shape),
+                () -> CountQueries.countOf(queryFactory, contentQuery(shape)).toString());
+    }
+
+    private JPAQuery<?> contentQuery(int shape) {
+        return queryFactory
+                .select(member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(where(shape));
+    }
+
+    private BooleanExpression[] where(int shape) {
+        return new BooleanExpression[]{
+                (shape & USERNAME) != 0 ? member.username.eq(USERNAME_PARAM) : null,
+                (shape & TEAM_NAME) != 0 ? team.name.eq(TEAM_NAME_PARAM) : null,
+                (shape & AGE_GOE) != 0 ? member.age.goe(AGE_GOE_PARAM) : null,
+                (shape & AGE_LOE) != 0 ? member.age.loe(AGE_LOE_PARAM) : null
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package study.querydsl.repository.catalog;
+
+import org.springframework.stereotype.Component;
+import study.querydsl.deadline.DeadlineJPAQuery;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.support.DeduplicatingProjection;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.List;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.sql.MemberSqlQueries.SHAPE_COUNT;
+import static study.querydsl.repository.sql.MemberSqlQueries.bindings;
+import static study.querydsl.repository.sql.MemberSqlQueries.shapeOf;
+
+/**
+ * member 검색 JPQL을 기동할 때 shape별 named query로 등록해 두고, 요청 때는 파라미터만 바인딩해서 실행한다.
+ * 요청마다 querydsl 직렬화도, HQL 파싱도 하지 않는다. JPQL은 QueryCatalog(빌드 때 생성)에서 읽는다.
+ */
+@Component
+public class MemberNamedQueries {
+
+    private static final String CONTENT = "Member.search.content.";
+    private static final String COUNT = "Member.search.count.";
+
+    // content JPQL의 select 순서와 같다. (MemberJpqlQueries)
+    private static final QMemberTeamDto ROW = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final EntityManager em;
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberJpqlQueries queries = new MemberJpqlQueries(QueryCatalog.classpath());
+
+    public MemberNamedQueries(EntityManager em, EntityManagerFactory entityManagerFactory) {
+        this.em = em;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // 등록할 때 한 번 파싱하고, 잘못된 JPQL이면 기동이 실패한다.
+    @PostConstruct
+    public void register() {
+        EntityManager registering = entityManagerFactory.createEntityManager();
+        try {
+            for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+                entityManagerFactory.addNamedQuery(CONTENT + shape, registering.createQuery(queries.content(shape)));
+                entityManagerFactory.addNamedQuery(COUNT + shape, registering.createQuery(queries.count(shape)));
+            }
+        } finally {
+            registering.close();
+        }
+    }
+
+    public List<MemberTeamDto> content(MemberSearchCondition condition) {
+        return toDtos(bind(CONTENT, condition).getResultList());
+    }
+
+    public List<MemberTeamDto> content(MemberSearchCondition condition, long offset, int limit) {
+        return toDtos(bind(CONTENT, condition)
+                .setFirstResult((int) offset)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    public long count(MemberSearchCondition condition) {
+        return (Long) bind(COUNT, condition).getSingleResult();
+    }
+
+    private Query bind(String prefix, MemberSearchCondition condition) {
+        Query query = DeadlineJPAQuery.withDeadline(em.createNamedQuery(prefix + shapeOf(condition)));
+        List<Object> args = bindings(condition);
+        for (int i = 0; i < args.size(); i++) {
+            query.setParameter(i + 1, args.get(i));
+        }
+        return query;
+    }
+
+    // 결과가 클 수 있으니 팀 이름은 종류별로 한 인스턴스만 남긴다.
+    private static List<MemberTeamDto> toDtos(List<?> rows) {
+        DeduplicatingProjection<MemberTeamDto> projection = DeduplicatingProjection.of(ROW, team.name);
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            result.add(projection.newInstance((Object[]) row));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+package study.querydsl.repository.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * 빌드 때(generateQueryCatalog) 미리 직렬화해 둔 검색 shape별 JPQL/SQL.
+ * 키는 종류.이름.shape (jpql.content.5, sql.count.3 ...).
+ * 카탈로그가 없거나 키가 없으면 호출한 쪽이 넘긴 serializer로 그 자리에서 만든다. (IDE 실행, 카탈로그 없는 빌드)
+ */
+@Slf4j
+public final class QueryCatalog {
+
+    public static final String RESOURCE = "META-INF/query-catalog.properties";
+
+    public static final QueryCatalog EMPTY = new QueryCatalog(Collections.emptyMap());
+
+    private static volatile QueryCatalog classpath;
+
+    private final Map<String, String> queries;
+
+    QueryCatalog(Map<String, String> queries) {
+        this.queries = queries;
+    }
+
+    // 클래스패스의 카탈로그. 한 번만 읽는다.
+    public static QueryCatalog classpath() {
+        QueryCatalog catalog = classpath;
+        if (catalog == null) {
+            synchronized (QueryCatalog.class) {
+                if (classpath == null) {
+                    classpath = load(QueryCatalog.class.getClassLoader());
+                }
+                catalog = classpath;
+            }
+        }
+        return catalog;
+    }
+
+    static QueryCatalog load(ClassLoader classLoader) {
+        try (InputStream in = classLoader.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                log.info("{} not found, queries are serialized at runtime", RESOURCE);
+                return EMPTY;
+            }
+            QueryCatalog catalog = read(in);
+            log.info("query catalog loaded: {} queries", catalog.size());
+            return catalog;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static QueryCatalog read(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, String> queries = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            queries.put(key, properties.getProperty(key));
+        }
+        return new QueryCatalog(queries);
+    }
+
+    public static String key(String kind, String name, int shape) {
+        return kind + "." + name + "." + shape;
+    }
+
+    public String get(String key, Supplier<String> serializer) {
+        String query = queries.get(key);
+        return query != null ? query : serializer.get();
+    }
+
+    public int size() {
+        return queries.size();
+    }
+}
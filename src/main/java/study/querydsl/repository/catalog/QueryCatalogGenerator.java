@@ -0,0 +1,66 @@
+package study.querydsl.repository.catalog;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import study.querydsl.repository.sql.MemberSqlQueries;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static study.querydsl.repository.sql.MemberSqlQueries.SHAPE_COUNT;
+
+/**
+ * 빌드 때 QueryCatalog 파일을 만든다. (./gradlew generateQueryCatalog, classes 가 의존)
+ * 스프링도 DB도 없이 Q타입과 querydsl 직렬화만 쓴다.
+ */
+public class QueryCatalogGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("usage: QueryCatalogGenerator <output dir>");
+        }
+        Path file = write(Paths.get(args[0]), generate());
+        System.out.println("query catalog = " + file.toAbsolutePath());
+    }
+
+    public static SortedMap<String, String> generate() {
+        // 카탈로그 없이 직렬화하는 인스턴스. 런타임 기본 Configuration(H2Templates.DEFAULT)과 같아야 한다.
+        MemberJpqlQueries jpql = new MemberJpqlQueries(QueryCatalog.EMPTY);
+        MemberSqlQueries sql = new MemberSqlQueries(new Configuration(H2Templates.DEFAULT));
+
+        SortedMap<String, String> queries = new TreeMap<>();
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            queries.put(QueryCatalog.key("jpql", "content", shape), jpql.content(shape));
+            queries.put(QueryCatalog.key("jpql", "count", shape), jpql.count(shape));
+            queries.put(QueryCatalog.key("sql", "content", shape), sql.content(shape));
+            queries.put(QueryCatalog.key("sql", "contentPaged", shape), sql.contentPaged(shape));
+            queries.put(QueryCatalog.key("sql", "contentRange", shape), sql.contentRange(shape));
+            queries.put(QueryCatalog.key("sql", "count", shape), sql.count(shape));
+        }
+        return queries;
+    }
+
+    // 같은 입력이면 같은 파일이 나오도록 날짜 주석 없이 키 순서대로 쓴다.
+    public static Path write(Path directory, Map<String, String> queries) throws IOException {
+        Path file = directory.resolve(QueryCatalog.RESOURCE);
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# generated by QueryCatalogGenerator. do not edit.\n");
+            for (Map.Entry<String, String> entry : queries.entrySet()) {
+                writer.write(entry.getKey() + "=" + escape(entry.getValue()) + "\n");
+            }
+        }
+        return file;
+    }
+
+    private static String escape(String query) {
+        return query.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
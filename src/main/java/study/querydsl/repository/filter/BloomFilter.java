@@ -0,0 +1,108 @@
+package study.querydsl.repository.filter;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 Bloom filter. 비트는 AtomicLongArray에 두어 잠금 없이 여러 스레드가 같이 넣고 읽는다.
+ * 해시는 64비트 두 개(h1, h2)로 k개 위치를 h1 + i * h2 로 만든다. (double hashing)
+ * mightContain이 false면 넣은 적이 없는 값이다. true면 있을 수도 있다. (false positive)
+ * 지우기는 안 된다. 지워진 값은 다시 만들어야(rebuild) 빠진다.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long expectedInsertions;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        this.expectedInsertions = Math.max(1, expectedInsertions);
+        long optimalBits = optimalBits(this.expectedInsertions, falsePositiveRate);
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = wordCount * 64L;
+        this.hashes = optimalHashes(this.expectedInsertions, this.bits);
+    }
+
+    // m = -n ln p / (ln 2)^2
+    static long optimalBits(long n, double p) {
+        double rate = Math.min(0.5, Math.max(Double.MIN_NORMAL, p));
+        return Math.max(64, (long) Math.ceil(-n * Math.log(rate) / (Math.log(2) * Math.log(2))));
+    }
+
+    // k = m / n ln 2
+    static int optimalHashes(long n, long m) {
+        return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long h1 = hash(value);
+        long h2 = fmix64(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            // 이미 켜져 있으면 쓰지 않는다. 이름이 겹치는 경우가 많아 대부분 여기서 끝난다.
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash(value);
+        long h2 = fmix64(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 켜진 비트 비율로 본 지금의 false positive 확률. (켜진 비율)^k
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet() / bits, hashes);
+    }
+
+    public long bitsSet() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return set;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    // FNV-1a 64로 모으고 murmur3 finalizer로 섞는다.
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return fmix64(h);
+    }
+
+    private static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
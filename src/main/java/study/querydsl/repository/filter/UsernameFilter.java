@@ -0,0 +1,205 @@
+package study.querydsl.repository.filter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.bulk.BulkClause;
+import study.querydsl.bulk.BulkWriteListener;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * member.username 전체를 담은 Bloom filter. 없는 username 조회(가입 중복 확인, import)는 DB에 가지 않고 바로 빈 결과를 준다.
+ * 기동이 끝나면(ApplicationReadyEvent) member 테이블에서 만들고, 이후 Member insert/update는 Hibernate 이벤트로 넣는다.
+ * flush 때 넣고 커밋 뒤에 한 번 더 넣는다. 롤백된 값은 false positive로 남을 뿐이고, rebuild 중에 커밋된 값도 빠지지 않는다.
+ * 지워지거나 바뀐 예전 username은 rebuild 전까지 남는다. (역시 false positive)
+ *
+ * 필터가 '없다'고 하면 DB에 가지 않으니 빠진 username이 있으면 있는 row를 못 찾는다. (false negative)
+ * 그래서 이 인스턴스가 member의 유일한 writer일 때만 안전하고, 기본은 꺼져 있다. (username-filter.enabled)
+ * 다른 인스턴스, 배치, 콘솔에서 넣거나 바꾼 username은 모른다.
+ * 이 앱 안에서 엔티티 이벤트가 안 나오는 쓰기는 필터를 내려놓고(invalidate) 다음 rebuild까지 DB로 보낸다.
+ * - DeadlineJPAQueryFactory의 Member username update clause
+ * - 기본 JdbcTemplate으로 member에 쓴 것, DatasetGenerator 적재
+ * 문자열 JPQL/native executeUpdate로 username을 바꾸는 곳은 invalidate를 직접 불러야 한다.
+ */
+@Slf4j
+@Component
+@Lazy(false) // lazy-initialization 이어도 기동 때 Hibernate 리스너를 걸어야 한다.
+public class UsernameFilter implements BulkWriteListener {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final UsernameFilterProperties properties;
+
+    // 다 만들어지기 전에는 null. 그동안은 모두 '있을 수도 있음'으로 본다.
+    private volatile BloomFilter current;
+    // rebuild 중인 필터. 그 사이에 들어온 username도 같이 넣는다.
+    private volatile BloomFilter building;
+    // invalidate 할 때마다 올린다. rebuild 도중에 바뀌었으면 만든 필터를 쓰지 않는다.
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+
+    public UsernameFilter(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                          UsernameFilterProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        UsernameFilterEventListener listener = new UsernameFilterEventListener(this);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long generation = invalidations.get();
+        Long rows = jdbcTemplate.queryForObject("select count(*) from member", Long.class);
+        BloomFilter filter = new BloomFilter(Math.max(properties.getExpectedInsertions(), rows != null ? rows : 0),
+                properties.getFalsePositiveRate());
+        building = filter;
+        try {
+            jdbcTemplate.query("select username from member where username is not null", rs -> {
+                filter.put(rs.getString(1));
+            });
+        } finally {
+            building = null;
+        }
+        // 읽는 동안 JPA 밖에서 바뀐 username은 읽었는지 알 수 없다. 내려놓은 채로 두고 다음 rebuild를 기다린다.
+        if (invalidations.get() != generation) {
+            log.warn("username filter invalidated during rebuild, staying on database until next rebuild");
+            return;
+        }
+        current = filter;
+        rebuilds.increment();
+        log.info("username filter rebuilt: {} rows, {} bits, {} hashes in {} ms", rows, filter.getBits(),
+                filter.getHashes(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 필터를 내려놓는다. 다음 rebuild까지 lookup은 모두 DB로 간다.
+     * 트랜잭션 안이면 커밋 뒤에 한 번 더 내려놓는다. 그 사이 끝난 rebuild가 커밋 전 데이터로 만든 필터를 올릴 수 있어서다.
+     */
+    public void invalidate() {
+        drop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop();
+                }
+            });
+        }
+    }
+
+    private void drop() {
+        invalidations.incrementAndGet();
+        if (current != null) {
+            log.info("username filter invalidated, lookups go to database until rebuild");
+        }
+        current = null;
+    }
+
+    // 지우기만 하는 clause는 false positive만 남기니 그대로 둔다.
+    @Override
+    public void beforeBulkClause(BulkClause clause) {
+        if (clause.targets(Member.class) && clause.updates("username")) {
+            invalidate();
+        }
+    }
+
+    // 어떤 쓰기인지 모르니 member에 쓰면 모두 내려놓는다.
+    @Override
+    public void afterJdbcWrite(String table) {
+        if ("member".equals(table)) {
+            invalidate();
+        }
+    }
+
+    void put(String username) {
+        if (username == null) {
+            return;
+        }
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(username);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(username);
+        }
+    }
+
+    /**
+     * 필터가 없다고 하면 query를 실행하지 않고 빈 목록을 준다.
+     * 쓰기 트랜잭션 안에서는 아직 flush 안 된 insert가 필터에 없을 수 있으니 필터를 보지 않는다.
+     */
+    public <T> List<T> lookup(String username, Supplier<List<T>> query) {
+        BloomFilter filter = current;
+        if (username == null || filter == null || !properties.isEnabled()
+                || (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return query.get();
+        }
+
+        lookups.increment();
+        if (!filter.mightContain(username)) {
+            negatives.increment();
+            return Collections.emptyList();
+        }
+        List<T> result = query.get();
+        if (result.isEmpty()) {
+            falsePositives.increment();
+        }
+        return result;
+    }
+
+    public UsernameFilterStats stats() {
+        BloomFilter filter = current;
+        long negative = negatives.sum();
+        long falsePositive = falsePositives.sum();
+        long absent = negative + falsePositive;
+        return new UsernameFilterStats(
+                filter != null,
+                filter != null ? filter.getBits() : 0,
+                filter != null ? filter.getHashes() : 0,
+                filter != null ? filter.getExpectedInsertions() : 0,
+                filter != null ? filter.bitsSet() : 0,
+                filter != null ? filter.expectedFalsePositiveRate() : 0,
+                lookups.sum(),
+                negative,
+                falsePositive,
+                absent == 0 ? 0 : (double) falsePositive / absent,
+                rebuilds.sum());
+    }
+}
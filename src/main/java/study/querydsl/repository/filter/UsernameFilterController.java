@@ -0,0 +1,27 @@
+package study.querydsl.repository.filter;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// 내부용. 관리용 포트(internal-endpoints.port)로만 받는다.
+@RestController
+@RequiredArgsConstructor
+public class UsernameFilterController {
+
+    private final UsernameFilter usernameFilter;
+
+    // http://localhost:8081/internal/username-filter
+    @GetMapping("/internal/username-filter")
+    public UsernameFilterStats stats() {
+        return usernameFilter.stats();
+    }
+
+    // 지워진 username이 쌓여 false positive가 늘었을 때
+    @PostMapping("/internal/username-filter/rebuild")
+    public UsernameFilterStats rebuild() {
+        usernameFilter.rebuild();
+        return usernameFilter.stats();
+    }
+}
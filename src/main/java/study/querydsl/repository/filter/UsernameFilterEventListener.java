@@ -0,0 +1,48 @@
+package study.querydsl.repository.filter;
+
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import study.querydsl.entity.Member;
+
+/**
+ * Member insert/update의 username을 UsernameFilter에 넣는다.
+ * POST_INSERT(flush)와 POST_COMMIT_INSERT(커밋 뒤) 양쪽에 걸려 있다. 두 번 넣어도 결과는 같다.
+ */
+class UsernameFilterEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener {
+
+    private final UsernameFilter filter;
+
+    UsernameFilterEventListener(UsernameFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            filter.put(((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            filter.put(((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return persister.getMappedClass() == Member.class;
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+}
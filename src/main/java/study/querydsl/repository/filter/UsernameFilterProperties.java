@@ -0,0 +1,21 @@
+package study.querydsl.repository.filter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("username-filter")
+public class UsernameFilterProperties {
+
+    // 꺼져 있으면 findByUsername은 항상 DB로 간다.
+    // member를 쓰는 곳이 이 인스턴스 하나일 때만 켠다. 다른 writer가 넣은 username은 필터에 없다.
+    private boolean enabled = false;
+
+    // 넣을 username 수. 다시 만들 때 member 수가 더 많으면 member 수로 잡는다.
+    // 늘어날 만큼 여유를 두어야 한다. 넘치면 false positive가 빠르게 늘어난다.
+    private long expectedInsertions = 1_000_000;
+
+    // 목표 false positive 확률. 0.01 이면 username당 약 9.6 비트, 해시 7개
+    private double falsePositiveRate = 0.01;
+}
@@ -0,0 +1,27 @@
+package study.querydsl.repository.filter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// /internal/username-filter 응답
+@Getter
+@AllArgsConstructor
+public class UsernameFilterStats {
+
+    private final boolean ready;
+    private final long bits;
+    private final int hashes;
+    private final long expectedInsertions;
+    private final long bitsSet;
+    // 켜진 비트 비율로 계산한 false positive 확률
+    private final double expectedFalsePositiveRate;
+    // 필터를 본 조회 수 (쓰기 트랜잭션 등으로 건너뛴 조회는 빠진다)
+    private final long lookups;
+    // 필터가 없다고 해서 DB에 가지 않은 조회 수
+    private final long negatives;
+    // 필터는 있다고 했는데 DB에 없던 조회 수
+    private final long falsePositives;
+    // falsePositives / (negatives + falsePositives). 실제로 없던 username 중 DB까지 간 비율
+    private final double observedFalsePositiveRate;
+    private final long rebuilds;
+}
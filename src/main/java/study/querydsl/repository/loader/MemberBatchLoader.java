@@ -0,0 +1,275 @@
+package study.querydsl.repository.loader;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.bulk.BulkClause;
+import study.querydsl.bulk.BulkWriteListener;
+import study.querydsl.deadline.QueryDeadline;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.BatchLookup;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 여러 스레드에서 동시에 들어온 id 조회(MemberJpaRepository.loadBatched)를 짧은 시간(windowMicros) 또는
+ * maxBatchSize 만큼 모아서 id in (...) 쿼리 한 번으로 읽고 각 호출자의 future를 채운다. (DataLoader 방식)
+ * 엔티티가 아니라 MemberTeamDto로 읽는다. 영속성 컨텍스트와 상관없고, 호출자마다 복사본을 주니 바꿔도 서로 영향이 없다.
+ * 찾은 값과 없는 id는 near cache에 잠깐 들고 있고, 아래 변경이 커밋되면 지운다.
+ * - Member insert/update/delete: Hibernate 이벤트로 그 id만
+ * - Team update/delete (팀 이름이 들어 있다), Querydsl 벌크 update/delete, JdbcTemplate으로 member/team 쓰기: 전부
+ * 다른 인스턴스나 문자열 JPQL/native 쓰기는 보지 못하니 near cache TTL 만큼 옛 값이 보일 수 있다.
+ * 트랜잭션 안에서는 아직 커밋 안 된 변경이 보여야 하니 묶지 않고 그 트랜잭션에서 바로 읽는다.
+ */
+@Component
+public class MemberBatchLoader implements BulkWriteListener {
+
+    private static final QMemberTeamDto ROW = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName"));
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final BatchLookup batchLookup;
+    private final MemberLoaderProperties properties;
+    private final NearCache<Long, MemberTeamDto> nearCache;
+    private final ScheduledExecutorService dispatcher;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<MemberTeamDto>> pending = new HashMap<>();
+    // 지금 모으고 있는 배치 번호. 꽉 차서 먼저 나간 배치의 타이머가 다음 배치를 일찍 보내지 않도록
+    private long batchNumber;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedIds = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+
+    public MemberBatchLoader(EntityManager em, JPAQueryFactory queryFactory, BatchLookup batchLookup,
+                             MemberLoaderProperties properties) {
+        this.em = em;
+        this.queryFactory = queryFactory;
+        this.batchLookup = batchLookup;
+        this.properties = properties;
+        MemberLoaderProperties.NearCache cache = properties.getNearCache();
+        this.nearCache = new NearCache<>(cache.getMaxSize(), cache.getTtlMs(), cache.getNegativeTtlMs());
+        AtomicInteger threads = new AtomicInteger();
+        this.dispatcher = Executors.newScheduledThreadPool(Math.max(1, properties.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "member-loader-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        MemberLoaderEventListener listener = new MemberLoaderEventListener(this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    public Optional<MemberTeamDto> load(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        if (!properties.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Optional.ofNullable(queryFactory
+                    .select(ROW)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.eq(id))
+                    .fetchOne());
+        }
+
+        NearCache.Entry<MemberTeamDto> cached = nearCache.get(id);
+        if (cached != null) {
+            (cached.value != null ? cacheHits : negativeHits).increment();
+            return Optional.ofNullable(copyOf(cached.value));
+        }
+        return Optional.ofNullable(copyOf(await(enqueue(id))));
+    }
+
+    // 캐시와 같은 배치의 호출자들이 같은 인스턴스를 나눠 쓰지 않도록
+    private static MemberTeamDto copyOf(MemberTeamDto dto) {
+        return dto == null ? null
+                : new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(), dto.getTeamName());
+    }
+
+    private CompletableFuture<MemberTeamDto> enqueue(Long id) {
+        synchronized (lock) {
+            CompletableFuture<MemberTeamDto> future = pending.get(id);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+            if (pending.size() >= properties.getMaxBatchSize()) {
+                // 꽉 찼으면 여기서 떼어 내야 다음 id부터는 새 배치로 모인다.
+                Map<Long, CompletableFuture<MemberTeamDto>> batch = takePending();
+                dispatcher.execute(() -> dispatch(batch));
+            } else if (pending.size() == 1) {
+                long number = batchNumber;
+                dispatcher.schedule(() -> dispatchWindow(number), properties.getWindowMicros(), TimeUnit.MICROSECONDS);
+            }
+            return future;
+        }
+    }
+
+    private void dispatchWindow(long number) {
+        Map<Long, CompletableFuture<MemberTeamDto>> batch;
+        synchronized (lock) {
+            if (number != batchNumber || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        dispatch(batch);
+    }
+
+    // lock 안에서만 부른다.
+    private Map<Long, CompletableFuture<MemberTeamDto>> takePending() {
+        Map<Long, CompletableFuture<MemberTeamDto>> batch = pending;
+        pending = new HashMap<>();
+        batchNumber++;
+        return batch;
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<MemberTeamDto>> batch) {
+        batches.increment();
+        batchedIds.add(batch.size());
+        long invalidations = nearCache.invalidations();
+        try {
+            List<MemberTeamDto> members = batchLookup.findAll(batch.keySet(), chunk -> queryFactory
+                    .select(ROW)
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(chunk))
+                    .fetch(), MemberTeamDto::getMemberId, false);
+            Map<Long, MemberTeamDto> byId = new HashMap<>(members.size() * 2);
+            for (MemberTeamDto found : members) {
+                byId.put(found.getMemberId(), found);
+            }
+            batch.forEach((id, future) -> {
+                MemberTeamDto found = byId.get(id);
+                nearCache.put(id, found, invalidations);
+                future.complete(found);
+            });
+        } catch (RuntimeException | Error e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    // 요청 마감이 있으면 그때까지만 기다린다.
+    private static MemberTeamDto await(CompletableFuture<MemberTeamDto> future) {
+        try {
+            long remaining = QueryDeadline.remainingMillis();
+            return remaining == Long.MAX_VALUE ? future.get() : future.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("query deadline exceeded");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while loading member", e);
+        }
+    }
+
+    void evict(Long id) {
+        nearCache.invalidate(id);
+    }
+
+    public void clearCache() {
+        nearCache.clear();
+    }
+
+    // 지금 지우고, 트랜잭션 안이면 커밋 뒤에 한 번 더 지운다. (그 사이 옛 값으로 다시 채워졌을 수 있다)
+    void clearCacheAfterCommit() {
+        nearCache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    nearCache.clear();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void beforeBulkClause(BulkClause clause) {
+        if (clause.targets(Member.class) || clause.targets(Team.class)) {
+            clearCacheAfterCommit();
+        }
+    }
+
+    @Override
+    public void afterJdbcWrite(String table) {
+        if ("member".equals(table) || "team".equals(table)) {
+            clearCacheAfterCommit();
+        }
+    }
+
+    public int cacheSize() {
+        return nearCache.size();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getBatchedIds() {
+        return batchedIds.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+}
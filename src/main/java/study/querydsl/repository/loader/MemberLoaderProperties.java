@@ -0,0 +1,37 @@
+package study.querydsl.repository.loader;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("member-loader")
+public class MemberLoaderProperties {
+
+    // 트랜잭션 밖 MemberJpaRepository.loadBatched 를 모아서 id in (...) 한 번으로 읽는다.
+    private boolean enabled = true;
+
+    // 첫 요청이 들어오고 이만큼 기다렸다가 모인 id를 한 번에 읽는다.
+    private long windowMicros = 500;
+
+    // 이만큼 모이면 기다리지 않고 바로 읽는다.
+    private int maxBatchSize = 128;
+
+    // 동시에 실행할 배치 수 (= 디스패처 스레드 수)
+    private int threads = 2;
+
+    private NearCache nearCache = new NearCache();
+
+    @Getter @Setter
+    public static class NearCache {
+
+        // 0이면 캐시하지 않는다.
+        private int maxSize = 10_000;
+
+        // 찾은 member를 들고 있는 시간. 커밋된 변경은 이벤트로 바로 지운다.
+        private long ttlMs = 1000;
+
+        // 없는 id를 '없음'으로 들고 있는 시간. insert가 커밋되면 바로 지운다.
+        private long negativeTtlMs = 1000;
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.repository.loader;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 짧게 들고 있는 key -> value 캐시. value가 null이면 '없음'을 캐시한 것이다. (negative cache)
+ * 꽉 차면 아무 항목이나 하나 빼고 넣는다.
+ * invalidate 횟수를 세어 두고, 읽기 전에 본 횟수와 다르면 put을 버린다.
+ * 읽는 사이에 커밋된 변경이 지운 항목을 옛 값으로 다시 채우지 않기 위해서다.
+ */
+class NearCache<K, V> {
+
+    private final ConcurrentMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    NearCache(int maxSize, long ttlMs, long negativeTtlMs) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+    }
+
+    // 없거나 만료됐으면 null
+    Entry<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    long invalidations() {
+        return invalidations.get();
+    }
+
+    void put(K key, V value, long invalidationsBefore) {
+        long ttl = value != null ? ttlNanos : negativeTtlNanos;
+        if (maxSize <= 0 || ttl <= 0 || invalidations.get() != invalidationsBefore) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            Iterator<K> keys = entries.keySet().iterator();
+            if (keys.hasNext()) {
+                entries.remove(keys.next());
+            }
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttl));
+    }
+
+    void invalidate(K key) {
+        invalidations.incrementAndGet();
+        entries.remove(key);
+    }
+
+    void clear() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package study.querydsl.repository.sql;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQuery;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.catalog.QueryCatalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.sql.SMember.member;
+import static study.querydsl.repository.sql.STeam.team;
+
+/**
+ * MemberSearchCondition 조합(shape)별로 querydsl-sql이 만든 SQL을 한 번만 직렬화해 캐시한다.
+ * 조건 4개의 유무로 shape는 16가지 뿐이라, 런타임에는 캐시된 SQL에 파라미터만 바인딩하면 된다.
+ * 바인딩 순서는 항상 username, teamName, ageGoe, ageLoe (있는 것만), 페이징이면 뒤에 limit, offset, 구간이면 from, to.
+ * 기본 설정이면 정렬 없는 SQL은 빌드 때 만든 QueryCatalog에서 먼저 찾는다.
+ */
+public class MemberSqlQueries {
+
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+
+    public static final int SHAPE_COUNT = 1 << 4;
+
+    // select 컬럼 순서와 맞춰서 ResultSet -> MemberTeamDto로 바로 매핑
+    public static final RowMapper<MemberTeamDto> MEMBER_TEAM_DTO_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getInt(3),
+            rs.getObject(4, Long.class),
+            rs.getString(5));
+
+    // Pageable sort 속성 -> 컬럼. MemberTeamDto 필드 이름 기준
+    private static final Map<String, ComparableExpressionBase<?>> SORT_COLUMNS = new HashMap<>();
+    private static final Map<String, Function<MemberTeamDto, Comparable>> SORT_KEYS = new HashMap<>();
+
+    static {
+        SORT_COLUMNS.put("memberId", member.memberId);
+        SORT_COLUMNS.put("username", member.username);
+        SORT_COLUMNS.put("age", member.age);
+        SORT_COLUMNS.put("teamId", team.id);
+        SORT_COLUMNS.put("teamName", team.name);
+
+        SORT_KEYS.put("memberId", MemberTeamDto::getMemberId);
+        SORT_KEYS.put("username", MemberTeamDto::getUsername);
+        SORT_KEYS.put("age", MemberTeamDto::getAge);
+        SORT_KEYS.put("teamId", MemberTeamDto::getTeamId);
+        SORT_KEYS.put("teamName", MemberTeamDto::getTeamName);
+    }
+
+    private final Configuration configuration;
+    private final QueryCatalog catalog;
+
+    private final Map<Integer, String> contentSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> pagedSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> countSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> rangeSql = new ConcurrentHashMap<>();
+    private final Map<String, String> sortedSql = new ConcurrentHashMap<>();
+    private final Map<String, String> sortedPagedSql = new ConcurrentHashMap<>();
+
+    public MemberSqlQueries() {
+        this(new Configuration(H2Templates.DEFAULT), QueryCatalog.classpath());
+    }
+
+    // 카탈로그는 기본 설정(H2Templates.DEFAULT)으로 만든 것이라 다른 설정에는 쓰지 않는다.
+    public MemberSqlQueries(Configuration configuration) {
+        this(configuration, QueryCatalog.EMPTY);
+    }
+
+    public MemberSqlQueries(Configuration configuration, QueryCatalog catalog) {
+        this.configuration = configuration;
+        this.catalog = catalog;
+    }
+
+    public static int shapeOf(MemberSearchCondition condition) {
+        int shape = 0;
+        if (hasText(condition.getUsername())) {
+            shape |= USERNAME;
+        }
+        if (hasText(condition.getTeamName())) {
+            shape |= TEAM_NAME;
+        }
+        if (condition.getAgeGoe() != null) {
+            shape |= AGE_GOE;
+        }
+        if (condition.getAgeLoe() != null) {
+            shape |= AGE_LOE;
+        }
+        return shape;
+    }
+
+    public static List<Object> bindings(MemberSearchCondition condition) {
+        List<Object> args = new ArrayList<>(6);
+        if (hasText(condition.getUsername())) {
+            args.add(condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            args.add(condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            args.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            args.add(condition.getAgeLoe());
+        }
+        return args;
+    }
+
+    public static List<Object> rangeBindings(MemberSearchCondition condition, long fromId, long toId) {
+        List<Object> args = bindings(condition);
+        args.add(fromId);
+        args.add(toId);
+        return args;
+    }
+
+    public static List<Object> pagedBindings(MemberSearchCondition condition, long offset, int limit) {
+        List<Object> args = bindings(condition);
+        args.add(limit);
+        args.add(offset);
+        return args;
+    }
+
+    public String content(int shape) {
+        return contentSql.computeIfAbsent(shape, s -> catalog.get(QueryCatalog.key("sql", "content", s),
+                () -> contentQuery(s).getSQL().getSQL()));
+    }
+
+    public String contentPaged(int shape) {
+        return pagedSql.computeIfAbsent(shape, s -> catalog.get(QueryCatalog.key("sql", "contentPaged", s),
+                () -> contentQuery(s)
+                        // 자리만 잡는 값. 실제 값은 실행 시점에 바인딩
+                        .limit(1)
+                        .offset(1)
+                        .getSQL().getSQL()));
+    }
+
+    // member_id between ? and ? 구간만 member_id 순으로. 구간별 결과를 이어 붙이면 전체가 member_id 순이 된다.
+    public String contentRange(int shape) {
+        return rangeSql.computeIfAbsent(shape, s -> catalog.get(QueryCatalog.key("sql", "contentRange", s),
+                () -> contentQuery(s)
+                        .where(member.memberId.between(0L, 0L))
+                        .orderBy(member.memberId.asc())
+                        .getSQL().getSQL()));
+    }
+
+    public String content(int shape, Sort sort) {
+        return sortedSql.computeIfAbsent(shape + ":" + sort, key -> contentQuery(shape)
+                .orderBy(orderBy(sort))
+                .getSQL().getSQL());
+    }
+
+    /**
+     * 정렬이 있는 페이징. 정렬 뒤에 항상 member_id를 붙여서 순서가 유일하게 정해지도록 한다.
+     * (여러 곳에서 가져온 결과를 같은 순서로 합칠 수 있어야 한다)
+     */
+    public String contentPaged(int shape, Sort sort) {
+        return sortedPagedSql.computeIfAbsent(shape + ":" + sort, key -> contentQuery(shape)
+                .orderBy(orderBy(sort))
+                .limit(1)
+                .offset(1)
+                .getSQL().getSQL());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            orders.add(new OrderSpecifier(order.isAscending() ? Order.ASC : Order.DESC, column,
+                    OrderSpecifier.NullHandling.NullsLast));
+        }
+        orders.add(member.memberId.asc());
+        return orders.toArray(new OrderSpecifier[0]);
+    }
+
+    // orderBy(sort) 와 같은 순서의 Comparator
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        for (Sort.Order order : sort) {
+            Function<MemberTeamDto, Comparable> key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                throw new IllegalArgumentException("unsupported sort property: " + order.getProperty());
+            }
+            Comparator<Comparable> values = order.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            Comparator<MemberTeamDto> next = Comparator.comparing(key, Comparator.nullsLast(values));
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    public String count(int shape) {
+        return countSql.computeIfAbsent(shape, s -> catalog.get(QueryCatalog.key("sql", "count", s),
+                () -> new SQLQuery<Void>(configuration)
+                        .select(member.memberId.count())
+                        .from(member)
+                        .leftJoin(team).on(member.teamId.eq(team.id))
+                        .where(where(s))
+                        .getSQL().getSQL()));
+    }
+
+    private SQLQuery<?> contentQuery(int shape) {
+        return new SQLQuery<Void>(configuration)
+                .select(member.memberId,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name)
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(where(shape));
+    }
+
+    // 값은 자리만 잡는 용도. 직렬화하면 모두 ? 로 바뀐다.
+    private BooleanExpression[] where(int shape) {
+        return new BooleanExpression[]{
+                (shape & USERNAME) != 0 ? member.username.eq("") : null,
+                (shape & TEAM_NAME) != 0 ? team.name.eq("") : null,
+                (shape & AGE_GOE) != 0 ? member.age.goe(0) : null,
+                (shape & AGE_LOE) != 0 ? member.age.loe(0) : null
+        };
+    }
+}
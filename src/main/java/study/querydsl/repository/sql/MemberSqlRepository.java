@@ -0,0 +1,80 @@
+package study.querydsl.repository.sql;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamBatch;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.support.Slices;
+
+import java.util.List;
+
+import static study.querydsl.repository.sql.MemberSqlQueries.MEMBER_TEAM_DTO_MAPPER;
+import static study.querydsl.repository.sql.MemberSqlQueries.bindings;
+import static study.querydsl.repository.sql.MemberSqlQueries.pagedBindings;
+import static study.querydsl.repository.sql.MemberSqlQueries.shapeOf;
+
+// 엔티티가 필요 없는 조회 전용 DTO 검색을 JPQL -> HQL 변환 없이 바로 SQL로 날린다.
+// JdbcTemplate을 쓰므로 JPA 트랜잭션 안에서는 같은 커넥션을 그대로 사용한다.
+@Repository
+public class MemberSqlRepository implements MemberRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberSqlQueries queries = new MemberSqlQueries();
+
+    public MemberSqlRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return jdbcTemplate.query(queries.content(shapeOf(condition)),
+                MEMBER_TEAM_DTO_MAPPER,
+                bindings(condition).toArray());
+    }
+
+    // 대량 조회(export)용. DTO 목록 대신 컬럼 배열에 바로 채운다.
+    public MemberTeamBatch searchBatch(MemberSearchCondition condition) {
+        return jdbcTemplate.query(queries.content(shapeOf(condition)),
+                MemberTeamBatch.EXTRACTOR,
+                bindings(condition).toArray());
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = fetchPage(condition, pageable);
+        return new PageImpl<>(content, pageable, count(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = fetchPage(condition, pageable);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition));
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = jdbcTemplate.query(queries.contentPaged(shapeOf(condition)),
+                MEMBER_TEAM_DTO_MAPPER,
+                pagedBindings(condition, pageable.getOffset(), Slices.fetchSize(pageable)).toArray());
+        return Slices.of(content, pageable);
+    }
+
+    private List<MemberTeamDto> fetchPage(MemberSearchCondition condition, Pageable pageable) {
+        return jdbcTemplate.query(queries.contentPaged(shapeOf(condition)),
+                MEMBER_TEAM_DTO_MAPPER,
+                pagedBindings(condition, pageable.getOffset(), pageable.getPageSize()).toArray());
+    }
+
+    private long count(MemberSearchCondition condition) {
+        Long total = jdbcTemplate.queryForObject(queries.count(shapeOf(condition)), Long.class,
+                bindings(condition).toArray());
+        return total != null ? total : 0L;
+    }
+}
@@ -0,0 +1,159 @@
+package study.querydsl.repository.sql;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.deadline.QueryDeadline;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static study.querydsl.repository.sql.MemberSqlQueries.MEMBER_TEAM_DTO_MAPPER;
+import static study.querydsl.repository.sql.MemberSqlQueries.rangeBindings;
+import static study.querydsl.repository.sql.MemberSqlQueries.shapeOf;
+
+/**
+ * 조건이 약해서 member 전체를 훑게 되는 search를 member_id 구간으로 나눠 여러 커넥션에서 동시에 읽는다.
+ * 구간 수는 테이블 크기와 커넥션 풀 여유에 맞춰 정하고, 나눌 가치가 없으면 MemberSqlRepository로 한 번에 읽는다.
+ * 결과는 member_id 순.
+ */
+@Slf4j
+@Repository
+public class ParallelMemberSqlRepository implements MemberRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final MemberSqlRepository sqlRepository;
+    private final ParallelScanProperties properties;
+    private final MemberSqlQueries queries = new MemberSqlQueries();
+    private final ExecutorService executor;
+
+    public ParallelMemberSqlRepository(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                                       MemberSqlRepository sqlRepository, ParallelScanProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.sqlRepository = sqlRepository;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getMaxParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "member-scan-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        // 쓰기 트랜잭션 안이면 다른 커넥션에서는 아직 커밋 안 된 데이터가 안 보인다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return sqlRepository.search(condition);
+        }
+
+        IdRange table = jdbcTemplate.queryForObject("select min(member_id), max(member_id), count(*) from member",
+                (rs, rowNum) -> new IdRange(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+        int parallelism = parallelism(table.rows);
+        if (parallelism <= 1) {
+            return sqlRepository.search(condition);
+        }
+
+        String sql = queries.contentRange(shapeOf(condition));
+        List<CompletableFuture<List<MemberTeamDto>>> parts = new ArrayList<>(parallelism);
+        for (IdRange range : table.split(parallelism)) {
+            // 요청 마감 시간은 작업 스레드로 넘겨 준다.
+            parts.add(CompletableFuture.supplyAsync(QueryDeadline.propagate(() -> jdbcTemplate.query(sql, MEMBER_TEAM_DTO_MAPPER,
+                    rangeBindings(condition, range.fromId, range.toId).toArray())), executor));
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        for (CompletableFuture<List<MemberTeamDto>> part : parts) {
+            result.addAll(part.join());
+        }
+        return result;
+    }
+
+    // 페이징은 앞쪽 몇 건만 읽으면 되니 나누지 않는다.
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return sqlRepository.searchPageSimple(condition, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return sqlRepository.searchPageComplex(condition, pageable);
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return sqlRepository.searchSlice(condition, pageable);
+    }
+
+    // 테이블 크기로 나눌 수 있는 만큼, 단 설정 상한과 풀에 남은 커넥션 수를 넘지 않게
+    int parallelism(long rows) {
+        long bySize = rows / Math.max(1, properties.getMinRowsPerPartition());
+        int parallelism = (int) Math.min(bySize, properties.getMaxParallelism());
+        return Math.min(parallelism, poolHeadroom());
+    }
+
+    private int poolHeadroom() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return properties.getMaxParallelism();
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            int active = pool != null ? pool.getActiveConnections() : 0;
+            return hikari.getMaximumPoolSize() - active - properties.getPoolReserve();
+        } catch (SQLException e) {
+            log.debug("cannot read pool state", e);
+            return 1;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static class IdRange {
+        final long fromId;
+        final long toId;
+        final long rows;
+
+        IdRange(long fromId, long toId, long rows) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.rows = rows;
+        }
+
+        // [fromId, toId]를 겹치지 않게 n 조각으로
+        List<IdRange> split(int n) {
+            List<IdRange> ranges = new ArrayList<>(n);
+            long width = Math.max(1, (toId - fromId + n) / n);
+            for (long from = fromId; from <= toId; from += width) {
+                long to = Math.min(toId, from + width - 1);
+                ranges.add(new IdRange(from, to, 0));
+                if (to == toId) {
+                    break;
+                }
+            }
+            return ranges;
+        }
+    }
+}
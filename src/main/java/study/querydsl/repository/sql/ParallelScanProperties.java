@@ -0,0 +1,19 @@
+package study.querydsl.repository.sql;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("parallel-scan")
+public class ParallelScanProperties {
+
+    // 동시에 돌릴 구간 수 상한 (= 워커 스레드 수)
+    private int maxParallelism = Runtime.getRuntime().availableProcessors();
+
+    // 구간 하나가 최소 이만큼은 읽어야 나눌 가치가 있다. 이보다 작은 테이블은 그냥 한 번에 읽는다.
+    private long minRowsPerPartition = 50_000;
+
+    // 다른 요청을 위해 커넥션 풀에 남겨 둘 여유 커넥션 수
+    private int poolReserve = 2;
+}
@@ -0,0 +1,128 @@
+package study.querydsl.repository.support;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.deadline.QueryDeadline;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * id 목록 조회(findAllByIds)를 IN 절 조각으로 나눠 실행한다.
+ * - 조각 크기는 chunkSize 이하. 아무리 긴 목록이어도 IN 절이 한없이 길어지지 않는다.
+ * - 조각은 2의 거듭제곱 길이로 마지막 id를 반복해 채운다. id 수가 달라도 SQL(과 쿼리 플랜)은 log2(chunkSize)+1 가지 뿐이다.
+ * - 결과는 요청한 id 순서대로. 중복 id는 처음 나온 자리 하나만, 없는 id는 빠진다.
+ * - parallel이면 조각마다 따로 읽기 전용 트랜잭션(커넥션)에서 동시에 읽는다. 이때 엔티티는 준영속 상태로 돌아온다.
+ */
+@Component
+public class BatchLookup {
+
+    private final int chunkSize;
+    private final int maxParallelism;
+    private final TransactionTemplate readOnly;
+    private final ExecutorService executor;
+
+    public BatchLookup(BatchLookupProperties properties, PlatformTransactionManager transactionManager) {
+        this.chunkSize = Integer.highestOneBit(Math.max(1, properties.getChunkSize()));
+        this.maxParallelism = Math.max(1, properties.getMaxParallelism());
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-lookup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param chunkQuery 패딩된 id 조각 하나를 IN 절로 조회한다.
+     * @param idOf       결과에서 id를 꺼낸다. 요청 순서로 다시 늘어놓는 데 쓴다.
+     */
+    public <T> List<T> findAll(Collection<Long> ids, Function<List<Long>, List<T>> chunkQuery,
+                               Function<T, Long> idOf, boolean parallel) {
+        List<List<Long>> chunks = chunks(ids, chunkSize);
+        if (chunks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<T> found = new ArrayList<>(ids.size());
+        if (!parallel || chunks.size() == 1 || inReadWriteTransaction()) {
+            for (List<Long> chunk : chunks) {
+                found.addAll(chunkQuery.apply(chunk));
+            }
+        } else {
+            List<CompletableFuture<List<T>>> parts = new ArrayList<>(chunks.size());
+            for (List<Long> chunk : chunks) {
+                // 요청 마감 시간은 작업 스레드로 넘겨 준다.
+                parts.add(CompletableFuture.supplyAsync(QueryDeadline.propagate(
+                        () -> readOnly.execute(status -> chunkQuery.apply(chunk))), executor));
+            }
+            for (CompletableFuture<List<T>> part : parts) {
+                found.addAll(part.join());
+            }
+        }
+        return inRequestOrder(ids, found, idOf);
+    }
+
+    // 쓰기 트랜잭션 안이면 다른 커넥션에서는 아직 커밋 안 된 데이터가 안 보이고, 결과도 지금 영속성 컨텍스트에 있어야 한다.
+    private static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    // null과 중복을 뺀 id를 요청 순서대로 chunkSize씩 자르고, 각 조각을 2의 거듭제곱 길이로 채운다.
+    static List<List<Long>> chunks(Collection<Long> ids, int chunkSize) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        List<List<Long>> chunks = new ArrayList<>((distinct.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            chunks.add(pad(distinct.subList(from, Math.min(distinct.size(), from + chunkSize))));
+        }
+        return chunks;
+    }
+
+    static List<Long> pad(List<Long> chunk) {
+        int size = chunk.size();
+        int padded = size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+        List<Long> result = new ArrayList<>(padded);
+        result.addAll(chunk);
+        Long last = chunk.get(size - 1);
+        while (result.size() < padded) {
+            result.add(last);
+        }
+        return result;
+    }
+
+    static <T> List<T> inRequestOrder(Collection<Long> ids, List<T> found, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>(found.size() * 2);
+        for (T row : found) {
+            byId.put(idOf.apply(row), row);
+        }
+        List<T> result = new ArrayList<>(byId.size());
+        for (Long id : new LinkedHashSet<>(ids)) {
+            T row = byId.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
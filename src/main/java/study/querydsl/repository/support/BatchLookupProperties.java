@@ -0,0 +1,16 @@
+package study.querydsl.repository.support;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("batch-lookup")
+public class BatchLookupProperties {
+
+    // IN 절 하나에 넣을 id 수 상한. 2의 거듭제곱으로 내려서 쓴다. (꽉 찬 조각이 패딩 없이 같은 SQL을 쓰도록)
+    private int chunkSize = 512;
+
+    // parallel 조회 때 동시에 돌릴 조각 수 상한 (= 워커 스레드 수)
+    private int maxParallelism = 4;
+}
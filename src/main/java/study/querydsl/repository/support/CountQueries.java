@@ -0,0 +1,223 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.JoinType;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.CollectionExpression;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.MapExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.SubQueryExpression;
+import com.querydsl.core.types.TemplateExpression;
+import com.querydsl.core.types.Visitor;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 컨텐츠 쿼리에서 count 쿼리를 만들어 낸다. 같은 where를 두 번 손으로 쓰지 않아도 된다.
+ * - order by, offset/limit 은 버린다.
+ * - fetch join은 일반 join으로 바꾼다.
+ * - where, group by, having, 다른 join의 on 어디에서도 쓰지 않는 to-one 연관관계 left join은 뺀다.
+ *   (left join이라 빼도 row 수가 같다. 컬렉션 join, 연관관계 없는 join(leftJoin(team).on(...))은 row 수가 달라질 수 있으니 남긴다.)
+ * - select는 count(root) 하나. distinct 쿼리면 count(distinct 컨텐츠 select). 여러 컬럼 distinct는 JPQL로 셀 수 없어서 거부한다.
+ * - group by가 있으면 그룹마다 한 row가 나온다. 개수는 fetchCount로 센다.
+ */
+public final class CountQueries {
+
+    private CountQueries() {
+    }
+
+    public static JPAQuery<Long> countOf(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        QueryMetadata source = contentQuery.getMetadata();
+        List<JoinExpression> joins = source.getJoins();
+        if (joins.isEmpty()) {
+            throw new IllegalArgumentException("content query has no from clause");
+        }
+
+        Expression<?> root = aliasOf(joins.get(0).getTarget());
+        Expression<Long> count = source.isDistinct()
+                ? ExpressionUtils.operation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, distinctTarget(source, root))
+                : ExpressionUtils.operation(Long.class, Ops.AggOps.COUNT_AGG, root);
+
+        JPAQuery<Long> countQuery = queryFactory.select(count);
+        QueryMetadata target = countQuery.getMetadata();
+        for (JoinExpression join : requiredJoins(source)) {
+            target.addJoin(join.getType(), join.getTarget());
+            if (join.getCondition() != null) {
+                target.addJoinCondition(join.getCondition());
+            }
+            for (JoinFlag flag : join.getFlags()) {
+                if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+                    target.addJoinFlag(flag);
+                }
+            }
+        }
+        if (source.getWhere() != null) {
+            target.addWhere(source.getWhere());
+        }
+        for (Expression<?> groupBy : source.getGroupBy()) {
+            target.addGroupBy(groupBy);
+        }
+        if (source.getHaving() != null) {
+            target.addHaving(source.getHaving());
+        }
+        for (Map.Entry<ParamExpression<?>, Object> param : source.getParams().entrySet()) {
+            setParam(target, param.getKey(), param.getValue());
+        }
+        return countQuery;
+    }
+
+    // group by가 있으면 count 쿼리가 그룹마다 한 row를 돌려주니 row 수를 센다.
+    public static long fetchCount(JPAQueryFactory queryFactory, JPAQuery<?> contentQuery) {
+        JPAQuery<Long> countQuery = countOf(queryFactory, contentQuery);
+        if (!contentQuery.getMetadata().getGroupBy().isEmpty()) {
+            return countQuery.fetch().size();
+        }
+        Long count = countQuery.fetchOne();
+        return count != null ? count : 0L;
+    }
+
+    // select(member.age).distinct() -> count(distinct member.age)
+    private static Expression<?> distinctTarget(QueryMetadata source, Expression<?> root) {
+        Expression<?> projection = source.getProjection();
+        if (projection == null) {
+            return root;
+        }
+        if (projection instanceof FactoryExpression) {
+            throw new IllegalArgumentException("cannot count distinct rows of a multi-column projection: " + projection);
+        }
+        return projection;
+    }
+
+    // 뒤에서부터 보면서 쓰이지 않는 left join을 빼고, 남는 join이 참조하는 alias는 다시 쓰인 것으로 친다.
+    static List<JoinExpression> requiredJoins(QueryMetadata metadata) {
+        Set<Expression<?>> referenced = new HashSet<>();
+        collect(metadata.getWhere(), referenced);
+        collect(metadata.getHaving(), referenced);
+        for (Expression<?> groupBy : metadata.getGroupBy()) {
+            collect(groupBy, referenced);
+        }
+
+        List<JoinExpression> joins = metadata.getJoins();
+        List<JoinExpression> required = new ArrayList<>(joins.size());
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            JoinExpression join = joins.get(i);
+            if (i > 0 && isDroppable(join) && !referenced.contains(aliasOf(join.getTarget()))) {
+                continue;
+            }
+            required.add(0, join);
+            collect(sourceOf(join.getTarget()), referenced);
+            collect(join.getCondition(), referenced);
+        }
+        return required;
+    }
+
+    // member.team 처럼 root가 아닌 path(연관관계)의 to-one left join만 뺄 수 있다.
+    private static boolean isDroppable(JoinExpression join) {
+        if (join.getType() != JoinType.LEFTJOIN) {
+            return false;
+        }
+        Expression<?> association = sourceOf(join.getTarget());
+        return association instanceof Path
+                && ((Path<?>) association).getMetadata().getParent() != null
+                && !(association instanceof CollectionExpression) && !(association instanceof MapExpression);
+    }
+
+    // leftJoin(member.team, team) -> team
+    private static Expression<?> aliasOf(Expression<?> target) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) target).getArg(1);
+        }
+        return target;
+    }
+
+    // leftJoin(member.team, team) -> member.team
+    private static Expression<?> sourceOf(Expression<?> target) {
+        if (target instanceof Operation && ((Operation<?>) target).getOperator() == Ops.ALIAS) {
+            return ((Operation<?>) target).getArg(0);
+        }
+        return null;
+    }
+
+    private static void collect(Expression<?> expression, Set<Expression<?>> roots) {
+        if (expression != null) {
+            expression.accept(RootCollector.INSTANCE, roots);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void setParam(QueryMetadata metadata, ParamExpression<T> param, Object value) {
+        metadata.setParam(param, (T) value);
+    }
+
+    // 식 안에서 쓰인 path의 root(alias)를 모은다.
+    private enum RootCollector implements Visitor<Void, Set<Expression<?>>> {
+        INSTANCE;
+
+        @Override
+        public Void visit(Constant<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(FactoryExpression<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(Operation<?> expr, Set<Expression<?>> roots) {
+            expr.getArgs().forEach(arg -> arg.accept(this, roots));
+            return null;
+        }
+
+        @Override
+        public Void visit(ParamExpression<?> expr, Set<Expression<?>> roots) {
+            return null;
+        }
+
+        @Override
+        public Void visit(Path<?> expr, Set<Expression<?>> roots) {
+            roots.add(expr.getRoot());
+            return null;
+        }
+
+        // 서브쿼리는 바깥 alias를 참조할 수 있으니 안쪽 식도 본다.
+        @Override
+        public Void visit(SubQueryExpression<?> expr, Set<Expression<?>> roots) {
+            QueryMetadata metadata = expr.getMetadata();
+            for (JoinExpression join : metadata.getJoins()) {
+                join.getTarget().accept(this, roots);
+                collect(join.getCondition(), roots);
+            }
+            collect(metadata.getWhere(), roots);
+            collect(metadata.getHaving(), roots);
+            collect(metadata.getProjection(), roots);
+            return null;
+        }
+
+        @Override
+        public Void visit(TemplateExpression<?> expr, Set<Expression<?>> roots) {
+            for (Object arg : expr.getArgs()) {
+                if (arg instanceof Expression) {
+                    ((Expression<?>) arg).accept(this, roots);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Visitor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * QMemberTeamDto, Projections.tuple(..) 같은 projection을 감싸서, 지정한 String 컬럼 값을
+ * 결과를 만들 때 StringDictionary로 모은다. row마다 새로 생기는 teamName 같은 값이 종류 수만큼만 남는다.
+ *
+ * <pre>
+ * queryFactory.select(DeduplicatingProjection.of(new QMemberTeamDto(...), team.name))
+ * </pre>
+ */
+public class DeduplicatingProjection<T> extends FactoryExpressionBase<T> {
+
+    // 쿼리 하나 안에서 쓰는 기본 사전 크기
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final FactoryExpression<T> projection;
+    private final boolean[] interned;
+    private final StringDictionary dictionary;
+
+    private DeduplicatingProjection(FactoryExpression<T> projection, boolean[] interned, StringDictionary dictionary) {
+        super(projection.getType());
+        this.projection = projection;
+        this.interned = interned;
+        this.dictionary = dictionary;
+    }
+
+    // 쿼리마다 새 사전을 쓴다.
+    public static <T> DeduplicatingProjection<T> of(FactoryExpression<T> projection, Expression<?>... columns) {
+        return of(projection, new StringDictionary(DEFAULT_MAX_SIZE), columns);
+    }
+
+    // 여러 쿼리가 사전을 같이 쓰려면 직접 넘긴다.
+    public static <T> DeduplicatingProjection<T> of(FactoryExpression<T> projection, StringDictionary dictionary,
+                                                    Expression<?>... columns) {
+        List<Expression<?>> args = projection.getArgs();
+        boolean[] interned = new boolean[args.size()];
+        for (Expression<?> column : columns) {
+            int index = indexOf(args, column);
+            if (index < 0) {
+                throw new IllegalArgumentException(column + " is not an argument of " + projection);
+            }
+            interned[index] = true;
+        }
+        return new DeduplicatingProjection<>(projection, interned, dictionary);
+    }
+
+    // member.team.name 이나 team.name.as("teamName") 둘 다 찾는다.
+    private static int indexOf(List<Expression<?>> args, Expression<?> column) {
+        for (int i = 0; i < args.size(); i++) {
+            Expression<?> arg = args.get(i);
+            if (arg.equals(column)) {
+                return i;
+            }
+            if (arg instanceof Operation && ((Operation<?>) arg).getOperator() == Ops.ALIAS
+                    && ((Operation<?>) arg).getArg(0).equals(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return projection.getArgs();
+    }
+
+    @Override
+    public T newInstance(Object... args) {
+        for (int i = 0; i < interned.length; i++) {
+            if (interned[i] && args[i] instanceof String) {
+                args[i] = dictionary.intern((String) args[i]);
+            }
+        }
+        return projection.newInstance(args);
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof DeduplicatingProjection)) {
+            return false;
+        }
+        DeduplicatingProjection<?> other = (DeduplicatingProjection<?>) o;
+        return projection.equals(other.projection) && Arrays.equals(interned, other.interned);
+    }
+}
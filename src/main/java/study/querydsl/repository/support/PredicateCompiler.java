@@ -0,0 +1,408 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.PathType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Querydsl Predicate를 메모리 객체용 java.util.function.Predicate로 컴파일한다.
+ * 식 트리는 컴파일할 때 한 번만 훑고, 결과는 getter MethodHandle과 람다를 이어 붙인 것이라
+ * row마다 트리를 해석하지 않는다. (QMember / QTeam 처럼 getter가 있는 엔티티 경로 기준)
+ *
+ * DB와 같은 결과가 나오도록 SQL의 3값 논리를 따른다. null과의 비교는 unknown이고, 최종적으로 true인 것만 통과.
+ */
+public final class PredicateCompiler {
+
+    private static final char NO_ESCAPE = '\0';
+
+    private PredicateCompiler() {
+    }
+
+    public static <T> java.util.function.Predicate<T> compile(com.querydsl.core.types.Predicate predicate, Class<T> rootType) {
+        Expression<?> expression = predicate != null ? ExpressionUtils.extract(predicate) : null;
+        if (expression == null) {
+            // 빈 BooleanBuilder 는 조건 없음
+            return root -> true;
+        }
+        Condition condition = condition(expression, rootType);
+        return root -> condition.test(root) == Boolean.TRUE;
+    }
+
+    public static <T> List<T> filter(Collection<T> source, com.querydsl.core.types.Predicate predicate, Class<T> rootType) {
+        return source.stream().filter(compile(predicate, rootType)).collect(Collectors.toList());
+    }
+
+    // 결과: TRUE, FALSE, null(unknown)
+    @FunctionalInterface
+    private interface Condition {
+        Boolean test(Object root);
+    }
+
+    @FunctionalInterface
+    private interface Value extends Function<Object, Object> {
+    }
+
+    private static Condition condition(Expression<?> expression, Class<?> rootType) {
+        expression = ExpressionUtils.extract(expression);
+        if (expression instanceof Operation) {
+            return operation((Operation<?>) expression, rootType);
+        }
+        if (expression instanceof Path || expression instanceof Constant) {
+            Value value = value(expression, rootType);
+            return root -> (Boolean) value.apply(root);
+        }
+        throw new IllegalArgumentException("unsupported expression: " + expression);
+    }
+
+    private static Condition operation(Operation<?> operation, Class<?> rootType) {
+        Operator operator = operation.getOperator();
+        if (!(operator instanceof Ops)) {
+            throw new IllegalArgumentException("unsupported operator: " + operator);
+        }
+        List<Expression<?>> args = operation.getArgs();
+        switch ((Ops) operator) {
+            case AND: {
+                Condition left = condition(args.get(0), rootType);
+                Condition right = condition(args.get(1), rootType);
+                return root -> {
+                    Boolean l = left.test(root);
+                    if (l == Boolean.FALSE) {
+                        return false;
+                    }
+                    Boolean r = right.test(root);
+                    if (r == Boolean.FALSE) {
+                        return false;
+                    }
+                    return l == null || r == null ? null : Boolean.TRUE;
+                };
+            }
+            case OR: {
+                Condition left = condition(args.get(0), rootType);
+                Condition right = condition(args.get(1), rootType);
+                return root -> {
+                    Boolean l = left.test(root);
+                    if (l == Boolean.TRUE) {
+                        return true;
+                    }
+                    Boolean r = right.test(root);
+                    if (r == Boolean.TRUE) {
+                        return true;
+                    }
+                    return l == null || r == null ? null : Boolean.FALSE;
+                };
+            }
+            case NOT: {
+                Condition inner = condition(args.get(0), rootType);
+                return root -> {
+                    Boolean b = inner.test(root);
+                    return b == null ? null : !b;
+                };
+            }
+            case IS_NULL: {
+                Value value = value(args.get(0), rootType);
+                return root -> value.apply(root) == null;
+            }
+            case IS_NOT_NULL: {
+                Value value = value(args.get(0), rootType);
+                return root -> value.apply(root) != null;
+            }
+            case EQ:
+                return compare(args, rootType, c -> c == 0);
+            case NE:
+                return compare(args, rootType, c -> c != 0);
+            case LT:
+                return compare(args, rootType, c -> c < 0);
+            case LOE:
+                return compare(args, rootType, c -> c <= 0);
+            case GT:
+                return compare(args, rootType, c -> c > 0);
+            case GOE:
+                return compare(args, rootType, c -> c >= 0);
+            case BETWEEN: {
+                Value value = value(args.get(0), rootType);
+                Value from = value(args.get(1), rootType);
+                Value to = value(args.get(2), rootType);
+                return root -> {
+                    Object v = value.apply(root);
+                    Object f = from.apply(root);
+                    Object t = to.apply(root);
+                    if (v == null || f == null || t == null) {
+                        return null;
+                    }
+                    return compareValues(v, f) >= 0 && compareValues(v, t) <= 0;
+                };
+            }
+            case IN:
+                return in(args, rootType, false);
+            case NOT_IN:
+                return in(args, rootType, true);
+            case EQ_IGNORE_CASE:
+                return strings(args, rootType, (v, a) -> v.equalsIgnoreCase(a));
+            case STARTS_WITH:
+                return strings(args, rootType, String::startsWith);
+            case STARTS_WITH_IC:
+                return strings(args, rootType, (v, a) -> lower(v).startsWith(lower(a)));
+            case ENDS_WITH:
+                return strings(args, rootType, String::endsWith);
+            case ENDS_WITH_IC:
+                return strings(args, rootType, (v, a) -> lower(v).endsWith(lower(a)));
+            case STRING_CONTAINS:
+                return strings(args, rootType, String::contains);
+            case STRING_CONTAINS_IC:
+                return strings(args, rootType, (v, a) -> lower(v).contains(lower(a)));
+            case STRING_IS_EMPTY: {
+                Value value = value(args.get(0), rootType);
+                return root -> {
+                    Object v = value.apply(root);
+                    return v == null ? null : ((String) v).isEmpty();
+                };
+            }
+            case LIKE:
+            case LIKE_ESCAPE:
+                return like(args, rootType, false);
+            case LIKE_IC:
+            case LIKE_ESCAPE_IC:
+                return like(args, rootType, true);
+            default:
+                throw new IllegalArgumentException("unsupported operator: " + operator);
+        }
+    }
+
+    @FunctionalInterface
+    private interface CompareResult {
+        boolean test(int compare);
+    }
+
+    @FunctionalInterface
+    private interface StringTest {
+        boolean test(String value, String argument);
+    }
+
+    private static Condition compare(List<Expression<?>> args, Class<?> rootType, CompareResult result) {
+        Value left = value(args.get(0), rootType);
+        Value right = value(args.get(1), rootType);
+        return root -> {
+            Object l = left.apply(root);
+            Object r = right.apply(root);
+            if (l == null || r == null) {
+                return null;
+            }
+            return result.test(compareValues(l, r));
+        };
+    }
+
+    private static Condition strings(List<Expression<?>> args, Class<?> rootType, StringTest test) {
+        Value left = value(args.get(0), rootType);
+        Value right = value(args.get(1), rootType);
+        return root -> {
+            Object l = left.apply(root);
+            Object r = right.apply(root);
+            if (l == null || r == null) {
+                return null;
+            }
+            return test.test(l.toString(), r.toString());
+        };
+    }
+
+    // 상수 목록은 컴파일할 때 Set으로 만들어 둔다.
+    private static Condition in(List<Expression<?>> args, Class<?> rootType, boolean negate) {
+        Value value = value(args.get(0), rootType);
+        Expression<?> candidates = args.get(1);
+        if (!(candidates instanceof Constant) || !(((Constant<?>) candidates).getConstant() instanceof Collection)) {
+            throw new IllegalArgumentException("only constant collections are supported for in: " + candidates);
+        }
+        Set<Object> set = new HashSet<>();
+        boolean hasNull = false;
+        for (Object candidate : (Collection<?>) ((Constant<?>) candidates).getConstant()) {
+            if (candidate == null) {
+                hasNull = true;
+            } else {
+                set.add(normalize(candidate));
+            }
+        }
+        boolean containsNull = hasNull;
+        return root -> {
+            Object v = value.apply(root);
+            if (v == null) {
+                return null;
+            }
+            if (set.contains(normalize(v))) {
+                return !negate;
+            }
+            // x in (.., null) 에서 못 찾으면 unknown
+            return containsNull ? null : negate;
+        };
+    }
+
+    private static Condition like(List<Expression<?>> args, Class<?> rootType, boolean ignoreCase) {
+        Value value = value(args.get(0), rootType);
+        Expression<?> patternArg = args.get(1);
+        if (!(patternArg instanceof Constant)) {
+            throw new IllegalArgumentException("only constant like patterns are supported: " + patternArg);
+        }
+        // querydsl-jpa 는 like 패턴 안의 escape 문자('!')를 두 번 써서 넘기므로, escape 없는 like는 %, _ 말고 전부 글자 그대로다.
+        char escape = args.size() > 2 ? (Character) ((Constant<?>) args.get(2)).getConstant() : NO_ESCAPE;
+        Pattern pattern = likePattern(((Constant<?>) patternArg).getConstant().toString(), escape, ignoreCase);
+        return root -> {
+            Object v = value.apply(root);
+            return v == null ? null : pattern.matcher(v.toString()).matches();
+        };
+    }
+
+    static Pattern likePattern(String like, char escape, boolean ignoreCase) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+            if (escape != NO_ESCAPE && c == escape && i + 1 < like.length()) {
+                literal.append(like.charAt(++i));
+            } else if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        int flags = Pattern.DOTALL | (ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+        return Pattern.compile(regex.toString(), flags);
+    }
+
+    private static Value value(Expression<?> expression, Class<?> rootType) {
+        expression = ExpressionUtils.extract(expression);
+        if (expression instanceof Constant) {
+            Object constant = ((Constant<?>) expression).getConstant();
+            return root -> constant;
+        }
+        if (expression instanceof Path) {
+            return path((Path<?>) expression, rootType);
+        }
+        if (expression instanceof Operation) {
+            Operation<?> operation = (Operation<?>) expression;
+            Operator operator = operation.getOperator();
+            if (operator == Ops.LOWER || operator == Ops.UPPER || operator == Ops.TRIM || operator == Ops.STRING_LENGTH) {
+                Value inner = value(operation.getArg(0), rootType);
+                Function<String, Object> function = operator == Ops.LOWER ? PredicateCompiler::lower
+                        : operator == Ops.UPPER ? s -> s.toUpperCase(Locale.ROOT)
+                        : operator == Ops.TRIM ? String::trim
+                        : String::length;
+                return root -> {
+                    Object v = inner.apply(root);
+                    return v == null ? null : function.apply(v.toString());
+                };
+            }
+            if (Boolean.class.equals(operation.getType())) {
+                Condition condition = operation(operation, rootType);
+                return condition::test;
+            }
+        }
+        throw new IllegalArgumentException("unsupported expression: " + expression);
+    }
+
+    // member.team.name -> getTeam() 다음 getName(). 중간에 null이면 null
+    private static Value path(Path<?> path, Class<?> rootType) {
+        PathMetadata metadata = path.getMetadata();
+        if (metadata.isRoot()) {
+            if (!rootType.isAssignableFrom(path.getType())) {
+                throw new IllegalArgumentException("path root " + path + " is not a " + rootType.getSimpleName());
+            }
+            return root -> root;
+        }
+        if (metadata.getPathType() != PathType.PROPERTY) {
+            throw new IllegalArgumentException("unsupported path: " + path);
+        }
+        Path<?> parentPath = metadata.getParent();
+        Value parent = path(parentPath, rootType);
+        MethodHandle getter = getter(parentPath.getType(), metadata.getName());
+        return root -> {
+            Object owner = parent.apply(root);
+            if (owner == null) {
+                return null;
+            }
+            try {
+                return getter.invokeExact(owner);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    // (Object)Object 형태로 맞춰 두면 invokeExact로 부를 수 있다.
+    private static MethodHandle getter(Class<?> type, String property) {
+        String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String name : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = type.getMethod(name);
+                return MethodHandles.publicLookup().unreflect(method)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (NoSuchMethodException e) {
+                // 다음 이름으로
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("getter not accessible: " + type.getName() + "." + name, e);
+            }
+        }
+        throw new IllegalArgumentException("no getter for " + type.getName() + "." + property);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number && left.getClass() != right.getClass()) {
+            return toBigDecimal((Number) left).compareTo(toBigDecimal((Number) right));
+        }
+        if (left instanceof Comparable) {
+            return ((Comparable) left).compareTo(right);
+        }
+        // 엔티티 같은 비교 불가 값은 같은지 여부만
+        return Objects.equals(left, right) ? 0 : 1;
+    }
+
+    // IN 목록에서 Integer 10 과 Long 10 이 같게 잡히도록
+    private static Object normalize(Object value) {
+        if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        }
+        return value;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return new BigDecimal(number.toString());
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,12 +2,19 @@ package study.querydsl.repository.support;
 import com.querydsl.core.types.EntityPath;
 
 import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.hibernate.HibernateQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
@@ -15,8 +22,12 @@ import org.springframework.data.querydsl.SimpleEntityPathResolver;
 import org.springframework.data.repository.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.Assert;
+import study.querydsl.bulk.BulkWriteListeners;
+import study.querydsl.deadline.DeadlineJPAQueryFactory;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 /**
@@ -33,6 +44,8 @@ public abstract class Querydsl4RepositorySupport {
     private Querydsl querydsl;
     private EntityManager entityManager;
     private JPAQueryFactory queryFactory;
+    private BatchLookup batchLookup;
+    private BulkWriteListeners bulkWriteListeners;
 
     // 생성 시점에 도메인을 다 넘기고
     public Querydsl4RepositorySupport(Class<?> domainClass) {
@@ -52,13 +65,25 @@ public abstract class Querydsl4RepositorySupport {
         EntityPath path = resolver.createPath(entityInformation.getJavaType());
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
     }
+    @Autowired
+    public void setBatchLookup(BatchLookup batchLookup) {
+        this.batchLookup = batchLookup;
+    }
+    @Autowired
+    public void setBulkWriteListeners(BulkWriteListeners bulkWriteListeners) {
+        this.bulkWriteListeners = bulkWriteListeners;
+    }
+
+    // 주입이 다 끝난 뒤에 queryFactory를 만든다. (EntityManager, BulkWriteListeners 둘 다 필요)
     @PostConstruct
     public void validate() {
         Assert.notNull(entityManager, "EntityManager must not be null!");
+        Assert.notNull(bulkWriteListeners, "BulkWriteListeners must not be null!");
+        this.queryFactory = new DeadlineJPAQueryFactory(entityManager, bulkWriteListeners);
         Assert.notNull(querydsl, "Querydsl must not be null!");
         Assert.notNull(queryFactory, "QueryFactory must not be null!");
+        Assert.notNull(batchLookup, "BatchLookup must not be null!");
     }
     protected JPAQueryFactory getQueryFactory() {
         return queryFactory;
@@ -79,13 +104,72 @@ public abstract class Querydsl4RepositorySupport {
         return getQueryFactory().selectFrom(from);
     }
 
+    // 조회만 할 엔티티는 read-only로 가져온다.
+    // 하이버네이트가 dirty checking용 스냅샷을 만들지 않아 메모리를 아끼고, flush 때도 검사 대상에서 빠진다.
+    // 대신 값을 바꿔도 update 쿼리가 나가지 않는다.
+    protected <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        return query.setHint(QueryHints.READ_ONLY, true);
+    }
+
+    protected <T> JPAQuery<T> selectFromReadOnly(EntityPath<T> from) {
+        return readOnly(selectFrom(from));
+    }
+
+    // 영속성 컨텍스트 자체를 쓰지 않는 StatelessSession으로 조회한다. 1차 캐시, 스냅샷 모두 없다.
+    // 현재 트랜잭션의 커넥션을 그대로 쓰므로 flush 된 데이터는 보인다.
+    // 지연 로딩은 안 되므로 필요한 연관관계는 fetch join으로 가져와야 한다.
+    protected <T> List<T> fetchStateless(Function<HibernateQuery<?>, HibernateQuery<T>> query) {
+        SessionFactory sessionFactory = getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class);
+        return getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            StatelessSession session = sessionFactory.openStatelessSession(connection);
+            try {
+                return query.apply(new HibernateQuery<Void>(session)).fetch();
+            } finally {
+                session.close();
+            }
+        });
+    }
+
+    // id 목록 조회. 조각별 IN 절(2의 거듭제곱 길이로 패딩)로 나눠 읽고 요청한 id 순서대로 돌려준다. (BatchLookup)
+    protected <T> List<T> findAllByIds(EntityPath<T> from, NumberPath<Long> id, Collection<Long> ids, boolean parallel) {
+        PersistenceUnitUtil util = getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        return batchLookup.findAll(ids, chunk -> selectFrom(from)
+                .where(id.in(chunk))
+                .fetch(), entity -> (Long) util.getIdentifier(entity), parallel);
+    }
+
     // java8의 함수 사용해 두 번째 파라미터를 받은 것.
     // 쿼리가 날라오면 apply하면 실행이 되고 그걸 넘겨서 실행을 하고 그걸 가지고 content를 가져오고 값들을 넘기는 거.
+    // count 쿼리는 컨텐츠 쿼리에서 필요 없는 join, order by를 뺀 걸로 만든다. (CountQueries)
     protected <T> Page<T> applyPagination(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
         List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
 
-        return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+        return PageableExecutionUtils.getPage(content, pageable, () -> fetchCount(jpaQuery));
+    }
+
+    // applyPagination과 같은데 컨텐츠를 read-only 엔티티로 가져온다.
+    protected <T> Page<T> applyPaginationReadOnly(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        List<T> content = getQuerydsl().applyPagination(pageable, readOnly(jpaQuery)).fetch();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> fetchCount(jpaQuery));
+    }
+
+    private long fetchCount(JPAQuery<?> contentQuery) {
+        return CountQueries.fetchCount(getQueryFactory(), contentQuery);
+    }
+
+    // count 쿼리 없이 pageSize + 1 개를 가져와서 다음 페이지가 있는지만 본다. 무한 스크롤용
+    protected <T> Slice<T> applySlicing(Pageable pageable, Function<JPAQueryFactory, JPAQuery> contentQuery) {
+        JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
+        getQuerydsl().applySorting(pageable.getSort(), jpaQuery);
+        if (pageable.isPaged()) {
+            jpaQuery.offset(pageable.getOffset()).limit(Slices.fetchSize(pageable));
+        }
+        List<T> content = jpaQuery.fetch();
+
+        return Slices.of(content, pageable);
     }
 
     // 컨텐츠용 쿼리, 카운터용 쿼리 따로 분리해서 실행해서 조립해 넣어준다!
@@ -0,0 +1,96 @@
+package study.querydsl.repository.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key로 동시에 들어온 호출은 먼저 온 한 명(leader)만 실행하고 나머지는 그 결과를 같이 받는다.
+ * 끝난 결과는 들고 있지 않는다. (캐시가 아니다)
+ * leader가 실패하거나 maxWait 안에 끝나지 않으면 기다리던 호출 중 한 명이 새 leader가 되고 나머지는 그 결과를 다시 기다린다.
+ * 그래서 한 번의 실패나 느린 실행이 기다리던 호출까지 전부 실패시키지 않고, 기다리던 호출이 한꺼번에 DB로 몰리지도 않는다.
+ * 다시 기다릴 때도 처음 정한 마감 시각까지만 기다린다. 마감이 지나면 자리를 넘겨받거나 직접 실행한다.
+ * 결과 객체를 여러 호출자가 같이 쓰므로 읽기 전용으로만 다뤄야 한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public V execute(K key, long maxWaitMs, Supplier<V> loader) {
+        return executeUntil(key, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs), loader);
+    }
+
+    // deadlineNanos: System.nanoTime 기준 기다릴 수 있는 마지막 시각. 다시 들어갈 때마다 남은 시간을 새로 구한다.
+    public V executeUntil(K key, long deadlineNanos, Supplier<V> loader) {
+        while (true) {
+            CompletableFuture<V> mine = new CompletableFuture<>();
+            CompletableFuture<V> leader = inFlight.putIfAbsent(key, mine);
+            if (leader == null) {
+                return lead(key, mine, loader);
+            }
+
+            try {
+                V result = leader.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                shared.increment();
+                return result;
+            } catch (ExecutionException e) {
+                // leader의 예외는 그대로 받지 않는다. 실패한 future는 이미 빠졌으니 다시 들어가서 한 명이 새 leader가 된다.
+                fallbacks.increment();
+            } catch (TimeoutException e) {
+                // 느린 leader 자리를 넘겨받는다. 다른 호출이 먼저 넘겨받았으면 더 기다릴 시간이 없으니 직접 실행한다.
+                fallbacks.increment();
+                if (inFlight.replace(key, leader, mine)) {
+                    return lead(key, mine, loader);
+                }
+                executions.increment();
+                return loader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fallbacks.increment();
+                executions.increment();
+                return loader.get();
+            }
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> mine, Supplier<V> loader) {
+        executions.increment();
+        V result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        // 먼저 빼야 이후에 온 호출이 끝난 결과를 받지 않고 새로 실행한다.
+        inFlight.remove(key, mine);
+        mine.complete(result);
+        return result;
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getShared() {
+        return shared.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+}
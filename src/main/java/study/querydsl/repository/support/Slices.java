@@ -0,0 +1,26 @@
+package study.querydsl.repository.support;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+// pageSize + 1 개를 읽어 온 결과로 Slice를 만든다. 하나 더 있으면 다음 페이지가 있는 것.
+public final class Slices {
+
+    private Slices() {
+    }
+
+    public static int fetchSize(Pageable pageable) {
+        return pageable.getPageSize() + 1;
+    }
+
+    public static <T> Slice<T> of(List<T> content, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(content, pageable, false);
+        }
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+}
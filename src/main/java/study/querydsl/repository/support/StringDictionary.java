@@ -0,0 +1,38 @@
+package study.querydsl.repository.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 같은 값의 String을 한 인스턴스로 모으는 크기 제한 사전.
+ * 팀 이름처럼 값 종류가 적은 컬럼용이다. 가득 차면 더 넣지 않고 받은 값을 그대로 돌려준다.
+ */
+public class StringDictionary {
+
+    private final int maxSize;
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    public StringDictionary(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = values.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        // 동시에 넘칠 수는 있지만 maxSize 근처에서 멈춘다.
+        if (values.size() >= maxSize) {
+            return value;
+        }
+        existing = values.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
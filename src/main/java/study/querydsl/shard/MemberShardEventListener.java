@@ -0,0 +1,118 @@
+package study.querydsl.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 커밋된 Member/Team 변경을 샤드에 반영한다. 롤백된 변경은 오지 않는다.
+ * 샤드 반영에 실패해도 이미 커밋된 트랜잭션은 그대로 두고 로그만 남긴다.
+ */
+@Slf4j
+class MemberShardEventListener implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final Object UNKNOWN = new Object();
+
+    private final MemberShardWriter writer;
+
+    MemberShardEventListener(MemberShardWriter writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        try {
+            Object entity = event.getEntity();
+            if (entity instanceof Team) {
+                Team team = (Team) entity;
+                writer.teamSaved(team.getId(), team.getName());
+            } else if (entity instanceof Member) {
+                Member member = (Member) entity;
+                writer.memberSaved(member.getId(), member.getUsername(), member.getAge(), teamIdOf(member.getTeam()),
+                        true, teamIdOf(member.getTeam()));
+            }
+        } catch (RuntimeException e) {
+            log.warn("member shard insert failed, call backfill(): {}", event.getEntity(), e);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        try {
+            Object entity = event.getEntity();
+            if (entity instanceof Team) {
+                Team team = (Team) entity;
+                writer.teamSaved(team.getId(), team.getName());
+            } else if (entity instanceof Member) {
+                Member member = (Member) entity;
+                Object previousTeam = teamOf(event.getOldState(), event.getPersister());
+                writer.memberSaved(member.getId(), member.getUsername(), member.getAge(), teamIdOf(member.getTeam()),
+                        previousTeam != UNKNOWN, teamIdOf(previousTeam));
+            }
+        } catch (RuntimeException e) {
+            log.warn("member shard update failed, call backfill(): {}", event.getEntity(), e);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        try {
+            if (event.getEntity() instanceof Team) {
+                writer.teamDeleted((Long) event.getId());
+            } else if (event.getEntity() instanceof Member) {
+                Object team = teamOf(event.getDeletedState(), event.getPersister());
+                writer.memberDeleted((Long) event.getId(), team != UNKNOWN, teamIdOf(team));
+            }
+        } catch (RuntimeException e) {
+            log.warn("member shard delete failed, call backfill(): {}", event.getEntity(), e);
+        }
+    }
+
+    // 이전 상태의 team 값. 상태가 없거나(분리된 엔티티 update) 아직 안 읽은 지연 속성이면 UNKNOWN
+    private static Object teamOf(Object[] state, EntityPersister persister) {
+        if (state == null) {
+            return UNKNOWN;
+        }
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        return team == null || team instanceof Team ? team : UNKNOWN;
+    }
+
+    // 프록시를 초기화하지 않고 id만 꺼낸다.
+    private static Long teamIdOf(Object value) {
+        if (!(value instanceof Team)) {
+            return null;
+        }
+        Team team = (Team) value;
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return team.getId();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        Class<?> type = persister.getMappedClass();
+        return type == Member.class || type == Team.class;
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+}
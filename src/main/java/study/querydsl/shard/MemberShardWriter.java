@@ -0,0 +1,198 @@
+package study.querydsl.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.bulk.AfterCommit;
+import study.querydsl.bulk.BulkClause;
+import study.querydsl.bulk.BulkWriteListener;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 기본 DB의 team/member를 샤드로 옮긴다.
+ * - backfill(): 샤드를 비우고 기본 DB에서 id 순서로 잘라 읽어 team_id 해시대로 다시 채운다. (기동 시 한 번)
+ * - 이후에는 커밋된 JPA insert/update/delete를 같은 id로 샤드에 반영한다. 팀 이름 변경은 팀 디렉터리도 바꾼다.
+ * 샤드 반영은 커밋 뒤라 기본 DB와 한 트랜잭션이 아니다. 실패하면 로그를 남기고 backfill()로 맞춘다.
+ * 엔티티 이벤트가 없는 쓰기(DeadlineJPAQueryFactory의 Member/Team clause, 기본 JdbcTemplate으로 member/team에 쓴 것)는
+ * 커밋 뒤에 backfill()을 다시 한다. 트랜잭션 하나에서 여러 번 써도 한 번이다.
+ * backfill 동안은 샤드가 비었다가 채워지니 SHARDED 검색은 기본 DB로 보낸다. (ShardedMemberRepository.isBackfilling)
+ * 문자열 JPQL/native executeUpdate로 바꾼 데이터는 알 수 없으니 backfill()을 직접 불러야 한다.
+ */
+@Slf4j
+public class MemberShardWriter implements BulkWriteListener {
+
+    private final MemberShards shards;
+    private final ShardedMemberRepository repository;
+    private final JdbcTemplate primary;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ShardingProperties properties;
+    // backfill 도중 들어온 커밋 이벤트가 복사본에 덮이지 않게 backfill은 쓰기 잠금, 이벤트 반영은 읽기 잠금
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public MemberShardWriter(MemberShards shards, ShardedMemberRepository repository, JdbcTemplate primary,
+                             EntityManagerFactory entityManagerFactory, ShardingProperties properties) {
+        this.shards = shards;
+        this.repository = repository;
+        this.primary = primary;
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        MemberShardEventListener listener = new MemberShardEventListener(this);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (properties.isBackfillOnStartup()) {
+            backfill();
+        }
+    }
+
+    public void backfill() {
+        long start = System.nanoTime();
+        // 잠금을 기다리는 동안에도 검색은 기본 DB로 간다.
+        repository.beginBackfill();
+        lock.writeLock().lock();
+        try {
+            for (JdbcTemplate shard : shards.all()) {
+                shard.update("delete from member");
+                shard.update("delete from team");
+            }
+            long teams = copy("select id, name from team where id > ? order by id limit ?",
+                    "insert into team (id, name) values (?, ?)", 0);
+            long members = copy("select member_id, age, username, team_id from member where member_id > ? order by member_id limit ?",
+                    "insert into member (member_id, age, username, team_id) values (?, ?, ?, ?)", 3);
+            repository.reloadTeamDirectory();
+            log.info("member shards backfilled: {} teams, {} members in {} ms", teams, members,
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+            repository.endBackfill();
+        }
+    }
+
+    @Override
+    public void beforeBulkClause(BulkClause clause) {
+        if (clause.targets(Member.class) || clause.targets(Team.class)) {
+            backfillAfterCommit();
+        }
+    }
+
+    @Override
+    public void afterJdbcWrite(String table) {
+        if ("member".equals(table) || "team".equals(table)) {
+            backfillAfterCommit();
+        }
+    }
+
+    private void backfillAfterCommit() {
+        AfterCommit.runOnce(this, this::backfill);
+    }
+
+    // 첫 컬럼(id) 기준으로 chunk 크기씩 잘라 읽고, routeColumn(team id) 해시로 샤드별 batch insert
+    private long copy(String select, String insert, int routeColumn) {
+        int chunkSize = properties.getBackfillChunkSize();
+        long lastId = 0;
+        long copied = 0;
+        while (true) {
+            List<Object[]> rows = primary.query(select, (rs, rowNum) -> {
+                Object[] row = new Object[rs.getMetaData().getColumnCount()];
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = rs.getObject(i + 1);
+                }
+                return row;
+            }, lastId, chunkSize);
+            if (rows.isEmpty()) {
+                return copied;
+            }
+            List<List<Object[]>> byShard = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                byShard.add(new ArrayList<>());
+            }
+            for (Object[] row : rows) {
+                byShard.get(shards.shardOf(toLong(row[routeColumn]))).add(row);
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                if (!byShard.get(i).isEmpty()) {
+                    shards.shard(i).batchUpdate(insert, byShard.get(i));
+                }
+            }
+            copied += rows.size();
+            lastId = toLong(rows.get(rows.size() - 1)[0]);
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    void teamSaved(long teamId, String name) {
+        lock.readLock().lock();
+        try {
+            repository.saveTeam(teamId, name);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void teamDeleted(long teamId) {
+        lock.readLock().lock();
+        try {
+            repository.deleteTeam(teamId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * member를 팀 샤드에 쓴다. 팀이 바뀌었으면 예전 샤드에서 지운다.
+     * previousTeamKnown이 false면(예전 상태가 없는 update) 다른 샤드 모두에서 지운다.
+     */
+    void memberSaved(long memberId, String username, int age, Long teamId, boolean previousTeamKnown, Long previousTeamId) {
+        lock.readLock().lock();
+        try {
+            int target = shards.shardOf(teamId);
+            if (!previousTeamKnown) {
+                repository.deleteMemberExcept(memberId, target);
+            } else if (shards.shardOf(previousTeamId) != target) {
+                repository.deleteMember(memberId, previousTeamId);
+            }
+            repository.saveMember(memberId, username, age, teamId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void memberDeleted(long memberId, boolean teamKnown, Long teamId) {
+        lock.readLock().lock();
+        try {
+            if (teamKnown) {
+                repository.deleteMember(memberId, teamId);
+            } else {
+                repository.deleteMemberExcept(memberId, -1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
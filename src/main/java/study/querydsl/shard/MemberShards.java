@@ -0,0 +1,72 @@
+package study.querydsl.shard;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.deadline.DeadlineJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 샤드별 DataSource 묶음. member / team 은 team_id 해시로 같은 샤드에 들어간다.
+ * 팀이 없는 member는 0번 샤드.
+ */
+public class MemberShards implements AutoCloseable {
+
+    private static final String[] SCHEMA = {
+            "create table if not exists team (id bigint primary key, name varchar(255))",
+            "create table if not exists member (member_id bigint primary key, age integer not null, username varchar(255), team_id bigint)",
+            "create index if not exists member_team_id_idx on member (team_id)",
+            "create index if not exists member_username_idx on member (username)"
+    };
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+
+    public MemberShards(ShardingProperties properties) {
+        for (int i = 0; i < properties.getShards(); i++) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("member-shard-" + i);
+            config.setJdbcUrl(String.format(properties.getUrlTemplate(), i));
+            config.setUsername(properties.getUsername());
+            config.setPassword(properties.getPassword());
+            config.setMaximumPoolSize(properties.getPoolSizePerShard());
+            HikariDataSource dataSource = new HikariDataSource(config);
+            dataSources.add(dataSource);
+
+            JdbcTemplate jdbcTemplate = new DeadlineJdbcTemplate(dataSource);
+            for (String ddl : SCHEMA) {
+                jdbcTemplate.execute(ddl);
+            }
+            jdbcTemplates.add(jdbcTemplate);
+        }
+    }
+
+    public int size() {
+        return jdbcTemplates.size();
+    }
+
+    public JdbcTemplate shard(int index) {
+        return jdbcTemplates.get(index);
+    }
+
+    public List<JdbcTemplate> all() {
+        return Collections.unmodifiableList(jdbcTemplates);
+    }
+
+    public int shardOf(Long teamId) {
+        if (teamId == null) {
+            return 0;
+        }
+        // 연속된 id가 한 샤드에 몰리지 않도록 섞어서 나눈다.
+        long h = teamId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) size());
+    }
+
+    @Override
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,268 @@
+package study.querydsl.shard;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.deadline.QueryDeadline;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.support.Slices;
+import study.querydsl.repository.sql.MemberSqlQueries;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.repository.sql.MemberSqlQueries.MEMBER_TEAM_DTO_MAPPER;
+import static study.querydsl.repository.sql.MemberSqlQueries.bindings;
+import static study.querydsl.repository.sql.MemberSqlQueries.pagedBindings;
+import static study.querydsl.repository.sql.MemberSqlQueries.shapeOf;
+
+/**
+ * team_id 해시로 나눈 샤드들에 대한 scatter-gather 검색.
+ * 샤드 데이터는 MemberShardWriter가 기본 DB에서 복사(backfill)하고 JPA 커밋을 따라 채운다.
+ * teamName 조건이 있으면 그 팀이 있는 샤드에만, 아니면 모든 샤드에 병렬로 보내고
+ * 샤드별로 정렬된 결과를 k-way merge 해서 정렬/페이징을 맞춘다.
+ */
+public class ShardedMemberRepository implements MemberRepositoryCustom, AutoCloseable {
+
+    private final MemberShards shards;
+    private final MemberSqlQueries queries = new MemberSqlQueries();
+    private final ExecutorService executor;
+
+    // 팀 이름 -> 팀 id. teamName 검색을 샤드 하나로 보내기 위한 작은 디렉터리
+    private final Map<String, Set<Long>> teamDirectory = new ConcurrentHashMap<>();
+    // 팀 id -> 지금 이름. 이름이 바뀌면 예전 이름에서 빼기 위해
+    private final Map<Long, String> teamNames = new ConcurrentHashMap<>();
+    // 진행 중이거나 잠금을 기다리는 backfill 수. 0이 아니면 샤드가 기본 DB와 다를 수 있다.
+    private final AtomicInteger backfills = new AtomicInteger();
+
+    public ShardedMemberRepository(MemberShards shards) {
+        this.shards = shards;
+        this.executor = Executors.newFixedThreadPool(shards.size());
+        reloadTeamDirectory();
+    }
+
+    void beginBackfill() {
+        backfills.incrementAndGet();
+    }
+
+    void endBackfill() {
+        backfills.decrementAndGet();
+    }
+
+    // true면 샤드를 다시 채우는 중이다. 검색은 기본 DB로 보낸다. (MemberRepositoryImpl)
+    public boolean isBackfilling() {
+        return backfills.get() > 0;
+    }
+
+    synchronized void reloadTeamDirectory() {
+        teamDirectory.clear();
+        teamNames.clear();
+        for (JdbcTemplate shard : shards.all()) {
+            shard.query("select id, name from team", rs -> {
+                registerTeam(rs.getLong(1), rs.getString(2));
+            });
+        }
+    }
+
+    private synchronized void registerTeam(long teamId, String name) {
+        String previous = teamNames.put(teamId, name);
+        if (previous != null && !previous.equals(name)) {
+            unregisterName(previous, teamId);
+        }
+        teamDirectory.computeIfAbsent(name, key -> ConcurrentHashMap.newKeySet()).add(teamId);
+    }
+
+    private synchronized void unregisterTeam(long teamId) {
+        String name = teamNames.remove(teamId);
+        if (name != null) {
+            unregisterName(name, teamId);
+        }
+    }
+
+    private void unregisterName(String name, long teamId) {
+        teamDirectory.computeIfPresent(name, (key, ids) -> {
+            ids.remove(teamId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // 쓰기는 MemberShardWriter가 JPA 커밋 이벤트와 backfill로만 한다. id는 기본 DB(hibernate_sequence)의 것을 그대로 쓴다.
+    void saveTeam(long teamId, String name) {
+        shards.shard(shards.shardOf(teamId)).update("merge into team (id, name) key (id) values (?, ?)", teamId, name);
+        registerTeam(teamId, name);
+    }
+
+    void deleteTeam(long teamId) {
+        shards.shard(shards.shardOf(teamId)).update("delete from team where id = ?", teamId);
+        unregisterTeam(teamId);
+    }
+
+    void saveMember(long memberId, String username, int age, Long teamId) {
+        shards.shard(shards.shardOf(teamId)).update(
+                "merge into member (member_id, age, username, team_id) key (member_id) values (?, ?, ?, ?)",
+                memberId, age, username, teamId);
+    }
+
+    // teamId 팀이 있는 샤드에서 지운다.
+    void deleteMember(long memberId, Long teamId) {
+        shards.shard(shards.shardOf(teamId)).update("delete from member where member_id = ?", memberId);
+    }
+
+    // 예전 팀을 모를 때. keep 샤드만 빼고 모든 샤드에서 지운다. (keep이 -1이면 전부)
+    void deleteMemberExcept(long memberId, int keep) {
+        for (int i = 0; i < shards.size(); i++) {
+            if (i != keep) {
+                shards.shard(i).update("delete from member where member_id = ?", memberId);
+            }
+        }
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        String sql = queries.content(shapeOf(condition), Sort.unsorted());
+        List<List<MemberTeamDto>> results = scatter(condition, shard -> shard.query(sql, MEMBER_TEAM_DTO_MAPPER,
+                bindings(condition).toArray()));
+        return merge(results, MemberSqlQueries.comparator(Sort.unsorted()), 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = fetchPage(condition, pageable);
+        return new PageImpl<>(content, pageable, count(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = fetchPage(condition, pageable);
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(condition));
+    }
+
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return Slices.of(fetchPage(condition, pageable, Slices.fetchSize(pageable)), pageable);
+    }
+
+    private List<MemberTeamDto> fetchPage(MemberSearchCondition condition, Pageable pageable) {
+        return fetchPage(condition, pageable, pageable.getPageSize());
+    }
+
+    // 샤드마다 앞에서부터 offset + size 개를 가져와 합친 뒤 offset 만큼 건너뛴다.
+    private List<MemberTeamDto> fetchPage(MemberSearchCondition condition, Pageable pageable, int size) {
+        Sort sort = pageable.getSort();
+        String sql = queries.contentPaged(shapeOf(condition), sort);
+        long offset = pageable.getOffset();
+        int perShardLimit = (int) Math.min(Integer.MAX_VALUE, offset + size);
+
+        List<List<MemberTeamDto>> results = scatter(condition, shard -> shard.query(sql, MEMBER_TEAM_DTO_MAPPER,
+                pagedBindings(condition, 0, perShardLimit).toArray()));
+        return merge(results, MemberSqlQueries.comparator(sort), offset, size);
+    }
+
+    private long count(MemberSearchCondition condition) {
+        String sql = queries.count(shapeOf(condition));
+        return scatter(condition, shard -> shard.queryForObject(sql, Long.class, bindings(condition).toArray()))
+                .stream()
+                .mapToLong(count -> count != null ? count : 0L)
+                .sum();
+    }
+
+    private <R> List<R> scatter(MemberSearchCondition condition, Function<JdbcTemplate, R> query) {
+        Set<Integer> targets = targetShards(condition);
+        if (targets.size() == 1) {
+            return Collections.singletonList(query.apply(shards.shard(targets.iterator().next())));
+        }
+        List<CompletableFuture<R>> futures = new ArrayList<>(targets.size());
+        for (Integer target : targets) {
+            futures.add(CompletableFuture.supplyAsync(
+                    QueryDeadline.propagate(() -> query.apply(shards.shard(target))), executor));
+        }
+        List<R> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    // teamName이 있으면 그 이름의 팀들이 있는 샤드만. 없는 팀 이름이면 빈 집합
+    Set<Integer> targetShards(MemberSearchCondition condition) {
+        Set<Integer> targets = new TreeSet<>();
+        if (hasText(condition.getTeamName())) {
+            for (Long teamId : teamDirectory.getOrDefault(condition.getTeamName(), Collections.emptySet())) {
+                targets.add(shards.shardOf(teamId));
+            }
+            return targets;
+        }
+        for (int i = 0; i < shards.size(); i++) {
+            targets.add(i);
+        }
+        return targets;
+    }
+
+    // 샤드별로 정렬된 리스트를 k-way merge. skip 만큼 버리고 limit 만큼만 모은다.
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sortedLists, Comparator<MemberTeamDto> comparator,
+                                     long skip, int limit) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<MemberTeamDto> list : sortedLists) {
+            if (!list.isEmpty()) {
+                heap.add(new Cursor(list));
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long skipped = 0;
+        while (!heap.isEmpty() && result.size() < limit) {
+            Cursor cursor = heap.poll();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                result.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private static class Cursor {
+        private final List<MemberTeamDto> list;
+        private int index;
+
+        private Cursor(List<MemberTeamDto> list) {
+            this.list = list;
+        }
+
+        private MemberTeamDto current() {
+            return list.get(index);
+        }
+
+        private boolean advance() {
+            return ++index < list.size();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package study.querydsl.shard;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+// sharding.enabled=true 일 때만 샤드 DataSource들을 띄운다.
+@Configuration
+@ConditionalOnProperty(prefix = "sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public MemberShards memberShards(ShardingProperties properties) {
+        return new MemberShards(properties);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardedMemberRepository shardedMemberRepository(MemberShards memberShards) {
+        return new ShardedMemberRepository(memberShards);
+    }
+
+    @Bean
+    @Lazy(false) // lazy-initialization 이어도 기동 때 Hibernate 리스너를 걸어야 한다.
+    public MemberShardWriter memberShardWriter(MemberShards memberShards, ShardedMemberRepository shardedMemberRepository,
+                                               JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory,
+                                               ShardingProperties properties) {
+        return new MemberShardWriter(memberShards, shardedMemberRepository, jdbcTemplate, entityManagerFactory, properties);
+    }
+}
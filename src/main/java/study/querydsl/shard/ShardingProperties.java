@@ -0,0 +1,28 @@
+package study.querydsl.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// member를 team_id 해시로 나눠 담는 로컬 H2 샤드 설정
+@Getter @Setter
+@ConfigurationProperties("sharding")
+public class ShardingProperties {
+
+    private boolean enabled = false;
+
+    private int shards = 4;
+
+    // %d 자리에 샤드 번호가 들어간다.
+    private String urlTemplate = "jdbc:h2:file:./build/shards/member-%d";
+    private String username = "sa";
+    private String password = "";
+
+    private int poolSizePerShard = 4;
+
+    // 기동 때 샤드를 비우고 기본 DB의 team/member를 복사한다.
+    private boolean backfillOnStartup = true;
+
+    // backfill 때 기본 DB에서 한 번에 읽는 행 수 (id 순서로 잘라 읽는다)
+    private int backfillChunkSize = 10_000;
+}
@@ -0,0 +1,47 @@
+package study.querydsl.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * AppCDS 아카이브 학습용 실행 (./gradlew appCdsArchive).
+ * 준비가 끝나면 member 검색 요청을 한 번 보내 웹/JPA 경로 클래스까지 로딩시킨 뒤 JVM을 종료한다.
+ * 종료 시점에 -XX:ArchiveClassesAtExit 로 로딩된 클래스가 아카이브에 덤프된다.
+ */
+@Slf4j
+@Profile("cds-training")
+@Component
+public class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String FIRST_REQUEST = "/v3/members?page=0&size=1";
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        if (context instanceof WebServerApplicationContext) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + FIRST_REQUEST).openConnection();
+                try (InputStream body = connection.getInputStream()) {
+                    body.readAllBytes();
+                }
+                log.info("cds training request status={}", connection.getResponseCode());
+            } catch (IOException e) {
+                // 요청이 실패해도 기동 경로 클래스는 이미 로딩됐으니 아카이브는 만든다.
+                log.warn("cds training request failed", e);
+            }
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.stats;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 트랜잭션 하나에서 생긴 팀별 변화량. 커밋 직전에 team_stats에, 커밋 후에 TeamStatsView에 반영한다.
+ */
+class TeamStatsDelta {
+
+    private final Map<Long, Change> changes = new HashMap<>();
+    private final Map<Long, String> teamNames = new HashMap<>();
+    private final Set<Long> removedTeams = new HashSet<>();
+    // 이벤트로 알 수 없는 변경이 있었으면 커밋 후 전체를 다시 계산한다.
+    private boolean stale;
+    // 커밋 직전에 뷰 read lock을 잡았는지. 잡았으면 커밋 후에 푼다.
+    private boolean viewLocked;
+
+    void add(Long teamId, int age) {
+        if (teamId != null) {
+            changes.computeIfAbsent(teamId, id -> new Change()).add(age, 1);
+        }
+    }
+
+    void remove(Long teamId, int age) {
+        if (teamId != null) {
+            changes.computeIfAbsent(teamId, id -> new Change()).add(age, -1);
+        }
+    }
+
+    void teamSaved(Long teamId, String name) {
+        teamNames.put(teamId, name);
+        removedTeams.remove(teamId);
+    }
+
+    void teamRemoved(Long teamId) {
+        teamNames.remove(teamId);
+        removedTeams.add(teamId);
+    }
+
+    void markStale() {
+        stale = true;
+    }
+
+    boolean isStale() {
+        return stale;
+    }
+
+    void markViewLocked() {
+        viewLocked = true;
+    }
+
+    boolean isViewLocked() {
+        return viewLocked;
+    }
+
+    Map<Long, Change> changes() {
+        return changes;
+    }
+
+    Map<Long, String> teamNames() {
+        return teamNames;
+    }
+
+    Set<Long> removedTeams() {
+        return removedTeams;
+    }
+
+    static class Change {
+        long count;
+        long sum;
+        // 나이별 증감. 0이 된 것은 지운다.
+        final Map<Integer, Long> ages = new HashMap<>();
+        boolean removed;
+
+        private void add(int age, long count) {
+            this.count += count;
+            this.sum += age * count;
+            ages.merge(age, count, (a, b) -> a + b == 0 ? null : a + b);
+            removed |= count < 0;
+        }
+    }
+}
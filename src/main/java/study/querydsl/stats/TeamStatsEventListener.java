@@ -0,0 +1,97 @@
+package study.querydsl.stats;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.Objects;
+
+/**
+ * flush 때 나가는 Member/Team insert/update/delete를 트랜잭션별 TeamStatsDelta에 모은다.
+ * 실제 반영은 커밋 시점에 TeamStatsService가 한다.
+ */
+class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final TeamStatsService service;
+
+    TeamStatsEventListener(TeamStatsService service) {
+        this.service = service;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            service.deltaFor(event.getSession())
+                    .add(teamIdOf(state(persister, event.getState(), "team")),
+                            (Integer) state(persister, event.getState(), "age"));
+        } else if (event.getEntity() instanceof Team) {
+            Team team = (Team) event.getEntity();
+            service.deltaFor(event.getSession()).teamSaved(team.getId(), team.getName());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            TeamStatsDelta delta = service.deltaFor(event.getSession());
+            if (event.getOldState() == null) {
+                // 이전 값을 모르면 커밋 후 다시 계산
+                delta.markStale();
+                service.refreshAfterCommit();
+                return;
+            }
+            EntityPersister persister = event.getPersister();
+            Long oldTeamId = teamIdOf(state(persister, event.getOldState(), "team"));
+            Long newTeamId = teamIdOf(state(persister, event.getState(), "team"));
+            int oldAge = (Integer) state(persister, event.getOldState(), "age");
+            int newAge = (Integer) state(persister, event.getState(), "age");
+            if (oldAge != newAge || !Objects.equals(oldTeamId, newTeamId)) {
+                delta.remove(oldTeamId, oldAge);
+                delta.add(newTeamId, newAge);
+            }
+        } else if (event.getEntity() instanceof Team) {
+            Team team = (Team) event.getEntity();
+            service.deltaFor(event.getSession()).teamSaved(team.getId(), team.getName());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            service.deltaFor(event.getSession())
+                    .remove(teamIdOf(state(persister, event.getDeletedState(), "team")),
+                            (Integer) state(persister, event.getDeletedState(), "age"));
+        } else if (event.getEntity() instanceof Team) {
+            service.deltaFor(event.getSession()).teamRemoved((Long) event.getId());
+        }
+    }
+
+    private static Object state(EntityPersister persister, Object[] state, String property) {
+        return state[persister.getEntityMetamodel().getPropertyIndex(property)];
+    }
+
+    // 프록시를 초기화하지 않고 id만
+    private static Long teamIdOf(Object team) {
+        if (team == null) {
+            return null;
+        }
+        if (team instanceof HibernateProxy) {
+            return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+        }
+        return ((Team) team).getId();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,322 @@
+package study.querydsl.stats;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.bulk.AfterCommit;
+import study.querydsl.bulk.BulkClause;
+import study.querydsl.bulk.BulkWriteListener;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * 팀별 count/sum/avg/max/min을 GROUP BY 없이 바로 돌려준다.
+ * - member insert/delete/나이·팀 변경은 Hibernate 이벤트로 모아서 커밋 직전에 team_stats에, 커밋 후에 메모리 뷰에 반영
+ * - Querydsl 벌크 update/delete(JPAQueryFactory 빈)는 실행 직전에 영향 받는 팀을 읽어 두고 커밋 후 그 팀만 다시 계산
+ * - 기본 JdbcTemplate으로 member/team에 쓰면 커밋 후 전체를 다시 계산 (트랜잭션마다 한 번)
+ * - 그 밖의 문자열 JPQL/native update 뒤에는 refresh() 또는 refreshAfterCommit()을 부른다.
+ * 다시 계산하는 동안에는 변화량을 반영하는 커밋을 막는다. (viewLock)
+ * 읽은 스냅샷에 이미 들어간 커밋의 변화량을 새 뷰에 또 더하거나, 스냅샷 뒤 커밋을 버려질 옛 뷰에 더하지 않도록.
+ */
+@Slf4j
+@Service
+@Lazy(false) // lazy-initialization 이어도 기동 때 Hibernate 리스너를 걸어야 한다.
+public class TeamStatsService implements BulkWriteListener {
+
+    private static final int TEAM_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final EntityManagerFactory entityManagerFactory;
+    // refresh는 호출한 쪽 트랜잭션과 상관없이 따로 커밋한다.
+    private final TransactionTemplate refreshTransaction;
+
+    // 진행 중인 트랜잭션(세션)별 변화량
+    private final Map<SharedSessionContractImplementor, TeamStatsDelta> deltas = new ConcurrentHashMap<>();
+    private volatile TeamStatsView view = new TeamStatsView();
+    // 커밋(team_stats 갱신 ~ 뷰 반영)은 read, 다시 계산(스냅샷 읽기 ~ 뷰 교체)은 write
+    private final ReentrantReadWriteLock viewLock = new ReentrantReadWriteLock();
+
+    public TeamStatsService(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                            EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.refreshTransaction = new TransactionTemplate(transactionManager);
+        this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        TeamStatsEventListener listener = new TeamStatsEventListener(this);
+        registry.appendListeners(EventType.POST_INSERT, listener);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+    }
+
+    public TeamStatsDto get(Long teamId) {
+        return view.get(teamId);
+    }
+
+    public List<TeamStatsDto> all() {
+        return view.all();
+    }
+
+    // 세션의 첫 변경 때 커밋 전/후 처리를 한 번만 걸어 둔다.
+    TeamStatsDelta deltaFor(EventSource session) {
+        return deltas.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess(this::writeStats);
+            session.getActionQueue().registerProcess(this::afterCompletion);
+            return new TeamStatsDelta();
+        });
+    }
+
+    // 커밋 직전, 같은 커넥션/트랜잭션에서 team_stats 갱신
+    private void writeStats(SessionImplementor session) {
+        TeamStatsDelta delta = deltas.get(session);
+        if (delta == null || delta.isStale()) {
+            return;
+        }
+        // 커밋이 끝나고 뷰에 반영할 때까지 (afterCompletion에서 푼다)
+        viewLock.readLock().lock();
+        delta.markViewLocked();
+        session.doWork(connection -> {
+            for (Long teamId : delta.teamNames().keySet()) {
+                insertIfAbsent(connection, teamId);
+            }
+            for (Map.Entry<Long, TeamStatsDelta.Change> entry : delta.changes().entrySet()) {
+                Long teamId = entry.getKey();
+                TeamStatsDelta.Change change = entry.getValue();
+                insertIfAbsent(connection, teamId);
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "update team_stats set member_count = member_count + ?, age_sum = age_sum + ? where team_id = ?")) {
+                    ps.setLong(1, change.count);
+                    ps.setLong(2, change.sum);
+                    ps.setLong(3, teamId);
+                    ps.executeUpdate();
+                }
+                // 빠진 나이가 있으면 min/max는 그 팀 member로 다시 구한다. (team_id 인덱스)
+                String minMax = change.removed
+                        ? "update team_stats set age_min = (select min(age) from member where team_id = ?),"
+                        + " age_max = (select max(age) from member where team_id = ?) where team_id = ?"
+                        : "update team_stats set age_min = least(coalesce(age_min, ?), ?),"
+                        + " age_max = greatest(coalesce(age_max, ?), ?) where team_id = ?";
+                try (PreparedStatement ps = connection.prepareStatement(minMax)) {
+                    if (change.removed) {
+                        ps.setLong(1, teamId);
+                        ps.setLong(2, teamId);
+                        ps.setLong(3, teamId);
+                    } else {
+                        int min = change.ages.keySet().stream().min(Integer::compare).orElse(Integer.MAX_VALUE);
+                        int max = change.ages.keySet().stream().max(Integer::compare).orElse(Integer.MIN_VALUE);
+                        ps.setInt(1, min);
+                        ps.setInt(2, min);
+                        ps.setInt(3, max);
+                        ps.setInt(4, max);
+                        ps.setLong(5, teamId);
+                    }
+                    ps.executeUpdate();
+                }
+            }
+            for (Long teamId : delta.removedTeams()) {
+                try (PreparedStatement ps = connection.prepareStatement("delete from team_stats where team_id = ?")) {
+                    ps.setLong(1, teamId);
+                    ps.executeUpdate();
+                }
+            }
+        });
+    }
+
+    private static void insertIfAbsent(Connection connection, Long teamId) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "insert into team_stats (team_id, member_count, age_sum) select ?, 0, 0"
+                        + " where not exists (select 1 from team_stats where team_id = ?)")) {
+            ps.setLong(1, teamId);
+            ps.setLong(2, teamId);
+            ps.executeUpdate();
+        }
+    }
+
+    // 커밋됐을 때만 메모리 뷰에 반영. 롤백이면 버린다. (stale이면 refreshAfterCommit이 다시 계산)
+    private void afterCompletion(boolean success, SharedSessionContractImplementor session) {
+        TeamStatsDelta delta = deltas.remove(session);
+        if (delta == null) {
+            return;
+        }
+        try {
+            if (success && !delta.isStale()) {
+                view.apply(delta);
+            }
+        } finally {
+            if (delta.isViewLocked()) {
+                viewLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * member 테이블에서 team_stats와 메모리 뷰를 다시 만든다.
+     * 벌크 update/delete, JdbcTemplate 적재처럼 엔티티 이벤트가 없는 변경 뒤에 부른다.
+     */
+    public synchronized void refresh() {
+        long start = System.nanoTime();
+        viewLock.writeLock().lock();
+        try {
+            refreshAll();
+        } finally {
+            viewLock.writeLock().unlock();
+        }
+        log.info("team stats refreshed in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void refreshAll() {
+        TeamStatsView loaded = refreshTransaction.execute(status -> {
+            jdbcTemplate.update("delete from team_stats");
+            jdbcTemplate.update("insert into team_stats (team_id, member_count, age_sum, age_min, age_max)"
+                    + " select t.id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+                    + " from team t left join member m on m.team_id = t.id group by t.id");
+
+            TeamStatsView rebuilt = new TeamStatsView();
+            jdbcTemplate.query("select id, name from team", rs -> {
+                rebuilt.putTeam(rs.getLong(1), rs.getString(2));
+            });
+            jdbcTemplate.query("select team_id, age, count(*) from member where team_id is not null group by team_id, age", rs -> {
+                rebuilt.addAges(rs.getLong(1), rs.getInt(2), rs.getLong(3));
+            });
+            return rebuilt;
+        });
+        view = loaded;
+    }
+
+    /**
+     * 주어진 팀만 member 테이블에서 다시 계산한다. (없어진 팀은 뷰에서 뺀다)
+     */
+    public synchronized void refresh(Collection<Long> teamIds) {
+        List<Long> ids = new ArrayList<>(teamIds);
+        if (ids.isEmpty()) {
+            return;
+        }
+        viewLock.writeLock().lock();
+        try {
+            refreshTeams(ids);
+        } finally {
+            viewLock.writeLock().unlock();
+        }
+    }
+
+    private void refreshTeams(List<Long> ids) {
+        TeamStatsView loaded = refreshTransaction.execute(status -> {
+            TeamStatsView rebuilt = new TeamStatsView();
+            for (int from = 0; from < ids.size(); from += TEAM_CHUNK_SIZE) {
+                Object[] chunk = ids.subList(from, Math.min(from + TEAM_CHUNK_SIZE, ids.size())).toArray();
+                String in = String.join(", ", Collections.nCopies(chunk.length, "?"));
+                jdbcTemplate.update("delete from team_stats where team_id in (" + in + ")", chunk);
+                jdbcTemplate.update("insert into team_stats (team_id, member_count, age_sum, age_min, age_max)"
+                        + " select t.id, count(m.member_id), coalesce(sum(m.age), 0), min(m.age), max(m.age)"
+                        + " from team t left join member m on m.team_id = t.id where t.id in (" + in + ") group by t.id", chunk);
+                jdbcTemplate.query("select id, name from team where id in (" + in + ")", rs -> {
+                    rebuilt.putTeam(rs.getLong(1), rs.getString(2));
+                }, chunk);
+                jdbcTemplate.query("select team_id, age, count(*) from member where team_id in (" + in + ") group by team_id, age", rs -> {
+                    rebuilt.addAges(rs.getLong(1), rs.getInt(2), rs.getLong(3));
+                }, chunk);
+            }
+            return rebuilt;
+        });
+        view.replace(ids, loaded);
+    }
+
+    // 트랜잭션 안이면 커밋 후에, 아니면 바로 refresh. 한 트랜잭션에서 여러 번 불러도 한 번만
+    public void refreshAfterCommit() {
+        AfterCommit.runOnce(this, this::refresh);
+    }
+
+    public void refreshAfterCommit(Collection<Long> teamIds) {
+        afterCommit(() -> refresh(teamIds));
+    }
+
+    private static void afterCommit(Runnable refresh) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refresh.run();
+            }
+        });
+    }
+
+    /**
+     * Querydsl 벌크 update/delete 직전. 같은 트랜잭션에서 where에 걸리는 member의 팀을 읽어 두고 커밋 후 그 팀만 다시 계산한다.
+     * 팀을 옮기는 update는 옮겨 갈 팀을 알 수 없고, Team 벌크 변경은 이름/팀 목록이 바뀌니 전체를 다시 계산한다.
+     */
+    @Override
+    public void beforeBulkClause(BulkClause clause) {
+        if (clause.targets(Team.class) || (clause.targets(Member.class) && clause.updates("team"))) {
+            refreshAfterCommit();
+            return;
+        }
+        if (!clause.targets(Member.class) || (!clause.isDelete() && !clause.updates("age"))) {
+            return;
+        }
+        QMember target = new QMember(clause.getEntity().getMetadata());
+        List<Long> teamIds = new JPAQuery<Void>(entityManager)
+                .select(target.team.id)
+                .distinct()
+                .from(target)
+                .where(clause.whereArray())
+                .fetch();
+        refreshAfterCommit(teamIds.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    // team_stats는 여기서 쓰는 것이니 member/team만 본다.
+    @Override
+    public void afterJdbcWrite(String table) {
+        if ("member".equals(table) || "team".equals(table)) {
+            refreshAfterCommit();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+}
@@ -0,0 +1,89 @@
+package study.querydsl.stats;
+
+import study.querydsl.dto.TeamStatsDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 팀별 집계를 메모리에 들고 있는 뷰. 값은 스트라이프 카운터(LongAdder)라 동시 갱신에 막히지 않는다.
+ * 나이는 나이별 개수(히스토그램)로 들고 있어서 삭제가 있어도 min/max를 다시 셀 수 있다.
+ */
+public class TeamStatsView {
+
+    private final Map<Long, TeamCounters> teams = new ConcurrentHashMap<>();
+
+    public TeamStatsDto get(Long teamId) {
+        TeamCounters counters = teams.get(teamId);
+        return counters != null ? counters.toDto(teamId) : null;
+    }
+
+    public List<TeamStatsDto> all() {
+        return teams.entrySet().stream()
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    void putTeam(Long teamId, String name) {
+        teams.computeIfAbsent(teamId, id -> new TeamCounters()).name = name;
+    }
+
+    void removeTeam(Long teamId) {
+        teams.remove(teamId);
+    }
+
+    void apply(TeamStatsDelta delta) {
+        delta.teamNames().forEach(this::putTeam);
+        delta.removedTeams().forEach(this::removeTeam);
+        delta.changes().forEach((teamId, change) -> {
+            TeamCounters counters = teams.computeIfAbsent(teamId, id -> new TeamCounters());
+            counters.count.add(change.count);
+            counters.sum.add(change.sum);
+            change.ages.forEach((age, count) -> counters.ages.computeIfAbsent(age, a -> new LongAdder()).add(count));
+        });
+    }
+
+    // 주어진 팀만 loaded 값으로 바꾼다. loaded에 없는 팀은 지워진 팀이다.
+    void replace(Collection<Long> teamIds, TeamStatsView loaded) {
+        for (Long teamId : teamIds) {
+            TeamCounters counters = loaded.teams.get(teamId);
+            if (counters != null) {
+                teams.put(teamId, counters);
+            } else {
+                teams.remove(teamId);
+            }
+        }
+    }
+
+    void addAges(Long teamId, int age, long count) {
+        TeamCounters counters = teams.computeIfAbsent(teamId, id -> new TeamCounters());
+        counters.count.add(count);
+        counters.sum.add(age * count);
+        counters.ages.computeIfAbsent(age, a -> new LongAdder()).add(count);
+    }
+
+    private static class TeamCounters {
+        private volatile String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final Map<Integer, LongAdder> ages = new ConcurrentHashMap<>();
+
+        private TeamStatsDto toDto(Long teamId) {
+            Integer min = null;
+            Integer max = null;
+            for (Map.Entry<Integer, LongAdder> entry : ages.entrySet()) {
+                if (entry.getValue().sum() <= 0) {
+                    continue;
+                }
+                int age = entry.getKey();
+                min = min == null || age < min ? age : min;
+                max = max == null || age > max ? age : max;
+            }
+            return new TeamStatsDto(teamId, name, count.sum(), sum.sum(), max, min);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.warmup;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties("warmup")
+public class WarmupProperties {
+
+    private boolean enabled = true;
+
+    // 메모리에서만 도는 경로(Jackson 직렬화)를 몇 번 돌릴지. JIT가 잡힐 만큼. DB 쿼리는 조합마다 한 번
+    private int iterations = 20;
+
+    // 커넥션 풀을 minimumIdle 까지 미리 채운다.
+    private boolean fillPool = true;
+}
@@ -0,0 +1,19 @@
+package study.querydsl.warmup;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class WarmupReport {
+
+    private final int connections;
+    private final int queries;
+    private final int serialized;
+    private final long poolMs;
+    private final long queriesMs;
+    private final long jacksonMs;
+    private final long totalMs;
+}
@@ -0,0 +1,194 @@
+package study.querydsl.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.sql.MemberSqlQueries;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 배포 직후 첫 요청들이 느린 걸 줄이려고, 준비 완료(ApplicationReadyEvent) 전에 한 번 돌려 둔다.
+ * - 커넥션 풀을 minimumIdle 까지 채운다.
+ * - 검색 조건 16가지 조합으로 리포지토리 쿼리를 읽기 전용 트랜잭션에서 한 번씩 돌린다.
+ *   (하이버네이트 쿼리 플랜 캐시, querydsl 직렬화, PreparedStatement 캐시. 같은 모양을 반복해도 DB 부하만 는다.)
+ * - 샘플 DTO와 Page/Slice를 Jackson으로 iterations 번 직렬화한다. (메모리에서만 도는 경로라 JIT가 잡힐 만큼 반복)
+ * 조건 값은 아무 row도 맞지 않도록 고른다. 조건이 하나도 없는 조합은 페이징(Slice)으로만 돌린다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupRunner implements ApplicationRunner {
+
+    // 실제로 쓰이지 않을 이름
+    private static final String MISSING = "__warmup__";
+
+    private final WarmupProperties properties;
+    private final MemberRepository memberRepository;
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberQueryRepository memberQueryRepository;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final TransactionTemplate readOnly;
+
+    public WarmupRunner(WarmupProperties properties, MemberRepository memberRepository, MemberJpaRepository memberJpaRepository,
+                        MemberQueryRepository memberQueryRepository, ObjectMapper objectMapper, DataSource dataSource,
+                        PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.memberRepository = memberRepository;
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberQueryRepository = memberQueryRepository;
+        this.objectMapper = objectMapper;
+        this.dataSource = dataSource;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        warmUp();
+    }
+
+    public WarmupReport warmUp() {
+        long start = System.nanoTime();
+        int connections = properties.isFillPool() ? fillPool() : 0;
+        long poolDone = System.nanoTime();
+        int queries = warmUpQueries();
+        long queriesDone = System.nanoTime();
+        int serialized = warmUpJackson();
+        long end = System.nanoTime();
+
+        WarmupReport report = new WarmupReport(connections, queries, serialized,
+                TimeUnit.NANOSECONDS.toMillis(poolDone - start),
+                TimeUnit.NANOSECONDS.toMillis(queriesDone - poolDone),
+                TimeUnit.NANOSECONDS.toMillis(end - queriesDone),
+                TimeUnit.NANOSECONDS.toMillis(end - start));
+        log.info("warm-up finished in {} ms (pool {} ms / {} connections, queries {} ms / {} calls, jackson {} ms / {} writes)",
+                report.getTotalMs(), report.getPoolMs(), connections, report.getQueriesMs(), queries,
+                report.getJacksonMs(), serialized);
+        return report;
+    }
+
+    // 한꺼번에 빌려서 풀이 새 커넥션을 만들게 한다.
+    private int fillPool() {
+        int target;
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return 0;
+            }
+            target = dataSource.unwrap(HikariDataSource.class).getMinimumIdle();
+        } catch (SQLException e) {
+            log.debug("cannot read pool config", e);
+            return 0;
+        }
+
+        List<Connection> borrowed = new ArrayList<>(target);
+        try {
+            for (int i = 0; i < target; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("pool warm-up stopped after {} connections", borrowed.size(), e);
+        } finally {
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("cannot return warm-up connection", e);
+                }
+            }
+        }
+        return borrowed.size();
+    }
+
+    private int warmUpQueries() {
+        int calls = 0;
+        PageRequest page = PageRequest.of(0, 1);
+        for (int shape = 0; shape < MemberSqlQueries.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = conditionOf(shape);
+            boolean bounded = shape != 0;
+            calls += readOnly.execute(status -> {
+                int n = 0;
+                memberRepository.searchSlice(condition, page);
+                n++;
+                if (bounded) {
+                    memberRepository.search(condition);
+                    memberRepository.searchPageSimple(condition, page);
+                    memberRepository.searchPageComplex(condition, page);
+                    memberJpaRepository.search(condition);
+                    memberJpaRepository.searchByBuilder(condition);
+                    memberJpaRepository.searchMemberReadOnly(condition);
+                    memberQueryRepository.search(condition);
+                    n += 7;
+                }
+                return n;
+            });
+        }
+        calls += readOnly.execute(status -> {
+            memberJpaRepository.findById(-1L);
+            memberJpaRepository.findByUsername(MISSING);
+            memberJpaRepository.findByUsername_Querydsl(MISSING);
+            memberRepository.findByUsername(MISSING);
+            return 4;
+        });
+        return calls;
+    }
+
+    // 맞는 row가 없을 값들. shape 비트만 같으면 같은 쿼리가 나온다.
+    private static MemberSearchCondition conditionOf(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & MemberSqlQueries.USERNAME) != 0) {
+            condition.setUsername(MISSING);
+        }
+        if ((shape & MemberSqlQueries.TEAM_NAME) != 0) {
+            condition.setTeamName(MISSING);
+        }
+        if ((shape & MemberSqlQueries.AGE_GOE) != 0) {
+            condition.setAgeGoe(Integer.MAX_VALUE);
+        }
+        if ((shape & MemberSqlQueries.AGE_LOE) != 0) {
+            condition.setAgeLoe(Integer.MIN_VALUE);
+        }
+        return condition;
+    }
+
+    private int warmUpJackson() {
+        List<MemberTeamDto> sample = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sample.add(new MemberTeamDto((long) i, "member" + i, i, i % 2 == 0 ? 1L : null, i % 2 == 0 ? "teamA" : null));
+        }
+        PageRequest pageable = PageRequest.of(0, 20);
+        int writes = 0;
+        try {
+            for (int i = 0; i < properties.getIterations() * 10; i++) {
+                objectMapper.writeValueAsBytes(sample);
+                objectMapper.writeValueAsBytes(new PageImpl<>(sample, pageable, 100));
+                objectMapper.writeValueAsBytes(new SliceImpl<>(sample, pageable, true));
+                writes += 3;
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("jackson warm-up failed", e);
+        }
+        return writes;
+    }
+}
@@ -12,6 +12,7 @@ import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +25,7 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryBudget;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -33,6 +35,7 @@ import java.util.List;
 
 import static com.querydsl.jpa.JPAExpressions.*;
 import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.support.QueryBudgetExtension.measure;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
@@ -75,6 +78,7 @@ public class QuerydslBasicTest {
     }
 
     @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 80 * 1024)
     public void startQuerydsl() {
         // 시작은 JPAQUeryFactory
         // 만들 때 entity manager도 같이 넘겨줘야한다.
@@ -99,11 +103,11 @@ public class QuerydslBasicTest {
         // 파라미터 바인딩이 따로 필요 없다. 자동으로 pstm으로 자동으로 바인딩 한다.
         // JPQL은 문자로 작성해서 오타가 나면 실제 오류 발생이 실행한 시점에서야 알게 되는데 (runtime)
         // querydsl은 컴파일 시점에 오류를 잡아낸다.
-        Member findMember = queryFactory
+        Member findMember = measure(() -> queryFactory
                 .select(member)
                 .from(member)
                 .where(member.username.eq("member1")) // 파라미터 바인딩 처리
-                .fetchOne();
+                .fetchOne());
 
         // querydsl은 결국 jpql의 빌더 역할을 한다. 결국 jpql로 돌아가는 것.
 
@@ -222,14 +226,15 @@ public class QuerydslBasicTest {
 
 
     @Test
+    @QueryBudget(statements = 2, selects = 2, rows = 3, allocatedBytes = 128 * 1024)
     public void paging2() {
         // 실무에서는 카운트 쿼리를 완전히 따로 분리해야 할 수 있다. 그런 경우 이걸 못 쓴다.
-        QueryResults<Member> queryResults = queryFactory
+        QueryResults<Member> queryResults = measure(() -> queryFactory
                 .selectFrom(member)
                 .orderBy(member.username.desc())
                 .offset(1)
                 .limit(2)
-                .fetchResults();
+                .fetchResults());
 
         assertThat(queryResults.getTotal()).isEqualTo(4);
         assertThat(queryResults.getLimit()).isEqualTo(2);
@@ -238,11 +243,12 @@ public class QuerydslBasicTest {
     }
 
     @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 96 * 1024)
     public void aggregation() {
         // querydsl Tuple로 꺼내오게 됨.
         // 타입이 여러개로 들어올 때 Tuple로 들어온다.
         // 근데 보통 DTO로 뽑아오는 방법을 많이 쓴다.
-        List<Tuple> result = queryFactory
+        List<Tuple> result = measure(() -> queryFactory
                 .select(
                         member.count(),
                         member.age.sum(),
@@ -251,7 +257,7 @@ public class QuerydslBasicTest {
                         member.age.min()
                 )
                 .from(member)
-                .fetch();
+                .fetch());
 
         Tuple tuple = result.get(0);
         // 위에 쓴거 그대로 넣으면 값 조회 가능.
@@ -266,14 +272,15 @@ public class QuerydslBasicTest {
      * 팀의 이름과 각 팀의 평균 연령을 구해라.
      */
     @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 2, allocatedBytes = 96 * 1024)
     public void group() {
-        List<Tuple> result = queryFactory
+        List<Tuple> result = measure(() -> queryFactory
                 .select(team.name, member.age.avg())
                 .from(member)
                 .join(member.team, team)
                 .groupBy(team.name)
 //                .having(item.price.gt(1000)) 이런식으로 having도 가능
-                .fetch();
+                .fetch());
 
         Tuple teamA = result.get(0);
         Tuple teamB = result.get(1);
@@ -404,20 +411,22 @@ public class QuerydslBasicTest {
     }
 
     @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 112 * 1024)
     public void fetchJoinUse() {
         em.flush();
         em.clear();
 
         // lazy기 때문에 member만 조회되고 team은 안 나온다.
-        Member findMember = queryFactory
+        Member findMember = measure(() -> queryFactory
                 .selectFrom(member)
                 .join(member.team, team).fetchJoin() // 여기에 페치 조인만 들어가고 나머지는 똑같으면 된다.
                 // 그러면 연관된 애들을 한번에 끌고온다.
                 .where(member.username.eq("member1"))
-                .fetchOne();
+                .fetchOne());
 
-        // 이 엔티티가 로딩된 엔티티인지 아직 초기화가 안 된 에티티인지 가르쳐준다.
-        boolean loaded = emf.getPersistenceUnitUtil().isLoaded(findMember.getTeam());
+        // 프록시가 아니라 실제로 로딩된 엔티티인지 본다.
+        // 바이트코드 향상을 켜면 isLoaded(team)은 아직 안 읽은 지연 속성(team.members)이 있으면 false다.
+        boolean loaded = Hibernate.isInitialized(findMember.getTeam());
         assertThat(loaded).as("페치 조인 미적용").isTrue();
     }
 
@@ -0,0 +1,125 @@
+package study.querydsl.admission;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AimdLimiterTest {
+
+    private AdmissionProperties.Limit limit(int initial, int queueSize, long maxQueueWaitMs) {
+        AdmissionProperties.Limit limit = new AdmissionProperties.Limit();
+        limit.setInitialLimit(initial);
+        limit.setMinLimit(1);
+        limit.setMaxLimit(8);
+        limit.setQueueSize(queueSize);
+        limit.setMaxQueueWaitMs(maxQueueWaitMs);
+        limit.setLatencyTargetMs(1000);
+        limit.setBackoffRatio(0.5);
+        return limit;
+    }
+
+    @Test
+    public void limitGrowsOnSuccessAndShrinksOnFailure() {
+        AimdLimiter limiter = new AimdLimiter("test", limit(2, 0, 0));
+
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire().release(false);
+        }
+        assertThat(limiter.getLimit()).isGreaterThan(2).isLessThanOrEqualTo(8);
+
+        int before = limiter.getLimit();
+        limiter.acquire().release(true);
+        assertThat(limiter.getLimit()).isLessThan(before);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire().release(true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectsFastWhenQueueIsFull() {
+        AimdLimiter limiter = new AimdLimiter("test", limit(1, 0, 1000));
+
+        AimdLimiter.Permit first = limiter.acquire();
+        assertThat(first.isAccepted()).isTrue();
+
+        long start = System.nanoTime();
+        assertThat(limiter.acquire().getOutcome()).isEqualTo(AimdLimiter.Outcome.QUEUE_FULL);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(100);
+
+        first.release(false);
+        assertThat(limiter.snapshot().getRejectedQueueFull()).isEqualTo(1);
+        assertThat(limiter.snapshot().getInFlight()).isZero();
+    }
+
+    @Test
+    public void queuedRequestWaitsForRelease() {
+        AimdLimiter limiter = new AimdLimiter("test", limit(1, 1, 5000));
+        AimdLimiter.Permit first = limiter.acquire();
+
+        CompletableFuture<AimdLimiter.Permit> waiting = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.snapshot().getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(waiting).isNotDone();
+
+        first.release(false);
+        assertThat(waiting.join().isAccepted()).isTrue();
+    }
+
+    // 자리가 났어도 기다리는 요청이 있으면 새 요청이 먼저 들어가지 않는다.
+    @Test
+    public void newRequestDoesNotOvertakeQueue() {
+        AdmissionProperties.Limit config = limit(1, 1, 5000);
+        config.setMaxLimit(1);
+        AimdLimiter limiter = new AimdLimiter("test", config);
+        AimdLimiter.Permit first = limiter.acquire();
+
+        CompletableFuture<AimdLimiter.Permit> waiting = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.snapshot().getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+
+        first.release(false);
+        assertThat(limiter.acquire().isAccepted()).isFalse();
+        assertThat(waiting.join().isAccepted()).isTrue();
+    }
+
+    @Test
+    public void queuedRequestTimesOut() {
+        AimdLimiter limiter = new AimdLimiter("test", limit(1, 1, 20));
+        AimdLimiter.Permit first = limiter.acquire();
+
+        assertThat(limiter.acquire().getOutcome()).isEqualTo(AimdLimiter.Outcome.QUEUE_TIMEOUT);
+        assertThat(limiter.snapshot().getRejectedTimeout()).isEqualTo(1);
+        first.release(false);
+    }
+
+    @Test
+    public void interceptorAnswers429AndReleasesOnCompletion() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.getEndpoints().put("/v1/members", limit(1, 0, 0));
+        AdmissionInterceptor interceptor = new AdmissionInterceptor(properties);
+
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/v1/members");
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(first, firstResponse, null)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/v1/members"), rejected, null)).isFalse();
+        assertThat(rejected.getStatus()).isEqualTo(429);
+
+        // 제한 없는 엔드포인트는 그대로 통과
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/v3/members"), new MockHttpServletResponse(), null)).isTrue();
+
+        interceptor.afterCompletion(first, firstResponse, null, null);
+        assertThat(interceptor.snapshots().get(0).getInFlight()).isZero();
+        assertThat(interceptor.preHandle(new MockHttpServletRequest("GET", "/v1/members"), new MockHttpServletResponse(), null)).isTrue();
+    }
+}
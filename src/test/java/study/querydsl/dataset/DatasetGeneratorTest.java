@@ -0,0 +1,63 @@
+package study.querydsl.dataset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.support.CommittedData;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 별도 커넥션으로 커밋까지 하므로 @Transactional 롤백이 안 된다. 끝나면 적재한 구간만 지운다.
+@SpringBootTest
+class DatasetGeneratorTest {
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CommittedData committedData;
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void generate() {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setTeams(20);
+        properties.setMembers(10_000);
+        properties.setWriterThreads(4);
+        properties.setBatchSize(1_000);
+
+        GeneratedDataset dataset = committedData.track(datasetGenerator.generate(properties));
+
+        // 공용 DB라 다른 테스트 데이터가 있을 수 있다. 적재한 id 구간 안만 본다.
+        Object[] teamRange = {dataset.getFirstTeamId(), dataset.getLastTeamId()};
+        Object[] memberRange = {dataset.getFirstMemberId(), dataset.getLastMemberId()};
+        assertThat(jdbcTemplate.queryForObject("select count(*) from team where id between ? and ?", Long.class, teamRange)).isEqualTo(20);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where member_id between ? and ?", Long.class, memberRange)).isEqualTo(10_000);
+
+        // 팀 크기가 치우쳐 있어야 한다. 1등 팀이 꼴등 팀보다 훨씬 크다.
+        List<Map<String, Object>> teamSizes = jdbcTemplate.queryForList(
+                "select team_id, count(*) cnt from member where member_id between ? and ? group by team_id order by cnt desc", memberRange);
+        long largest = ((Number) teamSizes.get(0).get("CNT")).longValue();
+        long smallest = ((Number) teamSizes.get(teamSizes.size() - 1).get("CNT")).longValue();
+        assertThat(largest).isGreaterThan(smallest * 5);
+
+        assertThat(jdbcTemplate.queryForObject("select min(age) from member where member_id between ? and ?", Integer.class, memberRange)).isGreaterThanOrEqualTo(10);
+        assertThat(jdbcTemplate.queryForObject("select max(age) from member where member_id between ? and ?", Integer.class, memberRange)).isLessThan(70);
+
+        // 시퀀스가 적재한 id 뒤로 옮겨져 있어야 이후 persist가 겹치지 않는다.
+        Long next = jdbcTemplate.queryForObject("select next value for hibernate_sequence", Long.class);
+        assertThat(next).isGreaterThan(dataset.getLastMemberId());
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.deadline;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+public class QueryDeadlineTest {
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    public void after() {
+        QueryDeadline.clear();
+    }
+
+    @Test
+    public void jpaQueryGetsTimeoutHint() {
+        assertThat(queryFactory.selectFrom(member).createQuery().getHints())
+                .doesNotContainEntry(DeadlineJPAQuery.TIMEOUT_HINT, 0);
+
+        QueryDeadline.start(1500);
+        JPAQuery<Member> query = queryFactory.selectFrom(member);
+
+        // 1.5초 -> 2초로 올림
+        assertThat(query).isInstanceOf(DeadlineJPAQuery.class);
+        assertThat(query.createQuery().getHints()).containsEntry(DeadlineJPAQuery.TIMEOUT_HINT, 2000);
+        assertThat(query.clone().createQuery().getHints()).containsEntry(DeadlineJPAQuery.TIMEOUT_HINT, 2000);
+    }
+
+    @Test
+    public void expiredDeadlineFailsWithoutQuery() throws InterruptedException {
+        QueryDeadline.start(1);
+        Thread.sleep(5);
+
+        assertThatThrownBy(() -> queryFactory.selectFrom(member).fetch())
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThatThrownBy(() -> jdbcTemplate.queryForObject("select count(*) from member", Long.class))
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+
+    @Test
+    public void jdbcStatementIsCancelled() {
+        assertThat(jdbcTemplate).isInstanceOf(DeadlineJdbcTemplate.class);
+
+        QueryDeadline.start(1000);
+        long start = System.nanoTime();
+
+        assertThatThrownBy(() -> jdbcTemplate.queryForObject("select sum(x) from system_range(1, 10000000000)", Long.class))
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(10_000);
+
+        // 취소된 뒤에도 같은 커넥션을 계속 쓸 수 있다.
+        QueryDeadline.clear();
+        assertThat(jdbcTemplate.queryForObject("select 1", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void propagateToWorkerThread() {
+        QueryDeadline.start(5000);
+
+        assertThat(CompletableFuture.supplyAsync(QueryDeadline::isSet).join()).isFalse();
+        assertThat(CompletableFuture.supplyAsync(QueryDeadline.propagate(QueryDeadline::remainingMillis)).join())
+                .isBetween(1L, 5000L);
+    }
+
+    @Test
+    public void filterResolvesTimeout() throws Exception {
+        QueryDeadlineProperties properties = new QueryDeadlineProperties();
+        properties.getEndpoints().put("/v1/members", 2000L);
+        properties.setMaxTimeoutMs(10_000);
+        QueryDeadlineFilter filter = new QueryDeadlineFilter(properties);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/members");
+        assertThat(filter.timeoutOf(request)).isEqualTo(2000);
+
+        request.addHeader("X-Query-Timeout-Ms", "60000");
+        assertThat(filter.timeoutOf(request)).isEqualTo(10_000);
+
+        assertThat(filter.timeoutOf(new MockHttpServletRequest("GET", "/v3/members"))).isZero();
+
+        // 체인 안에서만 걸려 있다.
+        AtomicLong remaining = new AtomicLong();
+        MockHttpServletRequest paged = new MockHttpServletRequest("GET", "/v3/members");
+        paged.addHeader("X-Query-Timeout-Ms", "500");
+        filter.doFilter(paged, new MockHttpServletResponse(), (req, res) -> remaining.set(QueryDeadline.remainingMillis()));
+        assertThat(remaining.get()).isBetween(1L, 500L);
+        assertThat(QueryDeadline.isSet()).isFalse();
+    }
+}
@@ -1,14 +1,19 @@
 package study.querydsl.entity;
 
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.support.QueryCounter;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 @SpringBootTest
 @Transactional
@@ -17,6 +22,9 @@ class MemberTest {
     @PersistenceContext
     EntityManager em;
 
+    @Autowired
+    QueryCounter queryCounter;
+
     @Test
     public void testEntity() {
         Team teamA = new Team("teamA");
@@ -45,4 +53,36 @@ class MemberTest {
         }
     }
 
-}
\ No newline at end of file
+    // 바이트코드 향상 여부와 상관없이 한 번만 들어간다.
+    @Test
+    public void changeTeamOnNewTeam() {
+        Team teamA = new Team("teamA");
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        assertThat(teamA.getMembers()).containsExactly(member1, member2);
+    }
+
+    // 이미 저장된 팀으로 옮겨도 Team.members 를 읽어 오지 않는다.
+    // 바이트코드 향상된 엔티티 기준이다. (-PenhanceEntities=false 로 빌드하면 건너뛴다)
+    @Test
+    public void changeTeamDoesNotInitializeMembers() {
+        assumeTrue(PersistentAttributeInterceptable.class.isAssignableFrom(Member.class), "Member is not enhanced");
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        Team team = em.find(Team.class, teamA.getId());
+        queryCounter.start();
+        Member member2 = new Member("member2", 20);
+        member2.changeTeam(team);
+        em.persist(member2);
+        QueryCounter.Counts counts = queryCounter.stop();
+
+        assertThat(counts.getSelects()).as("team.members 로딩").isZero();
+        assertThat(member2.getTeam()).isSameAs(team);
+    }
+
+}
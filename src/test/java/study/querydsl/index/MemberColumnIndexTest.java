@@ -0,0 +1,218 @@
+package study.querydsl.index;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.sql.MemberSqlRepository;
+import study.querydsl.support.CommittedData;
+import study.querydsl.support.QueryBudget;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.support.QueryBudgetExtension.measure;
+
+// 커밋 이벤트로 동기화되니 롤백하는 @Transactional 대신 직접 커밋하고 끝나면 넣은 것만 지운다.
+@SpringBootTest(properties = "member-index.enabled=true")
+class MemberColumnIndexTest {
+
+    @Autowired
+    MemberColumnIndex index;
+
+    @Autowired
+    MemberSqlRepository sqlRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CommittedData committedData;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void searchFollowsCommits() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long member1Id = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            committedData.track(teamA);
+            committedData.track(teamB);
+            Member member1 = new Member("member1", 10, teamA);
+            em.persist(member1);
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            Member member5 = new Member("member5", 50);
+            em.persist(member5);
+            committedData.track(member5);
+            return member1.getId();
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setTeamName("teamB");
+        assertSameAsDatabase(condition);
+        assertThat(index.search(condition)).extracting("username").containsExactly("member3", "member4");
+
+        // 팀 이동, 팀 이름 변경
+        tx.execute(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            Team teamB = em.createQuery("select t from Team t where t.name = 'teamB'", Team.class).getSingleResult();
+            member1.changeTeam(teamB);
+            member1.setAge(35);
+            teamB.setName("teamC");
+            return null;
+        });
+        condition.setTeamName("teamC");
+        assertSameAsDatabase(condition);
+        assertThat(index.search(condition)).extracting("username").containsExactly("member1", "member3", "member4");
+
+        // 롤백은 반영되지 않는다.
+        tx.execute(status -> {
+            em.remove(em.find(Member.class, member1Id));
+            status.setRollbackOnly();
+            return null;
+        });
+        assertThat(index.size()).isEqualTo(5);
+
+        tx.execute(status -> {
+            em.remove(em.find(Member.class, member1Id));
+            return null;
+        });
+        assertThat(index.size()).isEqualTo(4);
+        assertSameAsDatabase(new MemberSearchCondition());
+    }
+
+    // 벌크 clause와 JdbcTemplate 쓰기는 엔티티 이벤트가 없다. 커밋 뒤에 다시 읽어서 맞춘다.
+    @Test
+    public void bulkAndJdbcWritesAreRebuilt() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            committedData.track(teamA);
+            for (int i = 0; i < 4; i++) {
+                em.persist(new Member("member" + i, 10 + i, teamA));
+            }
+            return teamA.getId();
+        });
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(30);
+        assertThat(index.search(condition)).isEmpty();
+
+        // 커밋 전에는 예전 값 그대로, 커밋 뒤에는 새 값
+        tx.executeWithoutResult(status -> {
+            queryFactory.update(member).set(member.age, member.age.add(20)).where(member.team.id.eq(teamId)).execute();
+            queryFactory.update(member).set(member.username, "renamed").where(member.username.eq("member0")).execute();
+            assertThat(index.search(condition)).isEmpty();
+        });
+        assertSameAsDatabase(condition);
+        assertThat(index.search(condition)).extracting("username").containsExactly("renamed", "member1", "member2", "member3");
+
+        tx.executeWithoutResult(status ->
+                queryFactory.update(team).set(team.name, "teamB").where(team.id.eq(teamId)).execute());
+        condition.setTeamName("teamB");
+        assertSameAsDatabase(condition);
+        assertThat(index.search(condition)).hasSize(4);
+
+        // 트랜잭션 밖 JdbcTemplate 쓰기는 바로 다시 읽는다.
+        jdbcTemplate.update("delete from member where username = ?", "renamed");
+        jdbcTemplate.update("update team set name = ? where id = ?", "teamC", teamId);
+        condition.setTeamName("teamC");
+        assertSameAsDatabase(condition);
+        assertThat(index.search(condition)).extracting("username").containsExactly("member1", "member2", "member3");
+    }
+
+    @Test
+    public void searchPage() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            Team team = new Team("team");
+            em.persist(team);
+            committedData.track(team);
+            for (int i = 0; i < 30; i++) {
+                Member member = new Member("member" + i, i, i % 2 == 0 ? team : null);
+                em.persist(member);
+                committedData.track(member);
+            }
+            return null;
+        });
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(20);
+
+        Page<MemberTeamDto> page = index.searchPageSimple(condition, PageRequest.of(1, 5));
+        assertThat(page.getTotalElements()).isEqualTo(21);
+        assertThat(page.getContent()).extracting("age").containsExactly(5, 6, 7, 8, 9);
+
+        Page<MemberTeamDto> sorted = index.searchPageComplex(condition, PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+        assertThat(sorted.getContent()).extracting("age").containsExactly(20, 19, 18);
+        assertThat(sorted.getContent().get(0).getTeamName()).isEqualTo("team");
+
+        Slice<MemberTeamDto> slice = index.searchSlice(condition, PageRequest.of(3, 5));
+        assertThat(slice.getContent()).extracting("age").containsExactly(15, 16, 17, 18, 19);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(index.searchSlice(condition, PageRequest.of(4, 5)).hasNext()).isFalse();
+
+        condition.setUsername("nobody");
+        assertThat(index.searchPageSimple(condition, PageRequest.of(0, 5)).getTotalElements()).isZero();
+    }
+
+    // 메모리에서 끝난다. DB에 쿼리가 나가면 안 된다.
+    @Test
+    @QueryBudget(statements = 0, allocatedBytes = 16 * 1024)
+    public void searchRunsNoQuery() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team team = new Team("team");
+            em.persist(team);
+            committedData.track(team);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i, team));
+            }
+        });
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team");
+        condition.setAgeGoe(5);
+
+        Page<MemberTeamDto> page = measure(() -> index.searchPageComplex(condition, PageRequest.of(0, 3)));
+
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    private void assertSameAsDatabase(MemberSearchCondition condition) {
+        List<MemberTeamDto> expected = sqlRepository.search(condition);
+        assertThat(index.search(condition)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+}
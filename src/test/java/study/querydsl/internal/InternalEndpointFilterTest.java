@@ -0,0 +1,49 @@
+package study.querydsl.internal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InternalEndpointFilterTest {
+
+    InternalEndpointProperties properties = new InternalEndpointProperties();
+    InternalEndpointFilter filter = new InternalEndpointFilter(properties);
+
+    @BeforeEach
+    public void before() {
+        properties.setPort(8081);
+    }
+
+    @Test
+    public void internalPathOnlyOnInternalPort() throws Exception {
+        assertThat(status("/internal/slow-queries", 8080)).isEqualTo(404);
+        assertThat(status("/internal/slow-queries", 8081)).isEqualTo(200);
+        assertThat(status("/internal/admission", 8080)).isEqualTo(404);
+    }
+
+    @Test
+    public void serviceApiOnlyOnServicePort() throws Exception {
+        assertThat(status("/v1/members", 8080)).isEqualTo(200);
+        assertThat(status("/v1/members", 8081)).isEqualTo(404);
+    }
+
+    @Test
+    public void disabledPortHidesInternalPaths() throws Exception {
+        properties.setPort(0);
+
+        assertThat(status("/internal/slow-queries", 8080)).isEqualTo(404);
+        assertThat(status("/v1/members", 8080)).isEqualTo(200);
+    }
+
+    private int status(String path, int localPort) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setLocalPort(localPort);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
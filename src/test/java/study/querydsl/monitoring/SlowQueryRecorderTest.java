@@ -0,0 +1,66 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// threshold 0 으로 모든 쿼리를 느린 쿼리로 본다.
+@SpringBootTest(properties = {
+        "slow-query.threshold-ms=0",
+        "slow-query.explain=true"
+})
+@Transactional
+class SlowQueryRecorderTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    SlowQueryRecorder slowQueryRecorder;
+
+    @Test
+    public void recordSlowQuery() throws Exception {
+        Team teamB = new Team("teamB");
+        em.persist(teamB);
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        slowQueryRecorder.getSlowQueryLog().clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+        memberJpaRepository.search(condition);
+
+        List<SlowQuery> recent = slowQueryRecorder.getSlowQueryLog().recent(10);
+        Optional<SlowQuery> search = recent.stream()
+                .filter(q -> "study.querydsl.repository.MemberJpaRepository.search".equals(q.getOrigin()))
+                .findFirst();
+
+        assertThat(search).isPresent();
+        SlowQuery slowQuery = search.get();
+        assertThat(slowQuery.getJpql()).contains("from Member member1").contains("team.name = ?1");
+        assertThat(slowQuery.getSqlWithValues()).contains("'teamB'").contains("35");
+        assertThat(slowQuery.getRows()).isEqualTo(1);
+
+        // 실행 계획은 비동기로 채워진다.
+        for (int i = 0; i < 50 && slowQuery.getPlan() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(slowQuery.getPlan()).containsIgnoringCase("select");
+    }
+}
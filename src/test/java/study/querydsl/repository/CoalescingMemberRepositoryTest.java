@@ -0,0 +1,65 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.CommittedData;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class CoalescingMemberRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CommittedData committedData;
+
+    @Autowired
+    CoalescingMemberRepository coalescingRepository;
+
+    @AfterEach
+    public void after() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void writeTransactionIsNotCoalesced() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long executions = coalescingRepository.getSingleFlight().getExecutions();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        // 아직 커밋 안 된 데이터가 다른 호출과 섞이면 안 된다.
+        Page<MemberTeamDto> uncommitted = tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            committedData.track(teamA);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.flush();
+            return coalescingRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        });
+        assertThat(uncommitted.getTotalElements()).isEqualTo(2);
+        assertThat(coalescingRepository.getSingleFlight().getExecutions()).isEqualTo(executions);
+
+        Page<MemberTeamDto> committed = coalescingRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(committed.getContent()).extracting("username").containsExactly("member1", "member2");
+        assertThat(coalescingRepository.getSingleFlight().getExecutions()).isEqualTo(executions + 1);
+    }
+}
@@ -9,12 +9,16 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryBudget;
+
+import org.hibernate.Session;
 
 import javax.persistence.EntityManager;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.support.QueryBudgetExtension.measure;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -28,21 +32,23 @@ class MemberJpaRepositoryTest {
     MemberJpaRepository memberJpaRepository;
 
     @Test
+    @QueryBudget(statements = 3, selects = 3, rows = 3, allocatedBytes = 144 * 1024)
     public void basicTest() {
         Member member = new Member("member1", 10);
         memberJpaRepository.save(member);
 
-        Member findMember = memberJpaRepository.findById(member.getId()).get();
-        assertThat(findMember).isEqualTo(member);
+        Member findMember = measure(() -> memberJpaRepository.findById(member.getId())).get();
+        assertThat(findMember.getId()).isEqualTo(member.getId());
 
-        List<Member> result1 = memberJpaRepository.findAll_Querydsl();
-        assertThat(result1).containsExactly(member);
+        List<Member> result1 = measure(() -> memberJpaRepository.findAll_Querydsl());
+        assertThat(result1).extracting("id").containsExactly(member.getId());
 
-        List<Member> result2 = memberJpaRepository.findByUsername_Querydsl("member1");
-        assertThat(result2).containsExactly(member);
+        List<Member> result2 = measure(() -> memberJpaRepository.findByUsername_Querydsl("member1"));
+        assertThat(result2).extracting("id").containsExactly(member.getId());
     }
 
     @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 112 * 1024)
     public void searchTest() {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -65,10 +71,35 @@ class MemberJpaRepositoryTest {
         condition.setAgeLoe(40);
         condition.setTeamName("teamB");
 
-        List<MemberTeamDto> result = memberJpaRepository.search(condition);
+        List<MemberTeamDto> result = measure(() -> memberJpaRepository.search(condition));
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void searchMemberReadOnly() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<Member> result = memberJpaRepository.searchMemberReadOnly(condition);
+
+        Session session = em.unwrap(Session.class);
+        assertThat(result).hasSize(2);
+        assertThat(result).allMatch(session::isReadOnly);
+
+        // read-only 엔티티는 값을 바꿔도 update가 나가지 않는다.
+        result.get(0).setAge(99);
+        em.flush();
+        em.clear();
+
+        assertThat(memberJpaRepository.findById(result.get(0).getId()).get().getAge()).isNotEqualTo(99);
+    }
+
+}
@@ -5,17 +5,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.support.QueryBudget;
 
 import javax.persistence.EntityManager;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.support.QueryBudgetExtension.measure;
 
 @SpringBootTest
 @Transactional
@@ -28,22 +31,24 @@ public class MemberRepositoryTest {
     MemberRepository memberRepository;
 
     @Test
+    @QueryBudget(statements = 3, selects = 3, rows = 3, allocatedBytes = 160 * 1024)
     public void basicTest() {
         Member member = new Member("member1", 10);
         memberRepository.save(member);
 
-        Member findMember = memberRepository.findById(member.getId()).get();
-        assertThat(findMember).isEqualTo(member);
+        Member findMember = measure(() -> memberRepository.findById(member.getId())).get();
+        assertThat(findMember.getId()).isEqualTo(member.getId());
 
-        List<Member> result1 = memberRepository.findAll();
-        assertThat(result1).containsExactly(member);
+        List<Member> result1 = measure(() -> memberRepository.findAll());
+        assertThat(result1).extracting("id").containsExactly(member.getId());
 
-        List<Member> result2 = memberRepository.findByUsername("member1");
-        assertThat(result2).containsExactly(member);
+        List<Member> result2 = measure(() -> memberRepository.findByUsername("member1"));
+        assertThat(result2).extracting("id").containsExactly(member.getId());
     }
 
 
     @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 96 * 1024)
     public void searchTest() {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -66,12 +71,13 @@ public class MemberRepositoryTest {
         condition.setAgeLoe(40);
         condition.setTeamName("teamB");
 
-        List<MemberTeamDto> result = memberRepository.search(condition);
+        List<MemberTeamDto> result = measure(() -> memberRepository.search(condition));
 
         assertThat(result).extracting("username").containsExactly("member4");
     }
 
     @Test
+    @QueryBudget(statements = 2, selects = 2, rows = 4, allocatedBytes = 128 * 1024)
     public void searchPageSimple() {
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -90,12 +96,52 @@ public class MemberRepositoryTest {
         MemberSearchCondition condition = new MemberSearchCondition();
         PageRequest pageRequest = PageRequest.of(0, 3);
 
-        Page<MemberTeamDto> result = memberRepository.searchPageSimple(condition, pageRequest);
+        Page<MemberTeamDto> result = measure(() -> memberRepository.searchPageSimple(condition, pageRequest));
 
         assertThat(result.getSize()).isEqualTo(3);
         assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
     }
 
+    // count 쿼리 없이 select 한 번으로 다음 페이지 유무까지
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 4, allocatedBytes = 80 * 1024)
+    public void searchSlice() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = measure(() -> memberRepository.searchSlice(condition, PageRequest.of(0, 3)));
+        assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(first.hasNext()).isTrue();
+    }
+
+    @Test
+    public void searchSliceLastPage() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> exact = memberRepository.searchSlice(condition, PageRequest.of(0, 3));
+        assertThat(exact.getContent()).hasSize(3);
+        assertThat(exact.hasNext()).isFalse();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 2));
+        assertThat(last.getContent()).extracting("username").containsExactly("member3");
+        assertThat(last.hasNext()).isFalse();
+    }
+
     // 이건 실무에서 쓰기 힘들다.
     // 조인이 안 됨 left join이.
     // 클라이언트가 QueryDsl에 의존해야한다.
@@ -0,0 +1,162 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamBatch;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.sql.MemberSqlRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    Long noTeamId;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 100; i++) {
+            Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+            em.persist(new Member("member" + i, i, selectedTeam));
+        }
+        Member noTeam = new Member("noTeam", 50);
+        em.persist(noTeam);
+        noTeamId = noTeam.getId();
+
+        // JdbcTemplate은 영속성 컨텍스트를 모르니 먼저 flush
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void searchTest() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+        condition.setTeamName("teamB");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactly("member35", "member37", "member39");
+        assertThat(result).isEqualTo(memberRepository.search(condition));
+    }
+
+    @Test
+    public void searchBatch() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(40);
+
+        MemberTeamBatch batch = memberSqlRepository.searchBatch(condition);
+
+        assertThat(batch.toList()).isEqualTo(memberSqlRepository.search(condition));
+
+        // 팀 이름은 팀 수만큼만 들고 있다.
+        MemberTeamBatch.Cursor cursor = batch.cursor();
+        String teamAName = null;
+        boolean noTeamFound = false;
+        while (cursor.next()) {
+            if ("teamA".equals(cursor.teamName())) {
+                if (teamAName == null) {
+                    teamAName = cursor.teamName();
+                }
+                assertThat(cursor.teamName()).isSameAs(teamAName);
+            }
+            // 팀 없는 member는 순서와 상관없이 id로 찾는다.
+            if (cursor.memberId() == noTeamId) {
+                assertThat(cursor.hasTeam()).isFalse();
+                assertThat(cursor.teamName()).isNull();
+                noTeamFound = true;
+            }
+        }
+        assertThat(noTeamFound).isTrue();
+    }
+
+    // 블록 경계(1024 row)를 넘어도, 팀이 많아도 넣은 순서 그대로 읽힌다.
+    @Test
+    public void batchSpansBlocks() {
+        MemberTeamBatch.Builder builder = new MemberTeamBatch.Builder(0);
+        List<MemberTeamDto> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            String username = i % 100 == 0 ? null : (i % 7 == 0 ? "회원" + i : "member" + i);
+            Long teamId = i % 5 == 0 ? null : (long) (i % 40);
+            String teamName = teamId != null ? "team" + teamId : null;
+            builder.add(i, username, i % 90, teamId, teamName);
+            expected.add(new MemberTeamDto((long) i, username, i % 90, teamId, teamName));
+        }
+
+        MemberTeamBatch batch = builder.build();
+
+        assertThat(batch.size()).isEqualTo(3000);
+        assertThat(batch.toList()).isEqualTo(expected);
+        MemberTeamBatch.Cursor cursor = batch.cursor().moveTo(2049);
+        assertThat(cursor.username()).isEqualTo("member2049");
+        assertThat(cursor.teamId()).isEqualTo(9L);
+    }
+
+    @Test
+    public void searchWithoutTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("noTeam");
+
+        List<MemberTeamDto> result = memberSqlRepository.search(condition);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTeamId()).isNull();
+        assertThat(result.get(0).getTeamName()).isNull();
+    }
+
+    @Test
+    public void searchPageComplex() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        PageRequest pageRequest = PageRequest.of(1, 20);
+
+        Page<MemberTeamDto> result = memberSqlRepository.searchPageComplex(condition, pageRequest);
+        Page<MemberTeamDto> jpaResult = memberRepository.searchPageComplex(condition, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(50);
+        assertThat(result.getContent()).isEqualTo(jpaResult.getContent());
+    }
+
+    @Test
+    public void searchSlice() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Slice<MemberTeamDto> result = memberSqlRepository.searchSlice(condition, PageRequest.of(1, 20));
+        assertThat(result.getContent()).isEqualTo(memberRepository.searchSlice(condition, PageRequest.of(1, 20)).getContent());
+        assertThat(result.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberSqlRepository.searchSlice(condition, PageRequest.of(2, 20));
+        assertThat(last.getContent()).hasSize(10);
+        assertThat(last.hasNext()).isFalse();
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.repository;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void applyPaginationReadOnly() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest pageRequest = PageRequest.of(0, 3);
+
+        Page<Member> result = memberTestRepository.applyPaginationReadOnly(condition, pageRequest);
+
+        Session session = em.unwrap(Session.class);
+        assertThat(result.getTotalElements()).isEqualTo(4);
+        assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+        assertThat(result.getContent()).allMatch(session::isReadOnly);
+    }
+
+    @Test
+    public void applyPagination2() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<Member> result = memberTestRepository.applyPagination2(condition, PageRequest.of(0, 2));
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting("username").containsExactly("member2", "member3");
+
+        condition.setTeamName("teamB");
+        assertThat(memberTestRepository.applyPagination2(condition, PageRequest.of(0, 1)).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void applySlicing() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<Member> first = memberTestRepository.applySlicing(condition, PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+        assertThat(first.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<Member> second = memberTestRepository.applySlicing(condition, PageRequest.of(1, 3, Sort.by(Sort.Order.desc("age"))));
+        assertThat(second.getContent()).extracting("username").containsExactly("member1");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void searchStateless() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        List<Member> result = memberTestRepository.searchStateless(condition);
+
+        assertThat(result).extracting("username").containsExactly("member3", "member4");
+        assertThat(result).extracting("team.name").containsOnly("teamB");
+        // 영속성 컨텍스트에 올라가지 않는다.
+        assertThat(result).noneMatch(em::contains);
+    }
+}
@@ -0,0 +1,215 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamBatch;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.sql.MemberSqlRepository;
+import study.querydsl.repository.sql.ParallelMemberSqlRepository;
+import study.querydsl.support.QueryBudget;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.support.QueryBudgetExtension.measure;
+
+// 리포지토리 메서드마다 쿼리/메모리 예산. 준비 데이터는 @BeforeEach, 측정은 호출 한 번만.
+@SpringBootTest
+@Transactional
+class RepositoryQueryBudgetTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    CoalescingMemberRepository coalescingRepository;
+
+    @Autowired
+    MemberSqlRepository sqlRepository;
+
+    @Autowired
+    ParallelMemberSqlRepository parallelRepository;
+
+    List<Long> memberIds = new ArrayList<>();
+    List<Long> teamIds = new ArrayList<>();
+    MemberSearchCondition condition;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        teamIds.add(teamA.getId());
+        teamIds.add(teamB.getId());
+        for (int i = 1; i <= 4; i++) {
+            Member member = new Member("member" + i, i * 10, i <= 2 ? teamA : teamB);
+            em.persist(member);
+            memberIds.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(40);
+    }
+
+    @Test
+    @QueryBudget(statements = 2, selects = 2, rows = 4, allocatedBytes = 160 * 1024)
+    public void memberRepositorySearchPageComplex() {
+        Page<MemberTeamDto> page = measure(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 2)));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 80 * 1024)
+    public void memberRepositoryFindByUsername() {
+        List<Member> result = measure(() -> memberRepository.findByUsername("member1"));
+
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 128 * 1024)
+    public void searchByBuilder() {
+        List<MemberTeamDto> result = measure(() -> memberJpaRepository.searchByBuilder(condition));
+
+        assertThat(result).hasSize(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 1, allocatedBytes = 64 * 1024)
+    public void memberJpaRepositoryFindByUsername() {
+        List<Member> result = measure(() -> memberJpaRepository.findByUsername("member1"));
+
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 4, allocatedBytes = 64 * 1024)
+    public void memberJpaRepositoryFindAll() {
+        List<Member> result = measure(() -> memberJpaRepository.findAll());
+
+        assertThat(result).hasSize(4);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 112 * 1024)
+    public void searchMember() {
+        List<Member> result = measure(() -> memberJpaRepository.searchMember(condition));
+
+        assertThat(result).hasSize(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 112 * 1024)
+    public void searchMemberReadOnly() {
+        List<Member> result = measure(() -> memberJpaRepository.searchMemberReadOnly(condition));
+
+        assertThat(result).hasSize(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 4, allocatedBytes = 96 * 1024)
+    public void findAllByIds() {
+        List<Member> result = measure(() -> memberJpaRepository.findAllByIds(memberIds));
+
+        assertThat(result).hasSize(4);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 2, allocatedBytes = 64 * 1024)
+    public void findAllTeamsByIds() {
+        List<Team> result = measure(() -> memberJpaRepository.findAllTeamsByIds(teamIds));
+
+        assertThat(result).hasSize(2);
+    }
+
+    @Test
+    @QueryBudget(statements = 2, selects = 2, rows = 3, allocatedBytes = 176 * 1024)
+    public void memberTestRepositoryApplyPagination() {
+        Page<Member> page = measure(() -> memberTestRepository.applyPagination(condition, PageRequest.of(0, 2)));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 112 * 1024)
+    public void memberTestRepositoryApplySlicing() {
+        Slice<Member> slice = measure(() -> memberTestRepository.applySlicing(condition, PageRequest.of(0, 2)));
+
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    // 쓰기 트랜잭션 안이라 합치지 않고 바로 실행한다.
+    @Test
+    @QueryBudget(statements = 2, selects = 2, rows = 4, allocatedBytes = 160 * 1024)
+    public void coalescingSearchPageComplex() {
+        Page<MemberTeamDto> page = measure(() -> coalescingRepository.searchPageComplex(condition, PageRequest.of(0, 2)));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 32 * 1024)
+    public void sqlSearch() {
+        List<MemberTeamDto> result = measure(() -> sqlRepository.search(condition));
+
+        assertThat(result).hasSize(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 48 * 1024)
+    public void sqlSearchBatch() {
+        MemberTeamBatch result = measure(() -> sqlRepository.searchBatch(condition));
+
+        assertThat(result.size()).isEqualTo(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 2, selects = 2, rows = 3, allocatedBytes = 48 * 1024)
+    public void sqlSearchPageComplex() {
+        Page<MemberTeamDto> page = measure(() -> sqlRepository.searchPageComplex(condition, PageRequest.of(0, 2)));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 32 * 1024)
+    public void sqlSearchSlice() {
+        Slice<MemberTeamDto> slice = measure(() -> sqlRepository.searchSlice(condition, PageRequest.of(0, 2)));
+
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    // 쓰기 트랜잭션 안이라 나누지 않고 테스트 스레드에서 한 번에 읽는다.
+    @Test
+    @QueryBudget(statements = 1, selects = 1, rows = 3, allocatedBytes = 32 * 1024)
+    public void parallelSearch() {
+        List<MemberTeamDto> result = measure(() -> parallelRepository.search(condition));
+
+        assertThat(result).hasSize(3);
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.repository.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.sql.MemberSqlRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.repository.sql.MemberSqlQueries.AGE_GOE;
+import static study.querydsl.repository.sql.MemberSqlQueries.AGE_LOE;
+import static study.querydsl.repository.sql.MemberSqlQueries.SHAPE_COUNT;
+import static study.querydsl.repository.sql.MemberSqlQueries.TEAM_NAME;
+import static study.querydsl.repository.sql.MemberSqlQueries.USERNAME;
+
+@SpringBootTest
+@Transactional
+class MemberNamedQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberNamedQueries namedQueries;
+
+    @Autowired
+    MemberSqlRepository memberSqlRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        for (int i = 0; i < 100; i++) {
+            Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+            em.persist(new Member("member" + i, i, selectedTeam));
+        }
+        em.persist(new Member("noTeam", 50));
+        em.flush();
+        em.clear();
+    }
+
+    // 16가지 조합 모두 SQL 경로와 같은 결과
+    @Test
+    public void allShapes() {
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = conditionOf(shape);
+
+            List<MemberTeamDto> content = namedQueries.content(condition);
+            assertThat(content).as("shape %d", shape)
+                    .containsExactlyInAnyOrderElementsOf(memberSqlRepository.search(condition));
+            assertThat(namedQueries.count(condition)).as("shape %d", shape).isEqualTo(content.size());
+        }
+    }
+
+    @Test
+    public void paging() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> page = namedQueries.content(condition, 10, 5);
+
+        assertThat(page).hasSize(5);
+        assertThat(page).allMatch(dto -> "teamA".equals(dto.getTeamName()));
+        // 팀 이름은 한 인스턴스
+        assertThat(page.get(0).getTeamName()).isSameAs(page.get(4).getTeamName());
+    }
+
+    private static MemberSearchCondition conditionOf(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & USERNAME) != 0) {
+            condition.setUsername("member40");
+        }
+        if ((shape & TEAM_NAME) != 0) {
+            condition.setTeamName("teamA");
+        }
+        if ((shape & AGE_GOE) != 0) {
+            condition.setAgeGoe(30);
+        }
+        if ((shape & AGE_LOE) != 0) {
+            condition.setAgeLoe(60);
+        }
+        return condition;
+    }
+}
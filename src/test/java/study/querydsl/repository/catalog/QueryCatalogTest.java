@@ -0,0 +1,77 @@
+package study.querydsl.repository.catalog;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.H2Templates;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.querydsl.repository.sql.MemberSqlQueries;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.repository.sql.MemberSqlQueries.AGE_GOE;
+import static study.querydsl.repository.sql.MemberSqlQueries.SHAPE_COUNT;
+import static study.querydsl.repository.sql.MemberSqlQueries.TEAM_NAME;
+import static study.querydsl.repository.sql.MemberSqlQueries.USERNAME;
+
+class QueryCatalogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void generateAndRead() throws Exception {
+        SortedMap<String, String> generated = QueryCatalogGenerator.generate();
+        assertThat(generated).hasSize(SHAPE_COUNT * 6);
+
+        Path file = QueryCatalogGenerator.write(dir, generated);
+        QueryCatalog catalog;
+        try (InputStream in = Files.newInputStream(file)) {
+            catalog = QueryCatalog.read(in);
+        }
+
+        // 여러 줄 SQL/JPQL도 그대로 돌아온다.
+        assertThat(catalog.size()).isEqualTo(generated.size());
+        for (Map.Entry<String, String> entry : generated.entrySet()) {
+            assertThat(catalog.get(entry.getKey(), () -> null)).isEqualTo(entry.getValue());
+        }
+
+        // 같은 입력이면 같은 파일
+        byte[] first = Files.readAllBytes(file);
+        QueryCatalogGenerator.write(dir, QueryCatalogGenerator.generate());
+        assertThat(Files.readAllBytes(file)).isEqualTo(first);
+    }
+
+    @Test
+    public void jpqlShapes() {
+        MemberJpqlQueries queries = new MemberJpqlQueries(QueryCatalog.EMPTY);
+
+        assertThat(queries.content(USERNAME | AGE_GOE))
+                .contains("left join member1.team as team")
+                .contains("member1.username = ?1 and member1.age >= ?2");
+        // teamName 조건이 없으면 count에서 team join이 빠진다.
+        assertThat(queries.count(AGE_GOE)).startsWith("select count(member1)").doesNotContain("join");
+        assertThat(queries.count(TEAM_NAME)).contains("left join member1.team as team");
+    }
+
+    @Test
+    public void catalogFirstThenSerialize() {
+        QueryCatalog catalog = new QueryCatalog(Map.of(
+                QueryCatalog.key("sql", "content", USERNAME), "select 1",
+                QueryCatalog.key("jpql", "count", USERNAME), "select count(m) from Member m"));
+        Configuration configuration = new Configuration(H2Templates.DEFAULT);
+
+        MemberSqlQueries sql = new MemberSqlQueries(configuration, catalog);
+        assertThat(sql.content(USERNAME)).isEqualTo("select 1");
+        // 카탈로그에 없는 키는 직렬화
+        assertThat(sql.content(TEAM_NAME)).isEqualTo(new MemberSqlQueries(configuration).content(TEAM_NAME));
+
+        MemberJpqlQueries jpql = new MemberJpqlQueries(catalog);
+        assertThat(jpql.count(USERNAME)).isEqualTo("select count(m) from Member m");
+        assertThat(jpql.content(USERNAME)).isEqualTo(new MemberJpqlQueries(QueryCatalog.EMPTY).content(USERNAME));
+    }
+}
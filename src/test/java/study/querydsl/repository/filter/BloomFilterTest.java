@@ -0,0 +1,48 @@
+package study.querydsl.repository.filter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    public void sizing() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // 약 9.6 비트/원소, 해시 7개
+        assertThat(filter.getBits()).isBetween(9_585_000L, 9_586_000L);
+        assertThat(filter.getHashes()).isEqualTo(7);
+        assertThat(filter.bitsSet()).isZero();
+        assertThat(filter.mightContain("member1")).isFalse();
+    }
+}
@@ -0,0 +1,209 @@
+package study.querydsl.repository.filter;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetProperties;
+import study.querydsl.dataset.GeneratedDataset;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.CommittedData;
+import study.querydsl.support.QueryCounter;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+// 커밋 이벤트로 채워지는지 봐야 하니 데이터는 커밋해 두고 끝나면 넣은 것만 지운다.
+@SpringBootTest(properties = {"username-filter.enabled=true", "username-filter.expected-insertions=10000"})
+class UsernameFilterTest {
+
+    @Autowired
+    UsernameFilter usernameFilter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    CommittedData committedData;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Long member2Id;
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member member1 = new Member("member1", 10);
+            Member member2 = new Member("member2", 20);
+            em.persist(member1);
+            em.persist(member2);
+            committedData.track(member1);
+            committedData.track(member2);
+            member2Id = member2.getId();
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void missingUsernameSkipsDatabase() {
+        long negatives = usernameFilter.stats().getNegatives();
+
+        queryCounter.start();
+        List<Member> missing = memberRepository.findByUsername("nobody");
+        List<Member> missingQuerydsl = memberJpaRepository.findByUsername_Querydsl("nobody");
+        QueryCounter.Counts counts = queryCounter.stop();
+
+        assertThat(missing).isEmpty();
+        assertThat(missingQuerydsl).isEmpty();
+        assertThat(counts.getSelects()).isZero();
+        assertThat(usernameFilter.stats().getNegatives() - negatives).isEqualTo(2);
+    }
+
+    @Test
+    public void committedInsertAndUpdateAreVisible() {
+        assertThat(memberRepository.findByUsername("member1")).extracting("age").containsExactly(10);
+        assertThat(memberJpaRepository.findByUsername_Querydsl("member2")).extracting("age").containsExactly(20);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member member3 = new Member("member3", 30);
+            em.persist(member3);
+            committedData.track(member3);
+            em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult()
+                    .setUsername("renamed");
+        });
+
+        assertThat(memberRepository.findByUsername("member3")).extracting("age").containsExactly(30);
+        assertThat(memberRepository.findByUsername("renamed")).extracting("age").containsExactly(10);
+    }
+
+    @Test
+    public void writeTransactionSeesUnflushedInsert() {
+        List<Member> result = new TransactionTemplate(transactionManager).execute(status -> {
+            Member pending = new Member("pending", 40);
+            em.persist(pending);
+            committedData.track(pending);
+            return memberRepository.findByUsername("pending");
+        });
+
+        assertThat(result).extracting("age").containsExactly(40);
+    }
+
+    // DatasetGenerator는 JPA를 거치지 않고 적재한 뒤 member를 썼다고 알린다. rebuild 전까지 DB로 간다.
+    @Test
+    public void datasetGeneratorFallsBackToDatabase() {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setTeams(2);
+        properties.setMembers(100);
+        GeneratedDataset dataset = committedData.track(datasetGenerator.generate(properties));
+        String username = jdbcTemplate.queryForObject(
+                "select username from member where member_id = ?", String.class, dataset.getFirstMemberId());
+
+        assertThat(usernameFilter.stats().isReady()).isFalse();
+        assertThat(memberRepository.findByUsername(username)).hasSize(1);
+
+        usernameFilter.rebuild();
+        queryCounter.start();
+        assertThat(memberRepository.findByUsername(username)).hasSize(1);
+        assertThat(queryCounter.stop().getSelects()).isEqualTo(1);
+        assertThat(usernameFilter.stats().isReady()).isTrue();
+    }
+
+    @Test
+    public void rebuildDropsDeletedUsernames() {
+        // 엔티티 삭제는 필터에 false positive로 남는다. DB까지 간다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.remove(em.find(Member.class, member2Id)));
+        long falsePositives = usernameFilter.stats().getFalsePositives();
+
+        assertThat(memberRepository.findByUsername("member2")).isEmpty();
+        assertThat(usernameFilter.stats().getFalsePositives() - falsePositives).isEqualTo(1);
+
+        usernameFilter.rebuild();
+        queryCounter.start();
+        assertThat(memberRepository.findByUsername("member2")).isEmpty();
+        assertThat(queryCounter.stop().getSelects()).isZero();
+        assertThat(memberRepository.findByUsername("member1")).hasSize(1);
+
+        UsernameFilterStats stats = usernameFilter.stats();
+        assertThat(stats.isReady()).isTrue();
+        assertThat(stats.getExpectedInsertions()).isEqualTo(10_000);
+        assertThat(stats.getObservedFalsePositiveRate()).isBetween(0.0, 1.0);
+    }
+
+    // 벌크 update는 엔티티 이벤트가 없다. 새 username이 필터에 없으니 rebuild 전까지 DB로 가야 한다.
+    @Test
+    public void bulkUsernameUpdateFallsBackToDatabase() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.username, "bulkRenamed")
+                .where(member.id.eq(member2Id))
+                .execute());
+
+        assertThat(usernameFilter.stats().isReady()).isFalse();
+        assertThat(memberRepository.findByUsername("bulkRenamed")).extracting("age").containsExactly(20);
+        assertThat(memberJpaRepository.findByUsername_Querydsl("bulkRenamed")).extracting("age").containsExactly(20);
+
+        usernameFilter.rebuild();
+        assertThat(usernameFilter.stats().isReady()).isTrue();
+        assertThat(memberRepository.findByUsername("bulkRenamed")).extracting("age").containsExactly(20);
+    }
+
+    // 나이만 바꾸는 벌크 update는 username을 건드리지 않으니 필터를 그대로 쓴다.
+    @Test
+    public void bulkAgeUpdateKeepsFilter() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, 21)
+                .where(member.id.eq(member2Id))
+                .execute());
+
+        assertThat(usernameFilter.stats().isReady()).isTrue();
+    }
+
+    @Test
+    public void jdbcWriteFallsBackToDatabase() {
+        jdbcTemplate.update("update member set username = ? where member_id = ?", "jdbcRenamed", member2Id);
+
+        assertThat(usernameFilter.stats().isReady()).isFalse();
+        assertThat(memberRepository.findByUsername("jdbcRenamed")).extracting("age").containsExactly(20);
+
+        usernameFilter.rebuild();
+        assertThat(usernameFilter.stats().isReady()).isTrue();
+        assertThat(memberRepository.findByUsername("jdbcRenamed")).hasSize(1);
+    }
+}
@@ -0,0 +1,207 @@
+package study.querydsl.repository.loader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.support.CommittedData;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+// 배치는 디스패처 스레드에서 읽으니 데이터는 커밋해 두고 끝나면 넣은 것만 지운다.
+@SpringBootTest(properties = {
+        "member-loader.window-micros=50000",
+        "member-loader.max-batch-size=8",
+        "member-loader.near-cache.ttl-ms=60000",
+        "member-loader.near-cache.negative-ttl-ms=60000"
+})
+class MemberBatchLoaderTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberBatchLoader memberLoader;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    CommittedData committedData;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    List<Long> memberIds = new ArrayList<>();
+    Long teamId;
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team team = new Team("teamA");
+            em.persist(team);
+            committedData.track(team);
+            teamId = team.getId();
+            for (int i = 0; i < 16; i++) {
+                Member member = new Member("member" + i, i, i == 0 ? team : null);
+                em.persist(member);
+                committedData.track(member);
+                memberIds.add(member.getId());
+            }
+        });
+        memberLoader.clearCache();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void concurrentLoadIsBatched() {
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        long batches = memberLoader.getBatches();
+        try {
+            List<CompletableFuture<Optional<MemberTeamDto>>> results = memberIds.stream()
+                    .map(id -> CompletableFuture.supplyAsync(() -> memberJpaRepository.loadBatched(id), callers))
+                    .collect(Collectors.toList());
+
+            List<String> usernames = results.stream()
+                    .map(result -> result.join().get().getUsername())
+                    .collect(Collectors.toList());
+
+            assertThat(usernames).containsExactly(memberIds.stream()
+                    .map(id -> "member" + memberIds.indexOf(id))
+                    .toArray(String[]::new));
+        } finally {
+            callers.shutdown();
+        }
+        // 16개 / 최대 8개씩. 호출 스레드가 늦게 뜨면 조금 더 나뉠 수 있다.
+        assertThat(memberLoader.getBatches() - batches).isBetween(2L, 8L);
+    }
+
+    @Test
+    public void missingIdIsCached() {
+        long negativeHits = memberLoader.getNegativeHits();
+        long batches = memberLoader.getBatches();
+
+        assertThat(memberJpaRepository.loadBatched(-1L)).isEmpty();
+        assertThat(memberJpaRepository.loadBatched(-1L)).isEmpty();
+
+        assertThat(memberLoader.getNegativeHits() - negativeHits).isEqualTo(1);
+        assertThat(memberLoader.getBatches() - batches).isEqualTo(1);
+    }
+
+    @Test
+    public void committedDeleteEvictsCache() {
+        Long id = memberIds.get(0);
+        assertThat(memberJpaRepository.loadBatched(id)).isPresent();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.remove(em.find(Member.class, id)));
+
+        assertThat(memberJpaRepository.loadBatched(id)).isEmpty();
+    }
+
+    @Test
+    public void committedUpdateEvictsCache() {
+        Long id = memberIds.get(3);
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getUsername).contains("member3");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.find(Member.class, id).setUsername("renamed"));
+
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getUsername).contains("renamed");
+    }
+
+    // 캐시에 팀 이름이 들어 있으니 팀 이름 변경도 지운다.
+    @Test
+    public void committedTeamRenameEvictsCache() {
+        Long id = memberIds.get(0);
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getTeamName).contains("teamA");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.find(Team.class, teamId).setName("teamB"));
+
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getTeamName).contains("teamB");
+    }
+
+    @Test
+    public void bulkAndJdbcWritesClearCache() {
+        Long id = memberIds.get(5);
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getAge).contains(5);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> queryFactory
+                .update(member)
+                .set(member.age, 50)
+                .where(member.id.eq(id))
+                .execute());
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getAge).contains(50);
+
+        jdbcTemplate.update("update member set age = ? where member_id = ?", 51, id);
+        assertThat(memberJpaRepository.loadBatched(id)).map(MemberTeamDto::getAge).contains(51);
+    }
+
+    // 호출자마다 복사본이라 바꿔도 다른 호출자나 캐시에 남지 않는다.
+    @Test
+    public void callersGetOwnCopies() {
+        Long id = memberIds.get(2);
+        MemberTeamDto first = memberJpaRepository.loadBatched(id).get();
+        first.setUsername("changed");
+
+        MemberTeamDto second = memberJpaRepository.loadBatched(id).get();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getUsername()).isEqualTo("member2");
+    }
+
+    // 트랜잭션 안에서는 묶지 않고 그 트랜잭션에서 읽는다. 아직 커밋 안 된 변경도 보인다.
+    @Test
+    public void transactionReadsDirectly() {
+        long batches = memberLoader.getBatches();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.find(Member.class, memberIds.get(0)).setAge(99);
+            assertThat(memberJpaRepository.loadBatched(memberIds.get(0))).map(MemberTeamDto::getAge).contains(99);
+            status.setRollbackOnly();
+        });
+        assertThat(memberLoader.getBatches()).isEqualTo(batches);
+        assertThat(memberLoader.cacheSize()).isZero();
+    }
+
+    @Test
+    public void findByIdIsPlainFind() {
+        long batches = memberLoader.getBatches();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member found = memberJpaRepository.findById(memberIds.get(0)).get();
+            assertThat(em.contains(found)).isTrue();
+        });
+        assertThat(memberJpaRepository.findById(memberIds.get(1))).map(Member::getUsername).contains("member1");
+        assertThat(memberLoader.getBatches()).isEqualTo(batches);
+    }
+}
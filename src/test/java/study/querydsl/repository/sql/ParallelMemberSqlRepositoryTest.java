@@ -0,0 +1,98 @@
+package study.querydsl.repository.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.CommittedData;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 구간별로 다른 커넥션에서 읽으니 데이터는 커밋해 두고 끝나면 넣은 구간만 지운다.
+@SpringBootTest(properties = {
+        "parallel-scan.max-parallelism=4",
+        "parallel-scan.min-rows-per-partition=1000"
+})
+class ParallelMemberSqlRepositoryTest {
+
+    @Autowired
+    ParallelMemberSqlRepository parallelRepository;
+
+    @Autowired
+    MemberSqlRepository sqlRepository;
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CommittedData committedData;
+
+    @BeforeEach
+    public void before() {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setTeams(10);
+        properties.setMembers(10_000);
+        committedData.track(datasetGenerator.generate(properties));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(40);
+
+        List<MemberTeamDto> result = parallelRepository.search(condition);
+
+        List<Long> expected = sqlRepository.search(condition).stream()
+                .map(MemberTeamDto::getMemberId)
+                .sorted(Comparator.naturalOrder())
+                .collect(Collectors.toList());
+        assertThat(result).extracting("memberId").containsExactlyElementsOf(expected);
+        assertThat(result).extracting("teamName").doesNotContainNull();
+    }
+
+    @Test
+    public void parallelismFollowsTableSize() {
+        assertThat(parallelRepository.parallelism(500)).isEqualTo(0);
+        assertThat(parallelRepository.parallelism(2_500)).isEqualTo(2);
+        assertThat(parallelRepository.parallelism(10_000)).isEqualTo(4);
+    }
+
+    @Test
+    public void writeTransactionFallsBackToSingleQuery() {
+        // 아직 커밋 안 된 row도 보여야 한다.
+        int committed = sqlRepository.search(new MemberSearchCondition()).size();
+        List<MemberTeamDto> result = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.update("insert into member (member_id, age, username) values (?, ?, ?)",
+                    Long.MAX_VALUE, 30, "uncommitted");
+            List<MemberTeamDto> found = parallelRepository.search(new MemberSearchCondition());
+            status.setRollbackOnly();
+            return found;
+        });
+
+        assertThat(result).hasSize(committed + 1);
+    }
+}
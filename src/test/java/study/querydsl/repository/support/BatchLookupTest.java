@@ -0,0 +1,166 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.support.CommittedData;
+import study.querydsl.support.QueryCounter;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// parallel 조회는 조각마다 다른 커넥션에서 읽으니 데이터는 커밋해 두고 끝나면 넣은 것만 지운다.
+@SpringBootTest(properties = {
+        "batch-lookup.chunk-size=4",
+        "batch-lookup.max-parallelism=3"
+})
+class BatchLookupTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Autowired
+    QueryCounter queryCounter;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    CommittedData committedData;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    List<Long> memberIds = new ArrayList<>();
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            committedData.track(teamA);
+            committedData.track(teamB);
+            teamIds.add(teamA.getId());
+            teamIds.add(teamB.getId());
+            for (int i = 0; i < 10; i++) {
+                Member member = new Member("member" + i, i, i % 2 == 0 ? teamA : teamB);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void chunksArePaddedToPowersOfTwo() {
+        List<List<Long>> chunks = BatchLookup.chunks(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), 4);
+
+        assertThat(chunks).containsExactly(
+                Arrays.asList(1L, 2L, 3L, 4L),
+                Arrays.asList(5L, 6L, 7L, 8L),
+                Arrays.asList(9L, 10L, 11L, 11L));
+        assertThat(BatchLookup.pad(Collections.singletonList(1L))).containsExactly(1L);
+        assertThat(BatchLookup.pad(Arrays.asList(1L, 2L, 3L, 4L, 5L))).hasSize(8).endsWith(5L, 5L, 5L, 5L);
+    }
+
+    @Test
+    public void chunksSkipDuplicatesAndNulls() {
+        List<List<Long>> chunks = BatchLookup.chunks(Arrays.asList(3L, null, 1L, 3L, 2L), 4);
+
+        assertThat(chunks).containsExactly(Arrays.asList(3L, 1L, 2L, 2L));
+        assertThat(BatchLookup.chunks(Collections.emptyList(), 4)).isEmpty();
+    }
+
+    @Test
+    public void inRequestOrder() {
+        List<Long> ids = Arrays.asList(30L, 10L, 99L, 20L, 10L);
+        List<Long> found = Arrays.asList(10L, 20L, 30L);
+
+        assertThat(BatchLookup.inRequestOrder(ids, found, Function.identity())).containsExactly(30L, 10L, 20L);
+    }
+
+    @Test
+    public void findAllByIds() {
+        List<Long> ids = new ArrayList<>(memberIds);
+        Collections.reverse(ids);
+        ids.add(2, -1L); // 없는 id는 빠진다.
+
+        queryCounter.start();
+        List<Member> result = memberJpaRepository.findAllByIds(ids);
+        QueryCounter.Counts counts = queryCounter.stop();
+
+        List<Long> expected = new ArrayList<>(memberIds);
+        Collections.reverse(expected);
+        assertThat(result).extracting("id").containsExactlyElementsOf(expected);
+        // 11개 / 조각 4개 = 3번
+        assertThat(counts.getSelects()).isEqualTo(3);
+    }
+
+    @Test
+    public void findAllByIdsParallel() {
+        List<Long> ids = new ArrayList<>(memberIds);
+        Collections.shuffle(ids);
+
+        List<Member> result = memberJpaRepository.findAllByIds(ids, true);
+
+        assertThat(result).extracting("id").containsExactlyElementsOf(ids);
+        assertThat(result).extracting("username").doesNotContainNull();
+    }
+
+    @Test
+    public void findAllByIdsParallelInTransactionRunsSequentially() {
+        List<Long> ids = new ArrayList<>(memberIds);
+
+        List<Member> result = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Member> members = memberJpaRepository.findAllByIds(ids, true);
+            // 현재 영속성 컨텍스트에서 읽었다.
+            assertThat(members).allMatch(em::contains);
+            return members;
+        });
+
+        assertThat(result).extracting("id").containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    public void findAllTeamsByIds() {
+        List<Long> ids = Arrays.asList(teamIds.get(1), teamIds.get(0));
+
+        List<Team> result = memberJpaRepository.findAllTeamsByIds(ids);
+
+        assertThat(result).extracting("name").containsExactly("teamB", "teamA");
+    }
+
+    @Test
+    public void querydsl4RepositorySupport() {
+        List<Long> ids = Arrays.asList(memberIds.get(7), memberIds.get(0), memberIds.get(3));
+
+        assertThat(memberTestRepository.findAllByIds(ids, false)).extracting("username")
+                .containsExactly("member7", "member0", "member3");
+        assertThat(memberTestRepository.findAllByIds(ids, true)).extracting("username")
+                .containsExactly("member7", "member0", "member3");
+    }
+}
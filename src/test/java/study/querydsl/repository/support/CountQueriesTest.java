@@ -0,0 +1,162 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+@SpringBootTest
+@Transactional
+public class CountQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.persist(new Member("member6", 60));
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void unusedLeftJoinIsDropped() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(member.age.goe(20));
+
+        JPAQuery<Long> count = CountQueries.countOf(queryFactory, content);
+
+        assertThat(count.toString()).doesNotContain("join");
+        assertThat(count.fetchOne()).isEqualTo(5L);
+    }
+
+    @Test
+    public void referencedLeftJoinIsKept() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"));
+
+        JPAQuery<Long> count = CountQueries.countOf(queryFactory, content);
+
+        assertThat(count.toString()).contains("left join member1.team as team");
+        assertThat(count.fetchOne()).isEqualTo(2L);
+    }
+
+    @Test
+    public void orderByPagingAndFetchJoinAreDropped() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .orderBy(member.age.desc())
+                .offset(1)
+                .limit(2);
+
+        JPAQuery<Long> count = CountQueries.countOf(queryFactory, content);
+
+        assertThat(count.toString()).doesNotContain("order by", "fetch", "join");
+        assertThat(count.fetchOne()).isEqualTo(6L);
+        // 원래 쿼리는 그대로
+        assertThat(content.fetch()).extracting("username").containsExactly("member5", "member4");
+    }
+
+    // inner join은 team이 없는 member를 걸러내므로 남긴다.
+    @Test
+    public void innerJoinIsKept() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .join(member.team, team);
+
+        assertThat(CountQueries.countOf(queryFactory, content).fetchOne()).isEqualTo(4L);
+    }
+
+    // 컬렉션 join은 row 수가 달라지므로 남긴다.
+    @Test
+    public void collectionJoinIsKept() {
+        JPAQuery<Team> content = queryFactory
+                .selectFrom(team)
+                .leftJoin(team.members, member);
+        assertThat(CountQueries.countOf(queryFactory, content).fetchOne()).isEqualTo(content.fetch().size());
+
+        JPAQuery<Team> distinct = queryFactory
+                .selectFrom(team).distinct()
+                .leftJoin(team.members, member).fetchJoin();
+        assertThat(CountQueries.countOf(queryFactory, distinct).fetchOne()).isEqualTo(2L);
+    }
+
+    // 연관관계 없는 join은 to-one인지 알 수 없으니 남긴다.
+    @Test
+    public void adHocLeftJoinIsKept() {
+        JPAQuery<Member> content = queryFactory
+                .selectFrom(member)
+                .leftJoin(team).on(team.name.in("teamA", "teamB"));
+
+        JPAQuery<Long> count = CountQueries.countOf(queryFactory, content);
+
+        assertThat(count.toString()).contains("left join Team team");
+        assertThat(count.fetchOne()).isEqualTo(content.fetch().size());
+    }
+
+    // root가 아닌 select의 distinct는 그 값을 센다.
+    @Test
+    public void distinctProjectionIsCounted() {
+        em.persist(new Member("member7", 10));
+        JPAQuery<Integer> content = queryFactory
+                .select(member.age).distinct()
+                .from(member)
+                .where(member.username.in("member1", "member2", "member7"));
+
+        assertThat(CountQueries.countOf(queryFactory, content).fetchOne()).isEqualTo(2L);
+        assertThat(content.fetch()).hasSize(2);
+
+        JPAQuery<Tuple> tuples = queryFactory
+                .select(member.username, member.age).distinct()
+                .from(member);
+        assertThatThrownBy(() -> CountQueries.countOf(queryFactory, tuples))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // group by는 그룹 수를 센다.
+    @Test
+    public void groupByCountsGroups() {
+        JPAQuery<Tuple> content = queryFactory
+                .select(team.name, member.count())
+                .from(member)
+                .join(member.team, team)
+                .where(team.name.in("teamA", "teamB"))
+                .groupBy(team.name);
+
+        assertThat(CountQueries.fetchCount(queryFactory, content)).isEqualTo(2L);
+        assertThat(CountQueries.fetchCount(queryFactory, queryFactory.selectFrom(member).where(member.age.goe(20))))
+                .isEqualTo(5L);
+    }
+}
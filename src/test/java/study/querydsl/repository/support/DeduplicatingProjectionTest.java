@@ -0,0 +1,159 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetProperties;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.support.CommittedData;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// DB가 필요한 테스트만 DatasetGenerator로 커밋해서 넣고 끝나면 넣은 구간만 지운다.
+@SpringBootTest
+class DeduplicatingProjectionTest {
+
+    static final int TEAMS = 10;
+    static final int MEMBERS = 50_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DatasetGenerator datasetGenerator;
+
+    @Autowired
+    CommittedData committedData;
+
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before() {
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void dtoProjection() {
+        generateDataset();
+        List<MemberTeamDto> plain = queryFactory
+                .select(dto())
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+        List<MemberTeamDto> deduplicated = queryFactory
+                .select(DeduplicatingProjection.of(dto(), team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+
+        // 임베디드 H2는 같은 값이면 같은 String 인스턴스를 돌려주니 여기서는 결과가 같은지만 본다. (인스턴스 수는 아래에서)
+        assertThat(deduplicated).isEqualTo(plain);
+    }
+
+    @Test
+    public void tupleProjection() {
+        generateDataset();
+        List<Tuple> result = queryFactory
+                .select(DeduplicatingProjection.of(Projections.tuple(member.username, team.name), team.name))
+                .from(member)
+                .join(member.team, team)
+                .fetch();
+
+        assertThat(result).hasSize(MEMBERS);
+        assertThat(result).extracting(tuple -> tuple.get(team.name)).doesNotContainNull();
+    }
+
+    // 원격 DB 드라이버처럼 row마다 새 String이 오는 경우. 그냥 프로젝션은 row 수만큼, 중복 제거하면 팀 수만큼 남는다.
+    @Test
+    public void sharesInstancesAcrossRows() {
+        int rows = 1_000;
+        QMemberTeamDto projection = dto();
+        DeduplicatingProjection<MemberTeamDto> deduplicating = DeduplicatingProjection.of(projection, team.name);
+        FactoryExpression<Tuple> tuple = Projections.tuple(member.username, team.name);
+        DeduplicatingProjection<Tuple> deduplicatingTuple = DeduplicatingProjection.of(tuple, team.name);
+
+        List<MemberTeamDto> plain = new ArrayList<>();
+        List<MemberTeamDto> deduplicated = new ArrayList<>();
+        List<Tuple> plainTuples = new ArrayList<>();
+        List<Tuple> deduplicatedTuples = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            plain.add(projection.newInstance((long) i, "member", 20, (long) (i % TEAMS), teamName(i)));
+            deduplicated.add(deduplicating.newInstance((long) i, "member", 20, (long) (i % TEAMS), teamName(i)));
+            plainTuples.add(tuple.newInstance("member", teamName(i)));
+            deduplicatedTuples.add(deduplicatingTuple.newInstance("member", teamName(i)));
+        }
+
+        assertThat(deduplicated).isEqualTo(plain);
+        assertThat(distinctInstances(plain, MemberTeamDto::getTeamName)).isEqualTo(rows);
+        assertThat(distinctInstances(deduplicated, MemberTeamDto::getTeamName)).isEqualTo(TEAMS);
+        assertThat(distinctInstances(plainTuples, row -> row.get(team.name))).isEqualTo(rows);
+        assertThat(distinctInstances(deduplicatedTuples, row -> row.get(team.name))).isEqualTo(TEAMS);
+    }
+
+    @Test
+    public void boundedDictionary() {
+        StringDictionary dictionary = new StringDictionary(2);
+        String a = dictionary.intern(new String("a"));
+        assertThat(dictionary.intern(new String("a"))).isSameAs(a);
+        dictionary.intern("b");
+        String c = new String("c");
+
+        assertThat(dictionary.intern(c)).isSameAs(c);
+        assertThat(dictionary.size()).isEqualTo(2);
+    }
+
+    private void generateDataset() {
+        DatasetProperties properties = new DatasetProperties();
+        properties.setTeams(TEAMS);
+        properties.setMembers(MEMBERS);
+        committedData.track(datasetGenerator.generate(properties));
+    }
+
+    // 이어 붙이면 row마다 새 인스턴스
+    private static String teamName(int row) {
+        return "team-name-" + row % TEAMS;
+    }
+
+    private static QMemberTeamDto dto() {
+        return new QMemberTeamDto(
+                member.id.as("memberId"),
+                member.username,
+                member.age,
+                team.id.as("teamId"),
+                team.name.as("teamName"));
+    }
+
+    private static <T> int distinctInstances(List<T> rows, Function<T, String> column) {
+        Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (T row : rows) {
+            String value = column.apply(row);
+            if (value != null) {
+                instances.add(value);
+            }
+        }
+        return instances.size();
+    }
+}
@@ -0,0 +1,98 @@
+package study.querydsl.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+public class PredicateCompilerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    List<Member> members = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        members.add(new Member("member1", 10, teamA));
+        members.add(new Member("member2", 20, teamA));
+        members.add(new Member("member3", 30, teamB));
+        members.add(new Member("member4", 40, teamB));
+        members.add(new Member("Member_5", 50));
+        members.add(new Member(null, 60));
+        members.forEach(em::persist);
+        em.flush();
+    }
+
+    @Test
+    public void sameResultAsDatabase() {
+        List<Predicate> predicates = Arrays.asList(
+                member.age.between(10, 40).and(member.username.eq("member1")),
+                member.age.goe(20).or(member.username.startsWith("member")),
+                member.team.name.eq("teamB").and(member.age.gt(30)),
+                member.team.name.ne("teamA"),
+                member.team.isNull(),
+                member.username.ne("member1"),
+                member.username.ne("member1").not(),
+                member.username.containsIgnoreCase("MEMBER").and(member.age.loe(30)),
+                member.username.like("member_"),
+                member.username.like("Member\\_%"),
+                member.username.like("Member!_%"),
+                member.username.lower().eq("member_5"),
+                member.age.in(10, 30, 60),
+                member.age.notIn(10, 30),
+                member.username.isNull().or(member.age.lt(15)),
+                member.id.eq(members.get(2).getId())
+        );
+
+        for (Predicate predicate : predicates) {
+            Iterable<Member> expected = memberRepository.findAll(predicate);
+            assertThat(PredicateCompiler.filter(members, predicate, Member.class))
+                    .as(predicate.toString())
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void emptyBuilderMatchesAll() {
+        assertThat(PredicateCompiler.filter(members, new BooleanBuilder(), Member.class)).hasSize(6);
+
+        BooleanBuilder builder = new BooleanBuilder();
+        builder.and(member.age.goe(30));
+        builder.and(member.team.name.eq("teamB"));
+        assertThat(PredicateCompiler.filter(members, builder, Member.class))
+                .extracting("username")
+                .containsExactly("member3", "member4");
+    }
+
+    @Test
+    public void unsupported() {
+        assertThatThrownBy(() -> PredicateCompiler.compile(member.username.matches("m.*"), Member.class))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
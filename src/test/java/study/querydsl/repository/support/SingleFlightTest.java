@@ -0,0 +1,187 @@
+package study.querydsl.repository.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SingleFlightTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @Test
+    public void concurrentCallsShareOneExecution() throws Exception {
+        SingleFlight<String, List<String>> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<List<String>>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("teamA", 5000, () -> {
+                executions.incrementAndGet();
+                await(release);
+                return List.of("member1", "member2");
+            }), executor));
+        }
+        // leader 한 명이 실행 중이고 나머지는 기다리는 중
+        while (singleFlight.getExecutions() == 0) {
+            Thread.onSpinWait();
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        List<String> first = calls.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<List<String>> call : calls) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        }
+        assertThat(executions.get()).isEqualTo(1);
+        assertThat(singleFlight.getShared()).isEqualTo(7);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void leaderFailureDoesNotPoisonFollowers() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", 5000, () -> {
+            leaderStarted.countDown();
+            await(fail);
+            throw new IllegalStateException("boom");
+        }), executor);
+        leaderStarted.await();
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute("key", 5000, () -> "retried"), executor);
+        Thread.sleep(100);
+        fail.countDown();
+
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("retried");
+        assertThat(singleFlight.getFallbacks()).isEqualTo(1);
+        // 실패한 future는 남지 않는다.
+        assertThat(singleFlight.execute("key", 5000, () -> "fresh")).isEqualTo("fresh");
+    }
+
+    // leader가 실패하면 기다리던 호출 중 한 명만 다시 실행하고 나머지는 그걸 기다린다.
+    @Test
+    public void followersElectNewLeaderAfterFailure() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger retries = new AtomicInteger();
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", 5000, () -> {
+            leaderStarted.countDown();
+            await(fail);
+            throw new IllegalStateException("boom");
+        }), executor);
+        leaderStarted.await();
+        List<CompletableFuture<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            followers.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("key", 5000, () -> {
+                retries.incrementAndGet();
+                await(release);
+                return "retried";
+            }), executor));
+        }
+        Thread.sleep(100);
+        fail.countDown();
+        while (retries.get() == 0) {
+            Thread.onSpinWait();
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(IllegalStateException.class);
+        for (CompletableFuture<String> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("retried");
+        }
+        assertThat(retries.get()).isEqualTo(1);
+        assertThat(singleFlight.getShared()).isEqualTo(3);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void slowLeaderFallsBackAfterMaxWait() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", 5000, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return "slow";
+        }), executor);
+        leaderStarted.await();
+
+        long start = System.nanoTime();
+        assertThat(singleFlight.execute("key", 50, () -> "own")).isEqualTo("own");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+
+        release.countDown();
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("slow");
+        // 자리를 넘겨받은 쪽이 끝났으니 남은 future가 없다.
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    // leader가 실패해 다른 느린 호출이 leader가 되어도 처음 정한 대기 시간을 넘겨 기다리지 않는다.
+    @Test
+    public void retryWaitsOnlyUntilDeadline() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", 5000, () -> {
+            leaderStarted.countDown();
+            await(fail);
+            throw new IllegalStateException("boom");
+        }), executor);
+        leaderStarted.await();
+        long start = System.nanoTime();
+        CompletableFuture<Long> measured = CompletableFuture.supplyAsync(() -> {
+            assertThat(singleFlight.execute("key", 400, () -> "own")).isEqualTo("own");
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }, executor);
+        Thread.sleep(50);
+        // 늦게 기다리기 시작한 쪽이 먼저 깨어나서 실패 뒤에는 느린 호출이 leader가 된다.
+        List<CompletableFuture<String>> slow = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            slow.add(CompletableFuture.supplyAsync(() -> singleFlight.execute("key", 5000, () -> {
+                await(release);
+                return "slow";
+            }), executor));
+        }
+        Thread.sleep(250);
+        fail.countDown();
+
+        // 400ms에서 끝나야 한다. 실패 뒤에 400ms를 새로 기다리면 700ms 가까이 걸린다.
+        assertThat(measured.get(5, TimeUnit.SECONDS)).isLessThan(600);
+        release.countDown();
+        assertThatThrownBy(leader::join).hasCauseInstanceOf(IllegalStateException.class);
+        for (CompletableFuture<String> call : slow) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package study.querydsl.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberSearchProperties;
+import study.querydsl.repository.SearchEngine;
+import study.querydsl.support.CommittedData;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.entity.QMember.member;
+
+// 커밋 이벤트로 샤드에 쓰니 직접 커밋하고 끝나면 넣은 것만 지운다.
+@SpringBootTest(properties = {
+        "sharding.enabled=true",
+        "sharding.shards=4",
+        "sharding.url-template=jdbc:h2:mem:shard-writer-%d;DB_CLOSE_DELAY=-1"
+})
+class MemberShardWriterTest {
+
+    @Autowired
+    MemberShardWriter writer;
+
+    @Autowired
+    ShardedMemberRepository shardedRepository;
+
+    @Autowired
+    MemberShards shards;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberSearchProperties searchProperties;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CommittedData committedData;
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void committedWritesFollowPrimary() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Team[] teams = tx.execute(status -> {
+            Team teamA = new Team("shardTeamA");
+            Team teamB = new Team("shardTeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            committedData.track(teamA);
+            committedData.track(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamB));
+            return new Team[]{teamA, teamB};
+        });
+        Long teamAId = teams[0].getId();
+        Long teamBId = teams[1].getId();
+
+        // 기본 DB와 같은 id로 들어간다.
+        List<MemberTeamDto> teamA = shardedRepository.search(teamName("shardTeamA"));
+        assertThat(teamA).extracting("username").containsExactly("member1");
+        Long member1Id = jdbcTemplate.queryForObject(
+                "select member_id from member where username = 'member1' and team_id = ?", Long.class, teamAId);
+        assertThat(teamA.get(0).getMemberId()).isEqualTo(member1Id);
+
+        // 팀 이동, 나이 변경, 팀 이름 변경
+        tx.executeWithoutResult(status -> {
+            Member member1 = em.find(Member.class, member1Id);
+            member1.changeTeam(em.find(Team.class, teamBId));
+            member1.setAge(15);
+            em.find(Team.class, teamAId).setName("shardTeamC");
+        });
+        assertThat(shardedRepository.search(teamName("shardTeamA"))).isEmpty();
+        assertThat(shardedRepository.search(teamName("shardTeamB"))).extracting("age").containsExactly(15, 20);
+        assertThat(shardedRepository.targetShards(teamName("shardTeamC"))).containsExactly(shards.shardOf(teamAId));
+        assertThat(countInShards(member1Id)).isEqualTo(1);
+
+        // 삭제
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member1Id)));
+        assertThat(shardedRepository.search(teamName("shardTeamB"))).extracting("username").containsExactly("member2");
+        assertThat(countInShards(member1Id)).isZero();
+    }
+
+    @Test
+    public void backfillCopiesPrimary() {
+        Team team = new TransactionTemplate(transactionManager).execute(status -> {
+            Team backfillTeam = new Team("backfillTeam");
+            em.persist(backfillTeam);
+            committedData.track(backfillTeam);
+            return backfillTeam;
+        });
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("insert into member (member_id, age, username, team_id) values (next value for hibernate_sequence, ?, ?, ?)",
+                    i, "bulk" + i, team.getId());
+        }
+        // 샤드만 어긋나게 만든다. (샤드 JdbcTemplate은 알리지 않는다)
+        shards.shard(shards.shardOf(team.getId())).update("delete from member where team_id = ?", team.getId());
+        assertThat(shardedRepository.search(teamName("backfillTeam"))).isEmpty();
+
+        writer.backfill();
+
+        List<MemberTeamDto> result = shardedRepository.search(teamName("backfillTeam"));
+        assertThat(result).extracting("username").containsExactly("bulk0", "bulk1", "bulk2", "bulk3", "bulk4");
+        assertThat(result).extracting("teamName").containsOnly("backfillTeam");
+    }
+
+    // 벌크 clause와 JdbcTemplate 쓰기는 이벤트가 없다. 커밋 뒤에 backfill로 맞춘다.
+    @Test
+    public void bulkAndJdbcWritesBackfill() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("bulkShardTeam");
+            em.persist(team);
+            committedData.track(team);
+            em.persist(new Member("member1", 10, team));
+            em.persist(new Member("member2", 20, team));
+            return team.getId();
+        });
+
+        tx.executeWithoutResult(status -> {
+            queryFactory.update(member).set(member.age, member.age.add(1)).where(member.team.id.eq(teamId)).execute();
+            queryFactory.update(member).set(member.username, "renamed").where(member.username.eq("member1")).execute();
+            // 커밋 전에는 그대로
+            assertThat(shardedRepository.search(teamName("bulkShardTeam"))).extracting("age").containsExactly(10, 20);
+        });
+        assertThat(shardedRepository.search(teamName("bulkShardTeam")))
+                .extracting("username", "age")
+                .containsExactly(tuple("renamed", 11), tuple("member2", 21));
+
+        // 트랜잭션 밖 JdbcTemplate 쓰기는 바로 backfill 한다.
+        jdbcTemplate.update("insert into member (member_id, age, username, team_id) values (next value for hibernate_sequence, ?, ?, ?)",
+                30, "jdbc", teamId);
+        jdbcTemplate.update("update team set name = ? where id = ?", "jdbcShardTeam", teamId);
+        assertThat(shardedRepository.search(teamName("bulkShardTeam"))).isEmpty();
+        assertThat(shardedRepository.search(teamName("jdbcShardTeam"))).extracting("username")
+                .containsExactly("renamed", "member2", "jdbc");
+        assertThat(shardedRepository.isBackfilling()).isFalse();
+    }
+
+    // backfill 중에는 샤드가 비어 있을 수 있으니 SHARDED 검색도 기본 DB에서 읽는다.
+    @Test
+    public void searchUsesPrimaryWhileBackfilling() {
+        Long teamId = new TransactionTemplate(transactionManager).execute(status -> {
+            Team team = new Team("routeTeam");
+            em.persist(team);
+            committedData.track(team);
+            em.persist(new Member("member1", 10, team));
+            return team.getId();
+        });
+        // 샤드에서만 지운다. (샤드 JdbcTemplate은 알리지 않는다)
+        shards.shard(shards.shardOf(teamId)).update("delete from member where team_id = ?", teamId);
+
+        searchProperties.getEngine().put("search", SearchEngine.SHARDED);
+        try {
+            assertThat(memberRepository.search(teamName("routeTeam"))).isEmpty();
+
+            shardedRepository.beginBackfill();
+            try {
+                assertThat(memberRepository.search(teamName("routeTeam"))).extracting("username").containsExactly("member1");
+            } finally {
+                shardedRepository.endBackfill();
+            }
+            assertThat(memberRepository.search(teamName("routeTeam"))).isEmpty();
+        } finally {
+            searchProperties.getEngine().remove("search");
+        }
+    }
+
+    private long countInShards(Long memberId) {
+        return shards.all().stream()
+                .mapToLong(shard -> shard.queryForObject("select count(*) from member where member_id = ?", Long.class, memberId))
+                .sum();
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
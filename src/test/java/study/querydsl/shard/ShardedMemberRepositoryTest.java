@@ -0,0 +1,152 @@
+package study.querydsl.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.sql.MemberSqlQueries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedMemberRepositoryTest {
+
+    MemberShards shards;
+    ShardedMemberRepository repository;
+
+    // 샤드를 거치지 않은 정답
+    List<MemberTeamDto> all = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        ShardingProperties properties = new ShardingProperties();
+        properties.setShards(4);
+        properties.setUrlTemplate("jdbc:h2:mem:shard-test-%d;DB_CLOSE_DELAY=-1");
+        shards = new MemberShards(properties);
+        shards.all().forEach(shard -> {
+            shard.update("delete from member");
+            shard.update("delete from team");
+        });
+        repository = new ShardedMemberRepository(shards);
+
+        // 실제로는 기본 DB의 id가 그대로 온다. (MemberShardWriter)
+        long id = 0;
+        List<Long> teamIds = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            long teamId = ++id;
+            repository.saveTeam(teamId, "team" + i);
+            teamIds.add(teamId);
+        }
+        for (int i = 0; i < 100; i++) {
+            long memberId = ++id;
+            Long teamId = i % 10 == 0 ? null : teamIds.get(i % teamIds.size());
+            String teamName = teamId == null ? null : "team" + teamIds.indexOf(teamId);
+            int age = i % 40;
+            repository.saveMember(memberId, "member" + (i % 7), age, teamId);
+            all.add(new MemberTeamDto(memberId, "member" + (i % 7), age, teamId, teamName));
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        repository.close();
+        shards.close();
+    }
+
+    @Test
+    public void search() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(30);
+
+        List<MemberTeamDto> result = repository.search(condition);
+
+        assertThat(ids(result)).containsExactlyElementsOf(ids(all.stream()
+                .filter(dto -> dto.getAge() >= 10 && dto.getAge() <= 30)
+                .collect(Collectors.toList())));
+    }
+
+    @Test
+    public void searchPageSorted() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"));
+        List<MemberTeamDto> expected = all.stream()
+                .sorted(MemberSqlQueries.comparator(sort))
+                .collect(Collectors.toList());
+
+        for (int page = 0; page < 5; page++) {
+            Page<MemberTeamDto> result = repository.searchPageComplex(condition, PageRequest.of(page, 7, sort));
+
+            assertThat(result.getTotalElements()).isEqualTo(100);
+            assertThat(ids(result.getContent())).containsExactlyElementsOf(
+                    ids(expected.subList(page * 7, page * 7 + 7)));
+        }
+    }
+
+    @Test
+    public void searchSliceSorted() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Sort sort = Sort.by(Sort.Order.asc("username"));
+        List<MemberTeamDto> expected = all.stream()
+                .sorted(MemberSqlQueries.comparator(sort))
+                .collect(Collectors.toList());
+
+        Slice<MemberTeamDto> middle = repository.searchSlice(condition, PageRequest.of(3, 30, sort));
+        assertThat(ids(middle.getContent())).containsExactlyElementsOf(ids(expected.subList(90, 100)));
+        assertThat(middle.hasNext()).isFalse();
+
+        Slice<MemberTeamDto> first = repository.searchSlice(condition, PageRequest.of(0, 30, sort));
+        assertThat(ids(first.getContent())).containsExactlyElementsOf(ids(expected.subList(0, 30)));
+        assertThat(first.hasNext()).isTrue();
+    }
+
+    @Test
+    public void teamNameRoutesToSingleShard() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+
+        assertThat(repository.targetShards(condition)).hasSize(1);
+
+        Page<MemberTeamDto> result = repository.searchPageSimple(condition, PageRequest.of(0, 100));
+        List<MemberTeamDto> expected = all.stream()
+                .filter(dto -> "team3".equals(dto.getTeamName()))
+                .collect(Collectors.toList());
+        assertThat(result.getTotalElements()).isEqualTo(expected.size());
+        assertThat(ids(result.getContent())).containsExactlyElementsOf(ids(expected));
+    }
+
+    @Test
+    public void unknownTeamName() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("nope");
+
+        assertThat(repository.targetShards(condition)).isEmpty();
+        assertThat(repository.search(condition)).isEmpty();
+    }
+
+    @Test
+    public void renamedTeamMovesInDirectory() {
+        Long teamId = all.stream().filter(dto -> "team3".equals(dto.getTeamName())).findFirst().get().getTeamId();
+        repository.saveTeam(teamId, "renamed");
+
+        MemberSearchCondition oldName = new MemberSearchCondition();
+        oldName.setTeamName("team3");
+        MemberSearchCondition newName = new MemberSearchCondition();
+        newName.setTeamName("renamed");
+
+        assertThat(repository.targetShards(oldName)).isEmpty();
+        assertThat(repository.search(newName)).extracting("teamId").containsOnly(teamId).isNotEmpty();
+    }
+
+    private static List<Long> ids(List<MemberTeamDto> dtos) {
+        return dtos.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+    }
+}
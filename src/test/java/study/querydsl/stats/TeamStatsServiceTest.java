@@ -0,0 +1,243 @@
+package study.querydsl.stats;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+import study.querydsl.support.CommittedData;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 커밋 시점에 갱신되니 직접 커밋하고 끝나면 넣은 팀만 지운다.
+@SpringBootTest
+class TeamStatsServiceTest {
+
+    @Autowired
+    TeamStatsService teamStatsService;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    CommittedData committedData;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            committedData.track(teamA);
+            committedData.track(teamB);
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+            return null;
+        });
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        committedData.cleanUp();
+    }
+
+    @Test
+    public void maintainedOnCommit() {
+        TeamStatsDto teamA = teamStatsService.get(teamAId);
+        assertThat(teamA.getTeamName()).isEqualTo("teamA");
+        assertThat(teamA.getCount()).isEqualTo(2);
+        assertThat(teamA.getAvg()).isEqualTo(15);
+        assertThat(teamA.getMin()).isEqualTo(10);
+        assertThat(teamA.getMax()).isEqualTo(20);
+        assertSameAsGroupBy();
+
+        // 나이 변경, 팀 이동, 삭제
+        tx.execute(status -> {
+            Member member1 = findByUsername("member1");
+            member1.setAge(5);
+            Member member4 = findByUsername("member4");
+            member4.changeTeam(em.find(Team.class, teamAId));
+            em.remove(findByUsername("member3"));
+            return null;
+        });
+        teamA = teamStatsService.get(teamAId);
+        assertThat(teamA.getCount()).isEqualTo(3);
+        assertThat(teamA.getMin()).isEqualTo(5);
+        assertThat(teamA.getMax()).isEqualTo(40);
+        TeamStatsDto teamB = teamStatsService.get(teamBId);
+        assertThat(teamB.getCount()).isZero();
+        assertThat(teamB.getAvg()).isNull();
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void rollbackIsIgnored() {
+        tx.execute(status -> {
+            em.persist(new Member("member5", 50, em.find(Team.class, teamAId)));
+            em.flush();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(teamStatsService.get(teamAId).getCount()).isEqualTo(2);
+        assertSameAsGroupBy();
+    }
+
+    // 벌크 update/delete는 이벤트가 없다. JPAQueryFactory 빈이 실행 직전에 알려서 커밋 후 다시 계산된다.
+    @Test
+    public void bulkUpdate() {
+        tx.execute(status -> queryFactory
+                .update(member)
+                .set(member.age, member.age.add(1))
+                .where(member.team.id.in(teamAId, teamBId))
+                .execute());
+
+        assertThat(teamStatsService.get(teamBId).getMax()).isEqualTo(41);
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void bulkDelete() {
+        tx.execute(status -> queryFactory
+                .delete(member)
+                .where(member.team.id.eq(teamBId), member.age.goe(40))
+                .execute());
+
+        TeamStatsDto teamB = teamStatsService.get(teamBId);
+        assertThat(teamB.getCount()).isEqualTo(1);
+        assertThat(teamB.getMax()).isEqualTo(30);
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void bulkMoveTeam() {
+        tx.execute(status -> queryFactory
+                .update(member)
+                .set(member.team, em.find(Team.class, teamAId))
+                .where(member.team.id.eq(teamBId))
+                .execute());
+
+        assertThat(teamStatsService.get(teamAId).getCount()).isEqualTo(4);
+        assertThat(teamStatsService.get(teamBId).getCount()).isZero();
+        assertSameAsGroupBy();
+    }
+
+    @Test
+    public void bulkRollbackIsIgnored() {
+        tx.execute(status -> {
+            queryFactory.delete(member).where(member.team.id.eq(teamAId)).execute();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(teamStatsService.get(teamAId).getCount()).isEqualTo(2);
+        assertSameAsGroupBy();
+    }
+
+    // JdbcTemplate 쓰기도 기본 JdbcTemplate이 알려 준다. 한 트랜잭션에서 여러 번 써도 커밋 후 한 번 다시 계산한다.
+    @Test
+    public void jdbcWriteRefreshes() {
+        tx.execute(status -> {
+            jdbcTemplate.update("update member set age = 60 where username = 'member1' and team_id = ?", teamAId);
+            jdbcTemplate.update("update team set name = 'renamed' where id = ?", teamBId);
+            return null;
+        });
+
+        assertThat(teamStatsService.get(teamAId).getMax()).isEqualTo(60);
+        assertThat(teamStatsService.get(teamBId).getTeamName()).isEqualTo("renamed");
+        assertSameAsGroupBy();
+    }
+
+    // 다시 계산하는 중에 커밋된 변화량이 버려지거나 두 번 더해지지 않는다.
+    @Test
+    public void commitsDuringRefreshAreKept() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        CompletableFuture<Void> refresher = CompletableFuture.runAsync(() -> {
+            while (running.get()) {
+                teamStatsService.refresh();
+            }
+        });
+        try {
+            for (int i = 0; i < 20; i++) {
+                int age = 50 + i;
+                tx.execute(status -> {
+                    em.persist(new Member("concurrent" + age, age, em.find(Team.class, teamAId)));
+                    return null;
+                });
+            }
+        } finally {
+            running.set(false);
+            refresher.get(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(teamStatsService.get(teamAId).getCount()).isEqualTo(22);
+        assertSameAsGroupBy();
+    }
+
+    private Member findByUsername(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    // 메모리 뷰와 team_stats 테이블 모두 GROUP BY 결과와 같아야 한다.
+    private void assertSameAsGroupBy() {
+        List<Tuple> expected = new JPAQueryFactory(em)
+                .select(team.id, member.count(), member.age.sum(), member.age.max(), member.age.min())
+                .from(member)
+                .join(member.team, team)
+                .groupBy(team.id)
+                .fetch();
+
+        for (Tuple row : expected) {
+            TeamStatsDto stats = teamStatsService.get(row.get(team.id));
+            assertThat(stats.getCount()).isEqualTo(row.get(member.count()));
+            assertThat(stats.getSum()).isEqualTo(row.get(member.age.sum()).longValue());
+            assertThat(stats.getMax()).isEqualTo(row.get(member.age.max()));
+            assertThat(stats.getMin()).isEqualTo(row.get(member.age.min()));
+
+            TeamStats stored = em.find(TeamStats.class, row.get(team.id));
+            em.detach(stored);
+            assertThat(stored.getMemberCount()).isEqualTo(stats.getCount());
+            assertThat(stored.getAgeSum()).isEqualTo(stats.getSum());
+            assertThat(stored.getAgeMax()).isEqualTo(stats.getMax());
+            assertThat(stored.getAgeMin()).isEqualTo(stats.getMin());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dataset.GeneratedDataset;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.filter.UsernameFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 커밋까지 해야 하는 테스트(다른 커넥션에서 읽기, 커밋 이벤트 확인)가 넣은 데이터를 기록해 두고 끝나면 그것만 지운다.
+ * 공용 H2를 통째로 비우지 않는다.
+ * JDBC로 지우니 Hibernate 이벤트가 없다. 메모리에 들고 있는 것(팀 집계, near cache, 컬럼 인덱스, 샤드)은 BulkWriteListener로 다시 맞춘다.
+ * 한 트랜잭션으로 지워서 커밋 뒤에 한 번씩만 맞추게 한다. username 필터는 내려놓기만 하니 직접 rebuild 한다.
+ * 롤백으로 충분한 테스트는 이걸 쓰지 말고 @Transactional로.
+ */
+@Component
+public class CommittedData {
+
+    // IN 절 하나에 넣을 id 수
+    private static final int CHUNK = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UsernameFilter usernameFilter;
+
+    private final Set<Long> memberIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> teamIds = ConcurrentHashMap.newKeySet();
+    private final List<GeneratedDataset> datasets = new CopyOnWriteArrayList<>();
+
+    public CommittedData(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         UsernameFilter usernameFilter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.usernameFilter = usernameFilter;
+    }
+
+    // persist한 뒤에 부른다. (id가 있어야 한다) 팀에 속한 member는 팀을 지울 때 같이 지워진다.
+    public <T> T track(T entity) {
+        if (entity instanceof Member) {
+            memberIds.add(((Member) entity).getId());
+        } else if (entity instanceof Team) {
+            teamIds.add(((Team) entity).getId());
+        } else {
+            throw new IllegalArgumentException("not a Member or Team: " + entity);
+        }
+        return entity;
+    }
+
+    public GeneratedDataset track(GeneratedDataset dataset) {
+        datasets.add(dataset);
+        return dataset;
+    }
+
+    public void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> delete());
+        memberIds.clear();
+        teamIds.clear();
+        datasets.clear();
+        usernameFilter.rebuild();
+    }
+
+    private void delete() {
+        List<Long> teams = new ArrayList<>(teamIds);
+        deleteIn("delete from member where member_id in", new ArrayList<>(memberIds));
+        deleteIn("delete from member where team_id in", teams);
+        deleteIn("delete from team_stats where team_id in", teams);
+        deleteIn("delete from team where id in", teams);
+        for (GeneratedDataset dataset : datasets) {
+            jdbcTemplate.update("delete from member where member_id between ? and ?",
+                    dataset.getFirstMemberId(), dataset.getLastMemberId());
+            jdbcTemplate.update("delete from team_stats where team_id between ? and ?",
+                    dataset.getFirstTeamId(), dataset.getLastTeamId());
+            jdbcTemplate.update("delete from team where id between ? and ?",
+                    dataset.getFirstTeamId(), dataset.getLastTeamId());
+        }
+    }
+
+    private void deleteIn(String sql, List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + CHUNK));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update(sql + " (" + placeholders + ")", chunk.toArray());
+        }
+    }
+}
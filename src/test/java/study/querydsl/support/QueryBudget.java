@@ -0,0 +1,32 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 리포지토리 메서드 한 번 호출이 쓸 수 있는 쿼리/메모리 예산.
+ * 테스트 본문 전체가 아니라 QueryBudgetExtension.measure(...) 로 감싼 호출만 잰다. (준비 데이터 insert는 세지 않는다)
+ * 넘으면 테스트가 실패한다. 1번이면 될 쿼리가 101번 나가는 변경을 잡기 위한 것.
+ * -1 이면 검사하지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface QueryBudget {
+
+    // 호출 중 테스트 스레드에서 실행된 statement 수
+    int statements() default -1;
+
+    // select statement 수
+    int selects() default -1;
+
+    // select 결과로 읽은 row 수
+    long rows() default -1;
+
+    // 호출 중 테스트 스레드가 할당한 바이트 (ThreadMXBean 기준). 메서드마다 잰 값에 여유를 두고 정한다.
+    long allocatedBytes() default -1;
+}
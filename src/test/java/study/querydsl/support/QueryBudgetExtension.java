@@ -0,0 +1,138 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.repository.loader.MemberBatchLoader;
+
+import javax.persistence.EntityManager;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @QueryBudget 이 붙은 테스트에서 measure(...) 로 감싼 리포지토리 호출의 statement 수, row 수, 할당 바이트를 재고 예산과 비교한다.
+ * 테스트 본문에서 만든 준비 데이터는 measure 들어가기 전에 flush 해서 세지 않는다.
+ */
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryBudgetExtension.class);
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // 지금 테스트 스레드에서 진행 중인 측정
+    private static final ThreadLocal<Measurement> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 호출 하나를 예산에 넣는다. 한 테스트에서 여러 번 부르면 합쳐서 본다.
+     * 처음 호출은 클래스 로딩, 쿼리 계획 컴파일이 섞여 테스트 순서에 따라 할당량이 몇 MB씩 달라진다.
+     * 그래서 같은 호출을 먼저 불러 두고, 그 호출이 채운 영속성 컨텍스트와 near cache를 비운 뒤 잰다.
+     * 미리 부르는 것도 비운 상태에서 한 번 더 부른다. (처음엔 영속성 컨텍스트에서 끝나 엔티티 로딩 경로를 안 탈 수 있다)
+     * 재는 호출은 빈 영속성 컨텍스트에서 시작하니 지연 로딩 N+1, 반복 em.find도 그대로 센다.
+     * 비운 뒤라 테스트가 들고 있던 엔티티는 준영속이 된다. 두 번 불러도 되는 조회에만 쓴다.
+     */
+    public static <T> T measure(Supplier<T> call) {
+        Measurement measurement = CURRENT.get();
+        if (measurement == null) {
+            throw new IllegalStateException("measure는 @QueryBudget 테스트 안에서만 쓴다.");
+        }
+        flush(measurement);
+        for (int i = 0; i < 2; i++) {
+            call.get();
+            clear(measurement);
+        }
+        QueryCounter queryCounter = measurement.context.getBean(QueryCounter.class);
+        queryCounter.start();
+        long allocatedBefore = currentThreadAllocatedBytes();
+        try {
+            return call.get();
+        } finally {
+            measurement.allocatedBytes += currentThreadAllocatedBytes() - allocatedBefore;
+            measurement.add(queryCounter.stop());
+        }
+    }
+
+    private static void flush(Measurement measurement) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            measurement.context.getBean(EntityManager.class).flush();
+        }
+    }
+
+    private static void clear(Measurement measurement) {
+        flush(measurement);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            measurement.context.getBean(EntityManager.class).clear();
+        }
+        measurement.context.getBeanProvider(MemberBatchLoader.class).ifAvailable(MemberBatchLoader::clearCache);
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        CURRENT.set(new Measurement(SpringExtension.getApplicationContext(context)));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Measurement measurement = CURRENT.get();
+        CURRENT.remove();
+        String testName = context.getRequiredTestClass().getSimpleName() + "." + context.getRequiredTestMethod().getName();
+        if (measurement.calls == 0) {
+            throw new AssertionFailedError("query budget in " + testName + ": no measure(...) call");
+        }
+
+        QueryBudget budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), QueryBudget.class)
+                .orElseThrow(IllegalStateException::new);
+
+        log.info("query budget {} statements = {}, selects = {}, rows = {}, allocatedBytes = {}",
+                testName, measurement.statements, measurement.selects, measurement.rows, measurement.allocatedBytes);
+
+        List<String> exceeded = new ArrayList<>();
+        check(exceeded, "statements", budget.statements(), measurement.statements);
+        check(exceeded, "selects", budget.selects(), measurement.selects);
+        check(exceeded, "rows", budget.rows(), measurement.rows);
+        check(exceeded, "allocatedBytes", budget.allocatedBytes(), measurement.allocatedBytes);
+
+        if (!exceeded.isEmpty()) {
+            throw new AssertionFailedError("query budget exceeded in " + testName + ": " + String.join(", ", exceeded));
+        }
+    }
+
+    private static void check(List<String> exceeded, String name, long budget, long actual) {
+        if (budget >= 0 && actual > budget) {
+            exceeded.add(name + " " + actual + " > " + budget);
+        }
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class Measurement {
+        private final ApplicationContext context;
+        private int calls;
+        private long statements;
+        private long selects;
+        private long rows;
+        private long allocatedBytes;
+
+        Measurement(ApplicationContext context) {
+            this.context = context;
+        }
+
+        void add(QueryCounter.Counts counts) {
+            calls++;
+            statements += counts.getStatements();
+            selects += counts.getSelects();
+            rows += counts.getRows();
+        }
+    }
+}
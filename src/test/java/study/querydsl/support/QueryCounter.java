@@ -0,0 +1,77 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+// p6spy 리스너로 등록돼서 측정 중인 스레드의 statement / row 수를 센다.
+// 테스트 소스에 있지만 컴포넌트 스캔 범위(study.querydsl) 안이라 테스트 컨텍스트에 자동으로 빈 등록된다.
+@Component
+public class QueryCounter extends SimpleJdbcEventListener {
+
+    private final ThreadLocal<Counts> current = new ThreadLocal<>();
+
+    public void start() {
+        current.set(new Counts());
+    }
+
+    public Counts stop() {
+        Counts counts = current.get();
+        current.remove();
+        return counts != null ? counts : new Counts();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        Counts counts = current.get();
+        if (counts != null) {
+            counts.statements++;
+            if (isSelect(statementInformation.getSql())) {
+                counts.selects++;
+            }
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        Counts counts = current.get();
+        if (counts != null && hasNext && isSelect(resultSetInformation.getSql())) {
+            counts.rows++;
+        }
+    }
+
+    // use_sql_comments 때문에 앞에 /* jpql */ 주석이 붙어 있으니 떼고 본다.
+    static boolean isSelect(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        String trimmed = sql.trim();
+        if (trimmed.startsWith("/*")) {
+            int end = trimmed.indexOf("*/");
+            trimmed = end < 0 ? "" : trimmed.substring(end + 2).trim();
+        }
+        return trimmed.regionMatches(true, 0, "select", 0, 6)
+                || trimmed.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    public static class Counts {
+        private long statements;
+        private long selects;
+        private long rows;
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public long getSelects() {
+            return selects;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+    }
+}
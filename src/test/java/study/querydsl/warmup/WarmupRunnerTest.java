@@ -0,0 +1,62 @@
+package study.querydsl.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberQueryRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class WarmupRunnerTest {
+
+    @Autowired
+    ApplicationContext context;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void disabledInTests() {
+        assertThat(context.getBeanNamesForType(WarmupRunner.class)).isEmpty();
+    }
+
+    @Test
+    public void warmUp() {
+        WarmupProperties properties = new WarmupProperties();
+        properties.setIterations(2);
+        WarmupRunner runner = new WarmupRunner(properties, memberRepository, memberJpaRepository, memberQueryRepository,
+                objectMapper, dataSource, transactionManager);
+
+        WarmupReport report = runner.warmUp();
+
+        // DB 쿼리는 iterations와 상관없이 한 번씩.
+        // 16가지 조합 중 조건 없는 1개는 Slice만, 나머지는 8개 메서드 + id/username 조회 4개
+        assertThat(report.getQueries()).isEqualTo(1 + 15 * 8 + 4);
+        assertThat(report.getConnections()).isPositive();
+        // Jackson은 iterations * 10번, 한 번에 3개
+        assertThat(report.getSerialized()).isEqualTo(2 * 10 * 3);
+    }
+}